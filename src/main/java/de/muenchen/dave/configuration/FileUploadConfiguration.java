@@ -0,0 +1,35 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.configuration;
+
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Begrenzt die als Stream verarbeiteten Multipart-Requests. Ohne Grenzen liest der Parser beliebig
+ * große Header und Teile ein.
+ */
+@Configuration
+public class FileUploadConfiguration {
+
+    @Bean
+    public JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload(
+            @Value("${de.muenchen.dave.document-storage.lageplaene.upload.max-request-size:110MB}") final DataSize maxRequestSize,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.upload.max-file-size:100MB}") final DataSize maxFileSize,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.upload.max-part-count:10}") final long maxPartCount,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.upload.max-part-header-size:1KB}") final DataSize maxPartHeaderSize) {
+        final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setSizeMax(maxRequestSize.toBytes());
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setFileCountMax(maxPartCount);
+        upload.setPartHeaderSizeMax(Math.toIntExact(maxPartHeaderSize.toBytes()));
+        return upload;
+    }
+}
@@ -6,18 +6,49 @@ package de.muenchen.dave.configuration;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
+/**
+ * Neben JSON werden die Antworten auf Anfrage über den Accept-Header auch binär als CBOR
+ * (application/cbor) oder Smile ({@value #APPLICATION_SMILE_VALUE}) geliefert. Die
+ * Converter ersetzen die Standard-Converter von Spring an deren Position nach dem JSON-Converter, so
+ * dass ohne Accept-Header weiterhin JSON geliefert wird, und verwenden dieselbe Konfiguration wie der
+ * {@link ObjectMapper} für JSON.
+ */
 @Configuration
 @RequiredArgsConstructor
 public class JacksonConfiguration {
 
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     private final ObjectMapper objectMapper;
 
     @PostConstruct
     public void objectMapper() {
         this.objectMapper.enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
     }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryObjectMapper(jackson2ObjectMapperBuilder.factory(new CBORFactory())));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryObjectMapper(jackson2ObjectMapperBuilder.factory(new SmileFactory())));
+    }
+
+    private static ObjectMapper binaryObjectMapper(final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return jackson2ObjectMapperBuilder
+                .featuresToEnable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION)
+                .build();
+    }
 }
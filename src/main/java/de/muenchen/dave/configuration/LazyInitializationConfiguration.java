@@ -0,0 +1,54 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.configuration;
+
+import de.muenchen.dave.lageplaene.adapter.cluster.LageplanClusterSync;
+import de.muenchen.dave.lageplaene.api.controller.LageplanController;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Mit {@code spring.main.lazy-initialization=true} werden Beans erst beim ersten Zugriff erzeugt.
+ * Ausgenommen sind Beans mit {@link Scheduled}-Methoden, deren Jobs sonst nie eingeplant würden,
+ * sowie der {@link LageplanController} und der {@link LageplanService} samt Cache und S3-Client,
+ * damit die erste Abfrage eines Lageplans nicht deren Initialisierung abwarten muss. Ebenso
+ * ausgenommen ist der {@link LageplanClusterSync}, der sich bei der Erzeugung für die Nachrichten
+ * anderer Instanzen registriert und sonst nie erzeugt würde.
+ */
+@Configuration
+public class LazyInitializationConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerLageplanLookup() {
+        return LazyInitializationExcludeFilter.forBeanTypes(LageplanController.class, LageplanService.class);
+    }
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerMessageHandlers() {
+        return LazyInitializationExcludeFilter.forBeanTypes(LageplanClusterSync.class);
+    }
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerScheduledBeans() {
+        return (beanName, beanDefinition, beanType) -> hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(final Class<?> beanType) {
+        if (beanType == null) {
+            return false;
+        }
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType,
+                method -> scheduled.set(true),
+                method -> !scheduled.get() && AnnotatedElementUtils.hasAnnotation(method, Scheduled.class));
+        return scheduled.get();
+    }
+}
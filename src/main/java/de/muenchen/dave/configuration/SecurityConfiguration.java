@@ -4,17 +4,25 @@
  */
 package de.muenchen.dave.configuration;
 
+import de.muenchen.dave.security.SharedTokenAuthenticationFilter;
 import java.util.Arrays;
 import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
@@ -29,10 +37,29 @@ public class SecurityConfiguration {
 
     private final String[] whitelist;
 
+    /**
+     * Absichern des Endpunkts für die Benachrichtigungen des S3 über ein fest konfiguriertes Token, da
+     * das S3 kein OAuth2 unterstützt. Ohne konfiguriertes Token werden alle Requests abgewiesen.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain eventsSecurityFilterChain(final HttpSecurity http,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.events.token:}") final String eventsToken) throws Exception {
+        return http
+                .securityMatcher(AntPathRequestMatcher.antMatcher("/lageplan/events"))
+                .authorizeHttpRequests(request -> request.anyRequest().authenticated())
+                .addFilterBefore(new SharedTokenAuthenticationFilter("s3-events", eventsToken), AuthorizationFilter.class)
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .csrf(AbstractHttpConfigurer::disable)
+                .build();
+    }
+
     /**
      * Absichern der Rest-Endpunkte mit Definition der Ausnahmen.
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(final HttpSecurity http) throws Exception {
         return http
                 .authorizeHttpRequests(request -> request
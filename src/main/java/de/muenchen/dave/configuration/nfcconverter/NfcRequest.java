@@ -4,6 +4,7 @@
  */
 package de.muenchen.dave.configuration.nfcconverter;
 
+import de.muenchen.dave.timing.RequestTiming;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.Cookie;
@@ -32,6 +33,8 @@ import org.apache.commons.io.IOUtils;
 @Slf4j
 public class NfcRequest extends HttpServletRequestWrapper implements HttpServletRequest {
 
+    private static final String NFC_STAGE = "nfc";
+
     @SuppressWarnings("unused")
     private final Set<String> contentTypes;
     private Map<String, String[]> params;
@@ -50,9 +53,11 @@ public class NfcRequest extends HttpServletRequestWrapper implements HttpServlet
         if (params != null) {
             return;
         }
-        this.params = NfcHelper.nfcConverter(getRequest().getParameterMap());
-        this.cookies = NfcHelper.nfcConverter(getOriginalRequest().getCookies());
-        this.headers = NfcHelper.nfcConverterForHeadersFromOriginalRequest(getOriginalRequest());
+        try (RequestTiming.Stage ignored = RequestTiming.stage(NFC_STAGE)) {
+            this.params = NfcHelper.nfcConverter(getRequest().getParameterMap());
+            this.cookies = NfcHelper.nfcConverter(getOriginalRequest().getCookies());
+            this.headers = NfcHelper.nfcConverterForHeadersFromOriginalRequest(getOriginalRequest());
+        }
     }
 
     @Override
@@ -197,7 +202,10 @@ public class NfcRequest extends HttpServletRequestWrapper implements HttpServlet
         }
 
         log.debug("Converting InputStream data to NFC.");
-        final String nfcConvertedContent = NfcHelper.nfcConverter(content);
+        final String nfcConvertedContent;
+        try (RequestTiming.Stage ignored = RequestTiming.stage(NFC_STAGE)) {
+            nfcConvertedContent = NfcHelper.nfcConverter(content);
+        }
         return new NfcServletInputStream(new ByteArrayInputStream(nfcConvertedContent.getBytes()));
     }
 
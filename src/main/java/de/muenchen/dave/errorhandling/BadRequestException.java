@@ -0,0 +1,8 @@
+package de.muenchen.dave.errorhandling;
+
+public class BadRequestException extends Exception {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -4,8 +4,13 @@
  */
 package de.muenchen.dave.errorhandling;
 
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.dave.resilience.DeadlineExceededException;
+import de.muenchen.dave.resilience.RateLimitExceededException;
 import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.fileupload2.core.FileUploadSizeException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,9 +29,42 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Object> handleBadRequestException() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
     @ExceptionHandler(FileSystemAccessException.class)
     public ResponseEntity<Object> handleFileSystemAccessException() {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
     }
 
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<Object> handleBulkheadFullException(final BulkheadFullException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .build();
+    }
+
+    /**
+     * Die Wartezeit wird aufgerundet, damit der Client nicht vor dem nächsten freien Token erneut anfragt.
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<Object> handleRateLimitExceededException(final RateLimitExceededException exception) {
+        final long retryAfterSeconds = exception.getRetryAfter().plusNanos(999_999_999).toSeconds();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfterSeconds)))
+                .build();
+    }
+
+    @ExceptionHandler(FileUploadSizeException.class)
+    public ResponseEntity<Object> handleFileUploadSizeException() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+    }
+
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Object> handleDeadlineExceededException() {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+    }
+
 }
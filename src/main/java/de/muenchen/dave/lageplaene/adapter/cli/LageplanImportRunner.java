@@ -0,0 +1,54 @@
+package de.muenchen.dave.lageplaene.adapter.cli;
+
+import de.muenchen.dave.lageplaene.domain.service.LageplanImportService;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startet den Bulk-Import von Lageplänen beim Start der Anwendung, z.B. mit
+ * {@code java -jar dave-document-storage.jar --de.muenchen.dave.document-storage.lageplaene.import.source-directory=/daten/lageplaene}.
+ * <p>
+ * Nach Abschluss des Imports wird die Anwendung beendet. Der Exit-Code ist 1, falls mindestens eine
+ * Datei nicht importiert werden konnte. Ein erneuter Aufruf setzt den Import fort.
+ */
+@Component
+@ConditionalOnProperty(name = "de.muenchen.dave.document-storage.lageplaene.import.source-directory")
+@Slf4j
+public class LageplanImportRunner implements ApplicationRunner {
+
+    private final LageplanImportService lageplanImportService;
+
+    private final ConfigurableApplicationContext applicationContext;
+
+    private final Path sourceDirectory;
+
+    private final boolean exitOnCompletion;
+
+    public LageplanImportRunner(
+            final LageplanImportService lageplanImportService,
+            final ConfigurableApplicationContext applicationContext,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.import.source-directory}") final Path sourceDirectory,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.import.exit-on-completion:true}") final boolean exitOnCompletion) {
+        this.lageplanImportService = lageplanImportService;
+        this.applicationContext = applicationContext;
+        this.sourceDirectory = sourceDirectory;
+        this.exitOnCompletion = exitOnCompletion;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) throws Exception {
+        final LageplanImportService.ImportReport report = lageplanImportService.importDirectory(sourceDirectory);
+        if (exitOnCompletion) {
+            final int exitCode = report.failed() > 0 ? 1 : 0;
+            log.info("Beende Anwendung nach Import mit Exit-Code {}", exitCode);
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package de.muenchen.dave.lageplaene.adapter.cluster;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verbindet die Instanzen des Service über TCP, um Nachrichten an alle anderen Instanzen zu
+ * verteilen.
+ * <p>
+ * Jede Instanz nimmt auf {@code port} Verbindungen an und baut zu allen unter {@code members}
+ * angegebenen Instanzen eine ausgehende Verbindung auf. Ein Eintrag kann über DNS auf mehrere
+ * Adressen auflösen, z.B. ein Headless-Service in Kubernetes, und wird periodisch neu aufgelöst,
+ * so dass neue Instanzen ohne Neustart aufgenommen werden. Die eigene Adresse wird übersprungen.
+ * <p>
+ * Über die ausgehenden Verbindungen werden Nachrichten und in Pausen Heartbeats gesendet. Eine
+ * eingehende Verbindung, über die innerhalb von {@code failure-timeout} nichts empfangen wird, gilt
+ * als abgebrochen. Eine abgebrochene ausgehende Verbindung wird beim nächsten Durchlauf neu
+ * aufgebaut. Jeder Frame ist mit dem gemeinsamen Schlüssel per HMAC-SHA256 signiert, bei einer
+ * ungültigen Signatur wird die Verbindung geschlossen.
+ * <p>
+ * Die Signatur umfasst neben Typ und Inhalt die Kennung des sendenden Knotens, eine je Knoten
+ * fortlaufende Nummer und eine Zufallszahl, die der annehmende Knoten beim Verbindungsaufbau sendet.
+ * Eine Verbindung wird nur angenommen, wenn die Nummer des HELLO-Frames größer als die des letzten
+ * HELLO-Frames desselben Knotens ist, und innerhalb der Verbindung müssen die Nummern steigen.
+ * Aufgezeichnete Frames können so weder erneut noch bei einem anderen Knoten eingespielt werden. Bis zum
+ * gültigen HELLO-Frame werden nur kurze Frames gelesen und die Anzahl gleichzeitiger eingehender
+ * Verbindungen ist auf {@code max-incoming-connections} begrenzt.
+ * <p>
+ * Nachrichten werden höchstens einmal zugestellt. Nachrichten an eine nicht erreichbare oder zu
+ * langsame Instanz werden verworfen, sobald deren Puffer voll ist.
+ */
+@Component
+@Slf4j
+public class ClusterNode {
+
+    private static final byte FRAME_HELLO = 0;
+    private static final byte FRAME_HEARTBEAT = 1;
+    private static final byte FRAME_MESSAGE = 2;
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int MAX_FRAME_LENGTH = 1024 * 1024;
+    private static final int MAX_HELLO_LENGTH = 1 + Long.BYTES + 64 + MAC_LENGTH;
+    private static final int MAX_KNOWN_NODES = 1024;
+    private static final int NONCE_LENGTH = 16;
+
+    private final boolean enabled;
+    private final int port;
+    private final List<Member> members;
+    private final SecretKeySpec key;
+    private final Duration heartbeatInterval;
+    private final Duration failureTimeout;
+    private final Duration connectTimeout;
+    private final int maxPendingMessages;
+    private final Semaphore incomingConnections;
+    private final Counter droppedMessages;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * Fortlaufende Nummer der gesendeten Frames über alle ausgehenden Verbindungen.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Nummer des letzten angenommenen HELLO-Frames je Knoten.
+     */
+    private final Map<String, Long> helloSequences = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+            return size() > MAX_KNOWN_NODES;
+        }
+    };
+
+    private final Map<InetSocketAddress, Peer> peers = new ConcurrentHashMap<>();
+
+    private final Set<Socket> incoming = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private volatile Consumer<byte[]> messageHandler = payload -> {
+    };
+
+    private volatile ServerSocket serverSocket;
+
+    public ClusterNode(
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.cluster.enabled:false}") final boolean enabled,
+            @Value("${de.muenchen.dave.document-storage.cluster.port:7800}") final int port,
+            @Value("${de.muenchen.dave.document-storage.cluster.members:}") final List<String> members,
+            @Value("${de.muenchen.dave.document-storage.cluster.secret:}") final String secret,
+            @Value("${de.muenchen.dave.document-storage.cluster.heartbeat-interval:PT2S}") final Duration heartbeatInterval,
+            @Value("${de.muenchen.dave.document-storage.cluster.failure-timeout:PT10S}") final Duration failureTimeout,
+            @Value("${de.muenchen.dave.document-storage.cluster.connect-timeout:PT1S}") final Duration connectTimeout,
+            @Value("${de.muenchen.dave.document-storage.cluster.max-pending-messages:10000}") final int maxPendingMessages,
+            @Value("${de.muenchen.dave.document-storage.cluster.max-incoming-connections:64}") final int maxIncomingConnections) {
+        if (enabled && StringUtils.isBlank(secret)) {
+            throw new IllegalStateException("Für den Cluster ist ein gemeinsamer Schlüssel erforderlich");
+        }
+        this.enabled = enabled;
+        this.port = port;
+        this.members = members.stream().filter(StringUtils::isNotBlank).map(Member::parse).toList();
+        this.key = enabled ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256) : null;
+        this.heartbeatInterval = heartbeatInterval;
+        this.failureTimeout = failureTimeout;
+        this.connectTimeout = connectTimeout;
+        this.maxPendingMessages = maxPendingMessages;
+        this.incomingConnections = new Semaphore(maxIncomingConnections);
+        Gauge.builder("dave.cluster.members", peers, connected -> connected.values().stream().filter(Peer::isConnected).count())
+                .description("Anzahl der verbundenen anderen Instanzen")
+                .register(meterRegistry);
+        this.droppedMessages = Counter.builder("dave.cluster.messages.dropped")
+                .description("Anzahl der wegen eines vollen Puffers verworfenen Nachrichten an andere Instanzen")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nimmt Verbindungen anderer Instanzen an und verbindet sich mit den bekannten Instanzen.
+     *
+     * @throws IOException falls der Port nicht geöffnet werden kann.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        serverSocket = new ServerSocket(port);
+        executor.execute(this::acceptConnections);
+        log.info("Cluster-Knoten {} nimmt Verbindungen auf Port {} an", nodeId, getPort());
+        discover();
+    }
+
+    /**
+     * Löst die Mitglieder des Clusters auf und baut zu neuen Instanzen eine Verbindung auf.
+     */
+    @Scheduled(fixedDelayString = "${de.muenchen.dave.document-storage.cluster.discovery-interval:PT10S}")
+    public void discover() {
+        if (serverSocket == null) {
+            return;
+        }
+        for (final Member member : members) {
+            try {
+                for (final InetAddress address : InetAddress.getAllByName(member.host())) {
+                    final InetSocketAddress target = new InetSocketAddress(address, member.port());
+                    if (!isSelf(target)) {
+                        peers.computeIfAbsent(target, this::connect);
+                    }
+                }
+            } catch (UnknownHostException exception) {
+                log.debug("Mitglied des Clusters nicht auflösbar: {}", member.host());
+            }
+        }
+    }
+
+    /**
+     * Sendet die Nachricht an alle verbundenen Instanzen, ohne auf die Übertragung zu warten.
+     *
+     * @param payload die Nachricht.
+     */
+    public void broadcast(final byte[] payload) {
+        if (serverSocket == null) {
+            return;
+        }
+        if (1 + Long.BYTES + payload.length + MAC_LENGTH > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Nachricht zu groß: " + payload.length + " Bytes");
+        }
+        for (final Peer peer : peers.values()) {
+            if (!peer.pending.offer(payload)) {
+                droppedMessages.increment();
+                log.debug("Puffer für {} voll, Nachricht verworfen", peer.target);
+            }
+        }
+    }
+
+    /**
+     * @param handler wird für jede von einer anderen Instanz empfangene Nachricht aufgerufen.
+     */
+    public void onMessage(final Consumer<byte[]> handler) {
+        this.messageHandler = handler;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        final ServerSocket current = serverSocket;
+        serverSocket = null;
+        if (current != null) {
+            closeQuietly(current);
+        }
+        peers.values().forEach(peer -> closeQuietly(peer.socket));
+        incoming.forEach(this::closeQuietly);
+        executor.shutdownNow();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConnectedPeerCount() {
+        return (int) peers.values().stream().filter(Peer::isConnected).count();
+    }
+
+    private Peer connect(final InetSocketAddress target) {
+        final Peer peer = new Peer(target, new ArrayBlockingQueue<>(maxPendingMessages));
+        executor.execute(peer::run);
+        return peer;
+    }
+
+    private void acceptConnections() {
+        final ServerSocket current = serverSocket;
+        while (current != null && !current.isClosed()) {
+            try {
+                final Socket socket = current.accept();
+                if (!incomingConnections.tryAcquire()) {
+                    log.warn("Maximale Anzahl eingehender Verbindungen erreicht, {} abgewiesen", socket.getRemoteSocketAddress());
+                    closeQuietly(socket);
+                    continue;
+                }
+                executor.execute(() -> receive(socket));
+            } catch (IOException exception) {
+                if (!current.isClosed()) {
+                    log.warn("Verbindung einer anderen Instanz konnte nicht angenommen werden", exception);
+                }
+            }
+        }
+    }
+
+    private void receive(final Socket socket) {
+        incoming.add(socket);
+        try (socket; DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            socket.setSoTimeout(Math.toIntExact(failureTimeout.toMillis()));
+            final byte[] nonce = new byte[NONCE_LENGTH];
+            random.nextBytes(nonce);
+            socket.getOutputStream().write(nonce);
+            socket.getOutputStream().flush();
+            final Frame hello = readFrame(in, MAX_HELLO_LENGTH, null, nonce);
+            final String remoteNodeId = new String(hello.body(), StandardCharsets.UTF_8);
+            if (hello.type() != FRAME_HELLO || nodeId.equals(remoteNodeId)) {
+                return;
+            }
+            if (!acceptHello(remoteNodeId, hello.sequence())) {
+                throw new StreamCorruptedException("Wiederholter HELLO-Frame von " + remoteNodeId);
+            }
+            log.info("Verbunden mit Cluster-Knoten {} ({})", remoteNodeId, socket.getRemoteSocketAddress());
+            long lastSequence = hello.sequence();
+            while (true) {
+                final Frame frame = readFrame(in, MAX_FRAME_LENGTH, remoteNodeId, nonce);
+                if (frame.sequence() <= lastSequence) {
+                    throw new StreamCorruptedException("Wiederholter Frame von " + remoteNodeId);
+                }
+                lastSequence = frame.sequence();
+                if (frame.type() == FRAME_MESSAGE) {
+                    handle(frame.body());
+                }
+            }
+        } catch (EOFException | SocketException exception) {
+            log.debug("Verbindung von {} beendet", socket.getRemoteSocketAddress());
+        } catch (StreamCorruptedException exception) {
+            log.warn("Verbindung von {} geschlossen: {}", socket.getRemoteSocketAddress(), exception.getMessage());
+        } catch (IOException exception) {
+            log.warn("Verbindung von {} abgebrochen", socket.getRemoteSocketAddress(), exception);
+        } finally {
+            incoming.remove(socket);
+            incomingConnections.release();
+        }
+    }
+
+    /**
+     * @return true falls die Nummer größer als die des letzten HELLO-Frames des Knotens ist.
+     */
+    private boolean acceptHello(final String remoteNodeId, final long helloSequence) {
+        synchronized (helloSequences) {
+            final Long last = helloSequences.get(remoteNodeId);
+            if (last != null && helloSequence <= last) {
+                return false;
+            }
+            helloSequences.put(remoteNodeId, helloSequence);
+            return true;
+        }
+    }
+
+    private void handle(final byte[] payload) {
+        try {
+            messageHandler.accept(payload);
+        } catch (RuntimeException exception) {
+            log.warn("Nachricht einer anderen Instanz konnte nicht verarbeitet werden", exception);
+        }
+    }
+
+    /**
+     * @param maxLength die maximale Länge des Frames.
+     * @param senderNodeId die Kennung des sendenden Knotens oder null für den HELLO-Frame, der die
+     *            Kennung selbst enthält.
+     * @param nonce die beim Verbindungsaufbau gesendete Zufallszahl.
+     */
+    private Frame readFrame(final DataInputStream in, final int maxLength, final String senderNodeId, final byte[] nonce) throws IOException {
+        final int length = in.readInt();
+        if (length < 1 + Long.BYTES + MAC_LENGTH || length > maxLength) {
+            throw new StreamCorruptedException("Ungültige Länge des Frames: " + length);
+        }
+        final byte type = in.readByte();
+        final long frameSequence = in.readLong();
+        final byte[] body = new byte[length - 1 - Long.BYTES - MAC_LENGTH];
+        in.readFully(body);
+        final byte[] mac = new byte[MAC_LENGTH];
+        in.readFully(mac);
+        final String sender = senderNodeId == null ? new String(body, StandardCharsets.UTF_8) : senderNodeId;
+        if (!MessageDigest.isEqual(mac, mac(sender, nonce, type, frameSequence, body))) {
+            throw new StreamCorruptedException("Ungültige Signatur des Frames");
+        }
+        return new Frame(type, frameSequence, body);
+    }
+
+    /**
+     * Länge, Typ, Nummer, Inhalt und Signatur über Kennung des Knotens, Zufallszahl des Empfängers,
+     * Typ, Nummer und Inhalt.
+     */
+    private byte[] frame(final byte[] nonce, final byte type, final byte[] body) {
+        final int length = 1 + Long.BYTES + body.length + MAC_LENGTH;
+        final long frameSequence = sequence.incrementAndGet();
+        return ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .put(type)
+                .putLong(frameSequence)
+                .put(body)
+                .put(mac(nodeId, nonce, type, frameSequence, body))
+                .array();
+    }
+
+    private byte[] mac(final String senderNodeId, final byte[] nonce, final byte type, final long frameSequence, final byte[] body) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(key);
+            final byte[] sender = senderNodeId.getBytes(StandardCharsets.UTF_8);
+            mac.update(ByteBuffer.allocate(Integer.BYTES + sender.length + NONCE_LENGTH + 1 + Long.BYTES)
+                    .putInt(sender.length)
+                    .put(sender)
+                    .put(nonce)
+                    .put(type)
+                    .putLong(frameSequence)
+                    .array());
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("HMAC-SHA256 nicht verfügbar", exception);
+        }
+    }
+
+    private boolean isSelf(final InetSocketAddress target) {
+        if (target.getPort() != getPort()) {
+            return false;
+        }
+        final InetAddress address = target.getAddress();
+        try {
+            return address.isAnyLocalAddress() || address.isLoopbackAddress() || NetworkInterface.getByInetAddress(address) != null;
+        } catch (SocketException exception) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(final AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception exception) {
+            log.debug("Schließen fehlgeschlagen", exception);
+        }
+    }
+
+    /**
+     * Die ausgehende Verbindung zu einer anderen Instanz mit dem Puffer der noch zu sendenden
+     * Nachrichten. Die Frames werden erst beim Senden nummeriert, damit die Nummern innerhalb der
+     * Verbindung steigen.
+     */
+    private final class Peer {
+
+        private final InetSocketAddress target;
+
+        private final BlockingQueue<byte[]> pending;
+
+        private volatile Socket socket;
+
+        private volatile boolean connected;
+
+        private Peer(final InetSocketAddress target, final BlockingQueue<byte[]> pending) {
+            this.target = target;
+            this.pending = pending;
+        }
+
+        private boolean isConnected() {
+            return connected;
+        }
+
+        private void run() {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(target, Math.toIntExact(connectTimeout.toMillis()));
+                connection.setTcpNoDelay(true);
+                connection.setSoTimeout(Math.toIntExact(failureTimeout.toMillis()));
+                final byte[] nonce = new byte[NONCE_LENGTH];
+                new DataInputStream(connection.getInputStream()).readFully(nonce);
+                final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                out.write(frame(nonce, FRAME_HELLO, nodeId.getBytes(StandardCharsets.UTF_8)));
+                out.flush();
+                connected = true;
+                log.info("Verbindung zu {} aufgebaut", target);
+                while (!Thread.currentThread().isInterrupted()) {
+                    final byte[] payload = pending.poll(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    out.write(payload == null ? frame(nonce, FRAME_HEARTBEAT, new byte[0]) : frame(nonce, FRAME_MESSAGE, payload));
+                    if (pending.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (IOException exception) {
+                log.debug("Verbindung zu {} nicht möglich oder abgebrochen: {}", target, exception.getMessage());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (connected) {
+                    log.info("Verbindung zu {} beendet", target);
+                }
+                connected = false;
+                peers.remove(target, this);
+            }
+        }
+    }
+
+    private record Frame(byte type, long sequence, byte[] body) {
+    }
+
+    /**
+     * @param host der Hostname, der auf eine oder mehrere Instanzen auflöst.
+     * @param port der Port der Instanzen.
+     */
+    private record Member(String host, int port) {
+
+        private static Member parse(final String member) {
+            final String host = StringUtils.substringBeforeLast(member.trim(), ":");
+            final String port = StringUtils.substringAfterLast(member.trim(), ":");
+            if (StringUtils.isAnyBlank(host, port) || !StringUtils.isNumeric(port)) {
+                throw new IllegalArgumentException("Mitglied des Clusters nicht im Format host:port: " + member);
+            }
+            return new Member(host, Integer.parseInt(port));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.muenchen.dave.lageplaene.adapter.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangeService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangedEvent;
+import java.io.IOException;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gleicht die neuesten Lagepläne zwischen den Instanzen des Service ab.
+ * <p>
+ * Jede von dieser Instanz erkannte Änderung, z.B. durch einen Upload oder eine Auflistung, wird
+ * über den {@link ClusterNode} an alle anderen Instanzen verteilt. Empfangene Änderungen werden in
+ * das {@link LageplanChangeService Änderungsprotokoll} übernommen, das daraufhin ein
+ * {@link LageplanChangedEvent} veröffentlicht. Bloom-Filter, Verzeichnis der Messstellen und die
+ * Abonnenten der Server-Sent Events aller Instanzen sind damit innerhalb von Millisekunden statt erst
+ * nach der nächsten periodischen Auflistung aktuell. Empfangene Änderungen werden nicht erneut
+ * verteilt.
+ */
+@Component
+@Slf4j
+public class LageplanClusterSync {
+
+    private final ClusterNode clusterNode;
+
+    private final LageplanChangeService lageplanChangeService;
+
+    private final ObjectMapper objectMapper;
+
+    public LageplanClusterSync(final ClusterNode clusterNode, final LageplanChangeService lageplanChangeService, final ObjectMapper objectMapper) {
+        this.clusterNode = clusterNode;
+        this.lageplanChangeService = lageplanChangeService;
+        this.objectMapper = objectMapper;
+        clusterNode.onMessage(this::receive);
+    }
+
+    @EventListener
+    public void onLageplanChanged(final LageplanChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        try {
+            clusterNode.broadcast(objectMapper.writeValueAsBytes(new Change(event.mstId(), event.removed(), event.lastModified())));
+        } catch (JsonProcessingException exception) {
+            log.warn("Änderung für Messstelle {} konnte nicht verteilt werden", event.mstId(), exception);
+        }
+    }
+
+    void receive(final byte[] payload) {
+        final Change change;
+        try {
+            change = objectMapper.readValue(payload, Change.class);
+        } catch (IOException exception) {
+            log.warn("Nachricht einer anderen Instanz nicht lesbar", exception);
+            return;
+        }
+        if (change.mstId() == null || change.lastModified() == null) {
+            log.warn("Unvollständige Änderung einer anderen Instanz verworfen: {}", change);
+            return;
+        }
+        log.debug("Änderung einer anderen Instanz empfangen: {}", change);
+        lageplanChangeService.recordRemote(change.mstId(), change.removed(), change.lastModified());
+    }
+
+    /**
+     * Die zwischen den Instanzen übertragene Änderung.
+     */
+    record Change(String mstId, boolean removed, Instant lastModified) {
+    }
+}
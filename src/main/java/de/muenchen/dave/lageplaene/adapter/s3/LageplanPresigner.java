@@ -0,0 +1,123 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.dave.timing.RequestTiming;
+import de.muenchen.refarch.integration.s3.adapter.out.s3.S3Adapter;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.minio.http.Method;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erstellt Presigned-URLs für den lesenden Zugriff auf Lagepläne.
+ * <p>
+ * Ist das lokale Signieren aktiviert, wird die URL ohne Netzwerkzugriff mit der konfigurierten
+ * Region und einem je Tag zwischengespeicherten Signing-Key berechnet. Andernfalls wird an den
+ * {@link S3Adapter} delegiert, welcher je nach Konfiguration die Region des Buckets ermittelt.
+ */
+@Component
+@Slf4j
+public class LageplanPresigner {
+
+    private static final String PRESIGNING_STAGE = "presigning";
+
+    private final S3Adapter s3Adapter;
+
+    private final boolean localPresigningEnabled;
+
+    private final URI endpoint;
+
+    private final String bucketName;
+
+    private final boolean pathStyleAccess;
+
+    private final SignatureV4 signatureV4;
+
+    private final Clock clock;
+
+    @Autowired
+    public LageplanPresigner(
+            final S3Adapter s3Adapter,
+            @Value("${de.muenchen.dave.document-storage.s3.presigning.local-enabled:false}") final boolean localPresigningEnabled,
+            @Value("${de.muenchen.dave.document-storage.s3.presigning.region:us-east-1}") final String region,
+            @Value("${de.muenchen.dave.document-storage.s3.presigning.path-style-access:true}") final boolean pathStyleAccess,
+            @Value("${refarch.s3.url:}") final String endpoint,
+            @Value("${refarch.s3.bucket-name:}") final String bucketName,
+            @Value("${refarch.s3.access-key:}") final String accessKey,
+            @Value("${refarch.s3.secret-key:}") final String secretKey) {
+        this(s3Adapter, localPresigningEnabled, region, pathStyleAccess, endpoint, bucketName, accessKey, secretKey, Clock.systemUTC());
+    }
+
+    LageplanPresigner(
+            final S3Adapter s3Adapter,
+            final boolean localPresigningEnabled,
+            final String region,
+            final boolean pathStyleAccess,
+            final String endpoint,
+            final String bucketName,
+            final String accessKey,
+            final String secretKey,
+            final Clock clock) {
+        this.s3Adapter = s3Adapter;
+        this.localPresigningEnabled = localPresigningEnabled && StringUtils.isNoneBlank(endpoint, bucketName, accessKey, secretKey);
+        if (localPresigningEnabled && !this.localPresigningEnabled) {
+            log.warn("Lokales Signieren ist aktiviert, aber die S3-Konfiguration ist unvollständig. Es wird an den S3Adapter delegiert.");
+        }
+        this.endpoint = StringUtils.isBlank(endpoint) ? null : URI.create(StringUtils.removeEnd(endpoint, "/"));
+        this.bucketName = bucketName;
+        this.pathStyleAccess = pathStyleAccess;
+        this.signatureV4 = new SignatureV4(accessKey, secretKey, region);
+        this.clock = clock;
+    }
+
+    /**
+     * Liefert eine Presigned-URL zum Herunterladen der Datei.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param expirationInMinutes die Gültigkeit der URL in Minuten.
+     * @return die Presigned-URL.
+     * @throws FileSystemAccessException falls an den {@link S3Adapter} delegiert wird und dieser einen
+     *             Fehler liefert.
+     */
+    public String getPresignedUrlForDownload(final String pathToFile, final int expirationInMinutes) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(PRESIGNING_STAGE)) {
+            if (!localPresigningEnabled) {
+                return s3Adapter.getPresignedUrl(pathToFile, Method.GET, expirationInMinutes);
+            }
+            final Instant now = clock.instant();
+            final String host = host();
+            final String canonicalUri = canonicalUri(pathToFile);
+            final String query = signatureV4.presignQuery(
+                    Method.GET.name(),
+                    host,
+                    canonicalUri,
+                    now,
+                    TimeUnit.MINUTES.toSeconds(expirationInMinutes));
+            return endpoint.getScheme() + "://" + host + canonicalUri + "?" + query;
+        }
+    }
+
+    private String host() {
+        final String host = pathStyleAccess ? endpoint.getHost() : bucketName + "." + endpoint.getHost();
+        final int port = endpoint.getPort();
+        final boolean defaultPort = port == -1
+                || ("https".equalsIgnoreCase(endpoint.getScheme()) && port == 443)
+                || ("http".equalsIgnoreCase(endpoint.getScheme()) && port == 80);
+        return defaultPort ? host : host + ":" + port;
+    }
+
+    private String canonicalUri(final String pathToFile) {
+        final String basePath = Objects.toString(endpoint.getRawPath(), "");
+        final String objectPath = SignatureV4.encodePath(StringUtils.removeStart(pathToFile, "/"));
+        return pathStyleAccess
+                ? basePath + "/" + SignatureV4.encode(bucketName) + "/" + objectPath
+                : basePath + "/" + objectPath;
+    }
+}
@@ -0,0 +1,407 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.dave.resilience.CircuitBreaker;
+import de.muenchen.dave.resilience.Deadline;
+import de.muenchen.dave.resilience.DeadlineExceededException;
+import de.muenchen.dave.resilience.HedgingExecutor;
+import de.muenchen.dave.resilience.LatencyTracker;
+import de.muenchen.dave.timing.RequestTiming;
+import de.muenchen.refarch.integration.s3.adapter.out.s3.S3Adapter;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.InputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kapselt alle lesenden S3-Zugriffe für die Lagepläne und schützt diese über einen
+ * {@link CircuitBreaker}. Ist der Circuit-Breaker geöffnet, wird ohne S3-Zugriff sofort eine
+ * {@link FileSystemAccessException} geworfen.
+ * <p>
+ * Ist für den aktuellen Request eine {@link Deadline} gesetzt, wird die verbleibende Zeit als
+ * Timeout des S3-Aufrufs verwendet und der Aufruf nach Ablauf abgebrochen. Ist das Hedging
+ * aktiviert, werden die Aufrufe über einen {@link HedgingExecutor} ausgeführt.
+ */
+@Component
+@Slf4j
+public class LageplanS3Client {
+
+    private static final String SEPARATOR = "/";
+
+    private static final String S3_LISTING_STAGE = "s3-listing";
+
+    private static final String S3_GET_STAGE = "s3-get";
+
+    private static final String S3_WRITE_STAGE = "s3-write";
+
+    private static final int MAX_KEYS_PER_LISTING = 1000;
+
+    /**
+     * Ein leeres Objekt für den Folder selbst wird vor allen Dateien des Folders aufgelistet und
+     * soll nicht zu einer zusätzlichen Seite führen.
+     */
+    private static final int MAX_KEYS_PER_PROBE = 2;
+
+    private final S3Adapter s3Adapter;
+
+    private final S3BucketClient s3BucketClient;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final HedgingExecutor hedgingExecutor;
+
+    private final ExecutorService executor;
+
+    private final int listingParallelism;
+
+    private final Clock clock;
+
+    @Autowired
+    public LageplanS3Client(
+            final S3Adapter s3Adapter,
+            final S3BucketClient s3BucketClient,
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.s3.circuit-breaker.failure-threshold:5}") final int failureThreshold,
+            @Value("${de.muenchen.dave.document-storage.s3.circuit-breaker.open-duration:PT30S}") final Duration openDuration,
+            @Value("${de.muenchen.dave.document-storage.s3.circuit-breaker.slow-call-duration:PT5S}") final Duration slowCallDuration,
+            @Value("${de.muenchen.dave.document-storage.s3.hedging.enabled:false}") final boolean hedgingEnabled,
+            @Value("${de.muenchen.dave.document-storage.s3.hedging.percentile:0.95}") final double hedgingPercentile,
+            @Value("${de.muenchen.dave.document-storage.s3.hedging.initial-delay:PT0.5S}") final Duration hedgingInitialDelay,
+            @Value("${de.muenchen.dave.document-storage.s3.hedging.min-delay:PT0.05S}") final Duration hedgingMinDelay,
+            @Value("${de.muenchen.dave.document-storage.s3.hedging.budget-ratio:0.05}") final double hedgingBudgetRatio,
+            @Value("${de.muenchen.dave.document-storage.s3.listing.parallelism:8}") final int listingParallelism) {
+        this.s3Adapter = s3Adapter;
+        this.s3BucketClient = s3BucketClient;
+        this.clock = Clock.systemUTC();
+        this.circuitBreaker = new CircuitBreaker("s3", failureThreshold, openDuration, slowCallDuration, clock);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.listingParallelism = listingParallelism;
+        Gauge.builder("dave.s3.circuitbreaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Zustand des Circuit-Breakers (0 = geschlossen, 1 = offen, 2 = halb offen)")
+                .tag("name", circuitBreaker.getName())
+                .register(meterRegistry);
+        if (hedgingEnabled) {
+            this.hedgingExecutor = new HedgingExecutor(
+                    executor,
+                    new LatencyTracker(1000, hedgingPercentile, hedgingInitialDelay),
+                    hedgingMinDelay,
+                    hedgingBudgetRatio);
+            FunctionCounter.builder("dave.s3.hedging.calls", hedgingExecutor, HedgingExecutor::getCalls)
+                    .description("Anzahl der mit Hedging ausgeführten S3-Aufrufe")
+                    .register(meterRegistry);
+            FunctionCounter.builder("dave.s3.hedging.fired", hedgingExecutor, HedgingExecutor::getHedgesFired)
+                    .description("Anzahl der zusätzlich abgesetzten S3-Aufrufe")
+                    .register(meterRegistry);
+            FunctionCounter.builder("dave.s3.hedging.won", hedgingExecutor, HedgingExecutor::getHedgesWon)
+                    .description("Anzahl der zusätzlichen S3-Aufrufe, die vor dem ursprünglichen Aufruf geantwortet haben")
+                    .register(meterRegistry);
+            Gauge.builder("dave.s3.hedging.delay", hedgingExecutor, hedging -> hedging.getHedgeDelay().toMillis())
+                    .description("Aktuelle Wartezeit in Millisekunden bis zum Absetzen eines zusätzlichen S3-Aufrufs")
+                    .register(meterRegistry);
+        } else {
+            this.hedgingExecutor = null;
+        }
+    }
+
+    LageplanS3Client(final S3Adapter s3Adapter, final S3BucketClient s3BucketClient, final CircuitBreaker circuitBreaker,
+            final HedgingExecutor hedgingExecutor, final ExecutorService executor, final int listingParallelism, final Clock clock) {
+        this.s3Adapter = s3Adapter;
+        this.s3BucketClient = s3BucketClient;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgingExecutor = hedgingExecutor;
+        this.executor = executor;
+        this.listingParallelism = listingParallelism;
+        this.clock = clock;
+    }
+
+    /**
+     * Liefert die Metadaten aller Dateien im Folder und dessen Subfoldern.
+     * <p>
+     * Ist die parallele Auflistung aktiviert, werden zuerst die direkten Subfolder über eine
+     * Auflistung mit Trennzeichen ermittelt. Diese werden anschließend mit höchstens
+     * {@code listingParallelism} gleichzeitigen Aufrufen aufgelistet, so dass die Dauer nur noch von
+     * dem langsamsten Subfolder abhängt.
+     *
+     * @param folder der Folder.
+     * @return die Metadaten der Dateien.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public List<FileMetadata> getMetadataOfFilesFromFolder(final String folder) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_LISTING_STAGE)) {
+            if (listingParallelism <= 1 || !s3BucketClient.isConfigured()) {
+                return execute(() -> s3Adapter.getMetadataOfFilesFromFolder(folder), folder, true);
+            }
+            final List<FileMetadata> files = new ArrayList<>();
+            final List<String> subfolders = new ArrayList<>();
+            String continuationToken = null;
+            do {
+                final String token = continuationToken;
+                final S3ObjectListing listing = execute(
+                        () -> s3BucketClient.listObjects(folder, SEPARATOR, token, MAX_KEYS_PER_LISTING), folder, true);
+                files.addAll(listing.files());
+                subfolders.addAll(listing.subfolders());
+                continuationToken = listing.nextContinuationToken();
+            } while (continuationToken != null);
+            if (!subfolders.isEmpty()) {
+                files.addAll(getMetadataOfFilesFromSubfolders(folder, subfolders));
+            }
+            return files;
+        }
+    }
+
+    /**
+     * Liefert die direkten Subfolder des Folders über eine Auflistung mit Trennzeichen, ohne die
+     * darin enthaltenen Dateien aufzulisten.
+     *
+     * @param folder der Folder.
+     * @return die Pfade der Subfolder in lexikographischer Reihenfolge.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public List<String> getSubfolders(final String folder) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_LISTING_STAGE)) {
+            final List<String> subfolders = new ArrayList<>();
+            String continuationToken = null;
+            do {
+                final String token = continuationToken;
+                final S3ObjectListing listing = execute(
+                        () -> s3BucketClient.listObjects(folder, SEPARATOR, token, MAX_KEYS_PER_LISTING), folder, true);
+                subfolders.addAll(listing.subfolders());
+                continuationToken = listing.nextContinuationToken();
+            } while (continuationToken != null);
+            return subfolders;
+        }
+    }
+
+    /**
+     * Prüft, ob im Folder oder dessen Subfoldern mindestens eine Datei existiert. Die Auflistung
+     * endet mit der ersten gefundenen Datei, so dass der Aufwand unabhängig von der Anzahl der
+     * Dateien im Folder ist. Leere Objekte für Folder werden nicht als Datei gewertet.
+     *
+     * @param folder der Folder.
+     * @return true falls mindestens eine Datei existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public boolean containsAnyFile(final String folder) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_LISTING_STAGE)) {
+            if (!s3BucketClient.isConfigured()) {
+                return !execute(() -> s3Adapter.getMetadataOfFilesFromFolder(folder), folder, true).isEmpty();
+            }
+            String continuationToken = null;
+            do {
+                final String token = continuationToken;
+                final S3ObjectListing listing = execute(
+                        () -> s3BucketClient.listObjects(folder, null, token, MAX_KEYS_PER_PROBE), folder, true);
+                if (listing.files().stream().anyMatch(file -> !file.pathToFile().endsWith(SEPARATOR))) {
+                    return true;
+                }
+                continuationToken = listing.nextContinuationToken();
+            } while (continuationToken != null);
+            return false;
+        }
+    }
+
+    /**
+     * @return true falls Auflistungen mit Trennzeichen möglich sind.
+     */
+    public boolean isDelimiterListingSupported() {
+        return s3BucketClient.isConfigured();
+    }
+
+    /**
+     * Liest ein kleines Objekt vollständig als Text.
+     *
+     * @param pathToFile der Pfad der Datei.
+     * @return der Inhalt oder leer, falls das Objekt nicht existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public Optional<String> getObject(final String pathToFile) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_GET_STAGE)) {
+            return execute(() -> s3BucketClient.getObject(pathToFile), pathToFile, true);
+        }
+    }
+
+    /**
+     * Öffnet ein Objekt zum Lesen als Stream. Die Aufrufe werden nie über das Hedging ausgeführt, da
+     * der Stream des unterlegenen Aufrufs nicht geschlossen würde.
+     *
+     * @param pathToFile der Pfad der Datei.
+     * @return der vom Aufrufer zu schließende Stream oder leer, falls das Objekt nicht existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public Optional<InputStream> getObjectAsStream(final String pathToFile) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_GET_STAGE)) {
+            return execute(() -> s3BucketClient.getObjectAsStream(pathToFile), pathToFile, false);
+        }
+    }
+
+    /**
+     * Schreibt ein kleines Objekt. Schreibende Aufrufe werden nie über das Hedging ausgeführt.
+     *
+     * @param pathToFile der Pfad der Datei.
+     * @param contentType der Content-Type des Objekts.
+     * @param content der Inhalt des Objekts.
+     * @throws FileSystemAccessException bei einem Fehler im S3 oder falls der Circuit-Breaker geöffnet
+     *             ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public void putObject(final String pathToFile, final String contentType, final byte[] content) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_WRITE_STAGE)) {
+            execute(() -> {
+                s3BucketClient.putObject(pathToFile, contentType, content);
+                return null;
+            }, pathToFile, false);
+        }
+    }
+
+    /**
+     * Löscht ein Objekt. Schreibende Aufrufe werden nie über das Hedging ausgeführt.
+     *
+     * @param pathToFile der Pfad der Datei.
+     * @throws FileSystemAccessException bei einem Fehler im S3, falls das Objekt nicht gelöscht werden
+     *             konnte oder falls der Circuit-Breaker geöffnet ist.
+     * @throws DeadlineExceededException falls die Deadline des Requests überschritten ist.
+     */
+    public void deleteObject(final String pathToFile) throws FileSystemAccessException {
+        try (RequestTiming.Stage ignored = RequestTiming.stage(S3_WRITE_STAGE)) {
+            execute(() -> {
+                if (!s3BucketClient.deleteObjects(List.of(pathToFile)).isEmpty()) {
+                    throw new FileSystemAccessException("Objekt konnte nicht gelöscht werden: " + pathToFile);
+                }
+                return null;
+            }, pathToFile, false);
+        }
+    }
+
+    private List<FileMetadata> getMetadataOfFilesFromSubfolders(final String folder, final List<String> subfolders)
+            throws FileSystemAccessException {
+        final Semaphore permits = new Semaphore(listingParallelism);
+        final List<Future<List<FileMetadata>>> futures = new ArrayList<>(subfolders.size());
+        try {
+            for (final String subfolder : subfolders) {
+                permits.acquire();
+                futures.add(executor.submit(Deadline.propagate(() -> {
+                    try {
+                        return execute(() -> s3Adapter.getMetadataOfFilesFromFolder(subfolder), subfolder, true);
+                    } finally {
+                        permits.release();
+                    }
+                })));
+            }
+            final List<FileMetadata> files = new ArrayList<>();
+            for (final Future<List<FileMetadata>> future : futures) {
+                files.addAll(future.get());
+            }
+            return files;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemAccessException("S3-Zugriff unterbrochen: " + folder);
+        } catch (ExecutionException exception) {
+            // Der Circuit-Breaker wurde bereits im Thread des fehlgeschlagenen Subfolders informiert.
+            throw unwrap(exception, folder);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * @return true falls der S3 als nicht verfügbar gilt und Aufrufe sofort abgewiesen werden.
+     */
+    public boolean isUnavailable() {
+        return circuitBreaker.isOpen();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T execute(final S3Call<T> call, final String path, final boolean hedgingAllowed) throws FileSystemAccessException {
+        Deadline.check(path);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.debug("Circuit-Breaker offen, S3-Zugriff abgewiesen: {}", path);
+            throw new FileSystemAccessException("S3 nicht verfügbar: " + path);
+        }
+        final Duration timeout = Deadline.remaining().orElse(null);
+        final long start = clock.millis();
+        try {
+            final T result;
+            if (hedgingExecutor != null && hedgingAllowed) {
+                result = hedgingExecutor.execute(call::execute, timeout);
+            } else if (timeout != null) {
+                result = executeWithTimeout(call, timeout);
+            } else {
+                result = call.execute();
+            }
+            circuitBreaker.onSuccess(Duration.ofMillis(clock.millis() - start));
+            return result;
+        } catch (TimeoutException exception) {
+            circuitBreaker.release();
+            log.warn("S3-Zugriff nach Ablauf der Deadline abgebrochen: {}", path);
+            throw new DeadlineExceededException(path);
+        } catch (InterruptedException exception) {
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new FileSystemAccessException("S3-Zugriff unterbrochen: " + path);
+        } catch (ExecutionException exception) {
+            circuitBreaker.onError();
+            throw unwrap(exception, path);
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            circuitBreaker.onError();
+            throw exception;
+        }
+    }
+
+    private <T> T executeWithTimeout(final S3Call<T> call, final Duration timeout)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        final Future<T> future = executor.submit(call::execute);
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            future.cancel(true);
+        }
+    }
+
+    private FileSystemAccessException unwrap(final ExecutionException exception, final String path) {
+        if (exception.getCause() instanceof FileSystemAccessException fileSystemAccessException) {
+            return fileSystemAccessException;
+        }
+        if (exception.getCause() instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        log.error("Fehler beim S3-Zugriff: {}", path, exception.getCause());
+        return new FileSystemAccessException("Fehler beim S3-Zugriff: " + path);
+    }
+
+    @FunctionalInterface
+    private interface S3Call<T> {
+        T execute() throws FileSystemAccessException;
+    }
+}
@@ -0,0 +1,362 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.minio.AbortMultipartUploadResponse;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.ListObjectsV2Response;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.UploadPartResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Führt die Operationen auf dem konfigurierten Bucket aus, die der {@code S3Adapter} nicht
+ * anbietet, z.B. seitenweise Auflistungen mit Trennzeichen, Multipart-Uploads, Kopieren und
+ * Löschen. Die Requests werden über den MinIO-Client gestellt, welcher auch dem
+ * {@code S3Adapter} zugrunde liegt.
+ */
+@Component
+@Slf4j
+public class S3BucketClient {
+
+    public static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+
+    private final BucketClient client;
+
+    private final String bucketName;
+
+    @Autowired
+    public S3BucketClient(
+            @Value("${refarch.s3.url:}") final String endpoint,
+            @Value("${refarch.s3.bucket-name:}") final String bucketName,
+            @Value("${refarch.s3.access-key:}") final String accessKey,
+            @Value("${refarch.s3.secret-key:}") final String secretKey,
+            @Value("${de.muenchen.dave.document-storage.s3.request-timeout:PT60S}") final Duration requestTimeout) {
+        this(StringUtils.isNoneBlank(endpoint, bucketName, accessKey, secretKey)
+                ? new BucketClient(MinioAsyncClient.builder().endpoint(endpoint).credentials(accessKey, secretKey).build(), requestTimeout)
+                : null,
+                bucketName);
+    }
+
+    S3BucketClient(final BucketClient client, final String bucketName) {
+        this.client = client;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * @return true falls Endpunkt, Bucket und Zugangsdaten konfiguriert sind.
+     */
+    public boolean isConfigured() {
+        return client != null;
+    }
+
+    /**
+     * Liest ein kleines Objekt vollständig als Text.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @return der Inhalt des Objekts oder leer, falls das Objekt nicht existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public Optional<String> getObject(final String pathToFile) throws FileSystemAccessException {
+        final Optional<InputStream> object = getObjectAsStream(pathToFile);
+        if (object.isEmpty()) {
+            return Optional.empty();
+        }
+        try (InputStream inputStream = object.get()) {
+            return Optional.of(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException exception) {
+            log.error("Fehler beim Lesen von {}", pathToFile, exception);
+            throw new FileSystemAccessException("Fehler beim Lesen von " + pathToFile);
+        }
+    }
+
+    /**
+     * Öffnet ein Objekt zum Lesen als Stream. Der Inhalt wird erst beim Lesen übertragen.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @return der vom Aufrufer zu schließende Stream oder leer, falls das Objekt nicht existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public Optional<InputStream> getObjectAsStream(final String pathToFile) throws FileSystemAccessException {
+        final Optional<GetObjectResponse> response = callIfExists(pathToFile,
+                () -> getClient().getObject(GetObjectArgs.builder().bucket(bucketName).object(pathToFile).build()));
+        return response.map(InputStream.class::cast);
+    }
+
+    /**
+     * Schreibt ein kleines Objekt in einem einzelnen Request.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param contentType der Content-Type des Objekts.
+     * @param content der Inhalt des Objekts.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public void putObject(final String pathToFile, final String contentType, final byte[] content) throws FileSystemAccessException {
+        call(pathToFile, () -> getClient().putObject(PutObjectArgs.builder()
+                .bucket(bucketName)
+                .object(pathToFile)
+                .stream(new ByteArrayInputStream(content), content.length, -1)
+                .contentType(contentType)
+                .build()));
+    }
+
+    /**
+     * Listet eine Seite der Objekte unterhalb des Präfix auf. Objekte unterhalb des nächsten
+     * Trennzeichens werden dabei zu Subfoldern zusammengefasst.
+     *
+     * @param prefix der Präfix, z.B. ein Folder mit abschließendem Trennzeichen.
+     * @param delimiter das Trennzeichen oder null, um alle Objekte unterhalb des Präfix aufzulisten.
+     * @param continuationToken das Token der vorherigen Seite oder null für die erste Seite.
+     * @param maxKeys die maximale Anzahl an Objekten und Subfoldern der Seite.
+     * @return die Seite der Auflistung.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public S3ObjectListing listObjects(final String prefix, final String delimiter, final String continuationToken, final int maxKeys)
+            throws FileSystemAccessException {
+        final ListObjectsV2Response response = call(prefix,
+                () -> getClient().listObjectsV2(bucketName, prefix, delimiter, continuationToken, maxKeys));
+        return toListing(response.result());
+    }
+
+    /**
+     * Kopiert ein Objekt innerhalb des Buckets.
+     *
+     * @param sourcePath der Pfad der Quelldatei im Bucket.
+     * @param targetPath der Pfad der Zieldatei im Bucket.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public void copyObject(final String sourcePath, final String targetPath) throws FileSystemAccessException {
+        call(sourcePath, () -> getClient().copyObject(CopyObjectArgs.builder()
+                .bucket(bucketName)
+                .object(targetPath)
+                .source(CopySource.builder().bucket(bucketName).object(sourcePath).build())
+                .build()));
+    }
+
+    /**
+     * Löscht bis zu {@value #MAX_KEYS_PER_DELETE} Objekte mit einem einzelnen Request.
+     *
+     * @param pathsToFiles die Pfade der Dateien im Bucket.
+     * @return die Pfade der Objekte, die nicht gelöscht werden konnten.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public List<String> deleteObjects(final List<String> pathsToFiles) throws FileSystemAccessException {
+        if (pathsToFiles.size() > MAX_KEYS_PER_DELETE) {
+            throw new IllegalArgumentException("Maximal " + MAX_KEYS_PER_DELETE + " Objekte je Request");
+        }
+        final Iterable<Result<DeleteError>> results = getClient().removeObjects(RemoveObjectsArgs.builder()
+                .bucket(bucketName)
+                .objects(pathsToFiles.stream().map(DeleteObject::new).toList())
+                .build());
+        final List<String> failed = new ArrayList<>();
+        try {
+            // Die Objekte werden erst beim Durchlaufen der Ergebnisse gelöscht.
+            for (final Result<DeleteError> result : results) {
+                final DeleteError error = result.get();
+                log.warn("Objekt {} konnte nicht gelöscht werden: {} {}", error.objectName(), error.code(), error.message());
+                failed.add(error.objectName());
+            }
+        } catch (MinioException | GeneralSecurityException | IOException exception) {
+            log.error("Fehler beim Löschen von {} Objekten", pathsToFiles.size(), exception);
+            throw new FileSystemAccessException("Fehler beim Löschen von " + pathsToFiles.size() + " Objekten");
+        }
+        return failed;
+    }
+
+    /**
+     * Beginnt einen Multipart-Upload.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param contentType der Content-Type der Datei oder null.
+     * @return die Upload-ID.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public String createMultipartUpload(final String pathToFile, final String contentType) throws FileSystemAccessException {
+        final Multimap<String, String> headers = StringUtils.isBlank(contentType)
+                ? ImmutableMultimap.of()
+                : ImmutableMultimap.of("Content-Type", contentType);
+        final CreateMultipartUploadResponse response = call(pathToFile,
+                () -> getClient().createMultipartUpload(bucketName, pathToFile, headers));
+        return response.result().uploadId();
+    }
+
+    /**
+     * Lädt einen Teil eines Multipart-Uploads hoch.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param uploadId die Upload-ID.
+     * @param partNumber die Nummer des Teils, beginnend mit 1.
+     * @param part der Inhalt des Teils.
+     * @return der ETag des Teils.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public String uploadPart(final String pathToFile, final String uploadId, final int partNumber, final byte[] part)
+            throws FileSystemAccessException {
+        final UploadPartResponse response = call(pathToFile,
+                () -> getClient().uploadPart(bucketName, pathToFile, part, uploadId, partNumber));
+        return response.etag();
+    }
+
+    /**
+     * Schließt einen Multipart-Upload ab.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param uploadId die Upload-ID.
+     * @param etags die ETags der Teile in der Reihenfolge der Teilnummern.
+     * @return der ETag des Objekts.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public String completeMultipartUpload(final String pathToFile, final String uploadId, final List<String> etags)
+            throws FileSystemAccessException {
+        final Part[] parts = new Part[etags.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new Part(i + 1, etags.get(i));
+        }
+        final ObjectWriteResponse response = call(pathToFile,
+                () -> getClient().completeMultipartUpload(bucketName, pathToFile, uploadId, parts));
+        return response.etag();
+    }
+
+    /**
+     * Bricht einen Multipart-Upload ab und verwirft die bereits hochgeladenen Teile.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param uploadId die Upload-ID.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public void abortMultipartUpload(final String pathToFile, final String uploadId) throws FileSystemAccessException {
+        call(pathToFile, () -> getClient().abortMultipartUpload(bucketName, pathToFile, uploadId));
+    }
+
+    static S3ObjectListing toListing(final ListBucketResultV2 result) {
+        final List<FileMetadata> files = new ArrayList<>();
+        for (final Item item : result.contents()) {
+            files.add(new FileMetadata(
+                    item.objectName(),
+                    item.size(),
+                    StringUtils.strip(item.etag(), "\""),
+                    item.lastModified().withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime()));
+        }
+        final List<String> subfolders = new ArrayList<>();
+        for (final Prefix prefix : result.commonPrefixes()) {
+            subfolders.add(prefix.toItem().objectName());
+        }
+        final String nextContinuationToken = result.isTruncated() ? result.nextContinuationToken() : null;
+        return new S3ObjectListing(files, subfolders, nextContinuationToken);
+    }
+
+    private BucketClient getClient() throws FileSystemAccessException {
+        if (client == null) {
+            throw new FileSystemAccessException("S3-Konfiguration unvollständig");
+        }
+        return client;
+    }
+
+    private <T> T call(final String pathToFile, final MinioCall<T> call) throws FileSystemAccessException {
+        return callIfExists(pathToFile, call).orElseThrow(() -> new FileSystemAccessException("Objekt nicht gefunden: " + pathToFile));
+    }
+
+    /**
+     * Führt den Aufruf aus und wartet auf dessen Ergebnis.
+     *
+     * @return das Ergebnis oder leer, falls das Objekt nicht existiert.
+     */
+    private <T> Optional<T> callIfExists(final String pathToFile, final MinioCall<T> call) throws FileSystemAccessException {
+        try {
+            return Optional.of(call.execute().get());
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof ErrorResponseException errorResponseException
+                    && NO_SUCH_KEY.equals(errorResponseException.errorResponse().code())) {
+                return Optional.empty();
+            }
+            log.error("Fehler beim Zugriff auf {}", pathToFile, exception.getCause());
+            throw new FileSystemAccessException("Fehler beim Zugriff auf " + pathToFile);
+        } catch (MinioException | GeneralSecurityException | IOException exception) {
+            log.error("Fehler beim Zugriff auf {}", pathToFile, exception);
+            throw new FileSystemAccessException("Fehler beim Zugriff auf " + pathToFile);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new FileSystemAccessException("Zugriff unterbrochen: " + pathToFile);
+        }
+    }
+
+    @FunctionalInterface
+    private interface MinioCall<T> {
+        CompletableFuture<T> execute() throws FileSystemAccessException, MinioException, GeneralSecurityException, IOException;
+    }
+
+    /**
+     * Macht die S3-Operationen des MinIO-Clients zugänglich, die dieser nur für abgeleitete Klassen
+     * anbietet. Die Region wird vom MinIO-Client ermittelt und zwischengespeichert.
+     */
+    static class BucketClient extends MinioAsyncClient {
+
+        private static final Multimap<String, String> NONE = ImmutableMultimap.of();
+
+        BucketClient(final MinioAsyncClient client, final Duration requestTimeout) {
+            super(client);
+            setTimeout(requestTimeout.toMillis(), requestTimeout.toMillis(), requestTimeout.toMillis());
+        }
+
+        CompletableFuture<ListObjectsV2Response> listObjectsV2(final String bucketName, final String prefix, final String delimiter,
+                final String continuationToken, final int maxKeys) throws MinioException, GeneralSecurityException, IOException {
+            return listObjectsV2Async(bucketName, null, delimiter, null, null, maxKeys, prefix, continuationToken, false, false, NONE, NONE);
+        }
+
+        CompletableFuture<CreateMultipartUploadResponse> createMultipartUpload(final String bucketName, final String pathToFile,
+                final Multimap<String, String> headers) throws MinioException, GeneralSecurityException, IOException {
+            return createMultipartUploadAsync(bucketName, null, pathToFile, headers, NONE);
+        }
+
+        CompletableFuture<UploadPartResponse> uploadPart(final String bucketName, final String pathToFile, final byte[] part,
+                final String uploadId, final int partNumber) throws MinioException, GeneralSecurityException, IOException {
+            return uploadPartAsync(bucketName, null, pathToFile, part, part.length, uploadId, partNumber, NONE, NONE);
+        }
+
+        CompletableFuture<ObjectWriteResponse> completeMultipartUpload(final String bucketName, final String pathToFile, final String uploadId,
+                final Part[] parts) throws MinioException, GeneralSecurityException, IOException {
+            return completeMultipartUploadAsync(bucketName, null, pathToFile, uploadId, parts, NONE, NONE);
+        }
+
+        CompletableFuture<AbortMultipartUploadResponse> abortMultipartUpload(final String bucketName, final String pathToFile,
+                final String uploadId) throws MinioException, GeneralSecurityException, IOException {
+            return abortMultipartUploadAsync(bucketName, null, pathToFile, uploadId, NONE, NONE);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Lädt Dateien per S3-Multipart-Upload hoch, ohne diese vollständig im Speicher zu halten.
+ * <p>
+ * Der Datenstrom wird in Teile der konfigurierten Größe zerlegt, welche parallel hochgeladen
+ * werden. Die Anzahl gleichzeitig gehaltener Teile ist auf {@code parallelism} begrenzt, so dass
+ * der Speicherbedarf je Upload höchstens {@code partSize * parallelism} beträgt.
+ */
+@Component
+@Slf4j
+public class S3MultipartUploader {
+
+    /**
+     * Mindestgröße aller Teile außer dem letzten, kleinere Teile weist der S3 beim Abschluss des
+     * Uploads ab.
+     */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3BucketClient s3BucketClient;
+
+    private final int partSize;
+
+    private final int parallelism;
+
+    private final ExecutorService executor;
+
+    @Autowired
+    public S3MultipartUploader(
+            final S3BucketClient s3BucketClient,
+            @Value("${de.muenchen.dave.document-storage.s3.upload.part-size:8MB}") final DataSize partSize,
+            @Value("${de.muenchen.dave.document-storage.s3.upload.parallelism:4}") final int parallelism) {
+        this(s3BucketClient, (int) partSize.toBytes(), parallelism);
+    }
+
+    S3MultipartUploader(final S3BucketClient s3BucketClient, final int partSize, final int parallelism) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Die Größe der Teile muss mindestens " + MIN_PART_SIZE + " Bytes betragen: " + partSize);
+        }
+        this.s3BucketClient = s3BucketClient;
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Lädt den Datenstrom als Objekt in den Bucket hoch.
+     *
+     * @param pathToFile der Pfad der Datei im Bucket.
+     * @param contentType der Content-Type der Datei.
+     * @param inputStream der Inhalt der Datei. Der Strom wird nicht geschlossen.
+     * @return das Ergebnis des Uploads.
+     * @throws FileSystemAccessException bei einem Fehler im S3. Der Multipart-Upload wird in diesem
+     *             Fall abgebrochen.
+     * @throws IOException beim Lesen des Datenstroms.
+     * @throws IllegalArgumentException falls der Datenstrom leer ist.
+     */
+    public UploadResult upload(final String pathToFile, final String contentType, final InputStream inputStream)
+            throws FileSystemAccessException, IOException {
+        if (!s3BucketClient.isConfigured()) {
+            throw new FileSystemAccessException("S3-Konfiguration für Uploads unvollständig");
+        }
+        final String uploadId = s3BucketClient.createMultipartUpload(pathToFile, contentType);
+        try {
+            final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            final Semaphore partsInFlight = new Semaphore(parallelism);
+            long size = 0;
+            int partNumber = 1;
+            boolean lastPart = false;
+            while (!lastPart && parts.stream().noneMatch(CompletableFuture::isCompletedExceptionally)) {
+                partsInFlight.acquire();
+                final byte[] part = inputStream.readNBytes(partSize);
+                if (part.length == 0 && partNumber > 1) {
+                    partsInFlight.release();
+                    break;
+                }
+                if (part.length == 0) {
+                    throw new IllegalArgumentException("Die Datei ist leer: " + pathToFile);
+                }
+                size += part.length;
+                lastPart = part.length < partSize;
+                final int number = partNumber++;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(pathToFile, uploadId, number, part), executor)
+                        .whenComplete((completedPart, exception) -> partsInFlight.release()));
+            }
+            final List<CompletedPart> completedParts = parts.stream().map(CompletableFuture::join).toList();
+            final String etag = s3BucketClient.completeMultipartUpload(pathToFile, uploadId,
+                    completedParts.stream().map(CompletedPart::etag).toList());
+            log.info("Upload von {} mit {} Bytes in {} Teilen abgeschlossen", pathToFile, size, completedParts.size());
+            return new UploadResult(pathToFile, size, etag);
+        } catch (CompletionException exception) {
+            abort(pathToFile, uploadId);
+            log.error("Fehler beim Upload eines Teils von {}", pathToFile, exception.getCause());
+            throw new FileSystemAccessException("Fehler beim Upload von " + pathToFile);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            abort(pathToFile, uploadId);
+            throw new FileSystemAccessException("Upload unterbrochen: " + pathToFile);
+        } catch (FileSystemAccessException | IOException | RuntimeException exception) {
+            abort(pathToFile, uploadId);
+            throw exception;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private CompletedPart uploadPart(final String pathToFile, final String uploadId, final int partNumber, final byte[] part) {
+        try {
+            return new CompletedPart(partNumber, s3BucketClient.uploadPart(pathToFile, uploadId, partNumber, part));
+        } catch (FileSystemAccessException exception) {
+            throw new UncheckedIOException(new IOException(exception.getMessage(), exception));
+        }
+    }
+
+    private void abort(final String pathToFile, final String uploadId) {
+        try {
+            s3BucketClient.abortMultipartUpload(pathToFile, uploadId);
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Multipart-Upload {} für {} konnte nicht abgebrochen werden", uploadId, pathToFile, exception);
+        }
+    }
+
+    /**
+     * @param pathToFile der Pfad der hochgeladenen Datei im Bucket.
+     * @param size die Größe der Datei in Bytes.
+     * @param etag der ETag des Objekts.
+     */
+    public record UploadResult(String pathToFile, long size, String etag) {
+    }
+
+    private record CompletedPart(int partNumber, String etag) {
+    }
+}
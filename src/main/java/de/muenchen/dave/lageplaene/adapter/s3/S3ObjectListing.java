@@ -0,0 +1,15 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.util.List;
+
+/**
+ * Ergebnis einer Auflistung mit Trennzeichen.
+ *
+ * @param files die Dateien direkt im aufgelisteten Folder.
+ * @param subfolders die Präfixe der direkten Subfolder, jeweils mit abschließendem Trennzeichen.
+ * @param nextContinuationToken das Token für die nächste Seite oder null, falls dies die letzte
+ *            Seite ist.
+ */
+public record S3ObjectListing(List<FileMetadata> files, List<String> subfolders, String nextContinuationToken) {
+}
@@ -0,0 +1,182 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Lokale Implementierung der AWS Signature Version 4 für S3.
+ * <p>
+ * Der aus dem Secret-Key abgeleitete Signing-Key ist nur vom Datum, der Region und dem Service
+ * abhängig und wird daher je Tag genau einmal berechnet und zwischengespeichert. Eine Signatur
+ * kostet somit nur noch einen SHA-256-Hash und eine HMAC-Berechnung und benötigt keinerlei
+ * Netzwerkzugriff.
+ */
+public class SignatureV4 {
+
+    public static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String SERVICE = "s3";
+
+    private static final String TERMINATOR = "aws4_request";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    private final AtomicReference<SigningKey> signingKey = new AtomicReference<>();
+
+    public SignatureV4(final String accessKey, final String secretKey, final String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * Erstellt die Query-Parameter einer Presigned-URL inklusive Signatur.
+     *
+     * @param method die HTTP-Methode.
+     * @param host der Host-Header (inkl. Port falls kein Standardport).
+     * @param canonicalUri der bereits URI-kodierte Pfad.
+     * @param timestamp der Zeitpunkt der Signatur.
+     * @param expiresInSeconds die Gültigkeit der URL in Sekunden.
+     * @return der kodierte Query-String der Presigned-URL.
+     */
+    public String presignQuery(final String method, final String host, final String canonicalUri, final Instant timestamp,
+            final long expiresInSeconds) {
+        final String date = DATE_FORMAT.format(timestamp);
+        final String dateTime = DATE_TIME_FORMAT.format(timestamp);
+        final String scope = scope(date);
+
+        final Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope);
+        query.put("X-Amz-Date", dateTime);
+        query.put("X-Amz-Expires", String.valueOf(expiresInSeconds));
+        query.put("X-Amz-SignedHeaders", "host");
+        final String canonicalQuery = canonicalQuery(query);
+
+        final String canonicalRequest = method + "\n"
+                + canonicalUri + "\n"
+                + canonicalQuery + "\n"
+                + "host:" + host + "\n"
+                + "\n"
+                + "host\n"
+                + UNSIGNED_PAYLOAD;
+        final String signature = sign(date, dateTime, scope, canonicalRequest);
+        return canonicalQuery + "&X-Amz-Signature=" + signature;
+    }
+
+    /**
+     * Kodiert einen Objektschlüssel als kanonischen Pfad. Die Trennzeichen "/" bleiben erhalten.
+     *
+     * @param path der unkodierte Pfad.
+     * @return der kodierte Pfad.
+     */
+    public static String encodePath(final String path) {
+        return uriEncode(path, false);
+    }
+
+    /**
+     * Kodiert einen Wert gemäß RFC 3986 wie von SigV4 gefordert.
+     *
+     * @param value der unkodierte Wert.
+     * @return der kodierte Wert.
+     */
+    public static String encode(final String value) {
+        return uriEncode(value, true);
+    }
+
+    private static String sha256Hex(final byte[] data) {
+        try {
+            return HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private String sign(final String date, final String dateTime, final String scope, final String canonicalRequest) {
+        final String stringToSign = ALGORITHM + "\n"
+                + dateTime + "\n"
+                + scope + "\n"
+                + sha256Hex(canonicalRequest.getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(hmac(signingKey(date), stringToSign));
+    }
+
+    private String scope(final String date) {
+        return date + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+    }
+
+    /**
+     * Liefert den Signing-Key für das gegebene Datum. Der Schlüssel wird nur bei einem Datumswechsel
+     * neu abgeleitet.
+     */
+    byte[] signingKey(final String date) {
+        final SigningKey cached = signingKey.get();
+        if (cached != null && cached.date().equals(date)) {
+            return cached.key();
+        }
+        final byte[] dateKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        final byte[] regionKey = hmac(dateKey, region);
+        final byte[] serviceKey = hmac(regionKey, SERVICE);
+        final byte[] key = hmac(serviceKey, TERMINATOR);
+        signingKey.set(new SigningKey(date, key));
+        return key;
+    }
+
+    private static byte[] hmac(final byte[] key, final String data) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(key, HMAC_SHA256));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String canonicalQuery(final Map<String, String> sortedQuery) {
+        return sortedQuery.entrySet().stream()
+                .map(parameter -> encode(parameter.getKey()) + "=" + encode(parameter.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static String uriEncode(final String value, final boolean encodeSlash) {
+        final StringBuilder encoded = new StringBuilder(value.length() + 16);
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            final char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(HEX.withUpperCase().toHexDigits(b));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private record SigningKey(String date, byte[] key) {
+    }
+}
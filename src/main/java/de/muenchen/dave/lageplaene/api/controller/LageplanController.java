@@ -1,22 +1,58 @@
 package de.muenchen.dave.lageplaene.api.controller;
 
+import de.muenchen.dave.configuration.JacksonConfiguration;
+import de.muenchen.dave.errorhandling.BadRequestException;
 import de.muenchen.dave.errorhandling.ResourceNotFoundException;
 import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.dave.lageplaene.api.dto.LageplanChangesDto;
+import de.muenchen.dave.lageplaene.api.dto.MessstellenDto;
+import de.muenchen.dave.lageplaene.api.dto.S3EventNotificationDto;
+import de.muenchen.dave.lageplaene.api.sse.LageplanUpdateBroadcaster;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangeService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanEventService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanExportService;
 import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanUploadService;
+import de.muenchen.dave.lageplaene.domain.service.MessstelleCatalog;
+import de.muenchen.dave.resilience.WithBulkhead;
+import de.muenchen.dave.resilience.WithRateLimit;
 import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotBlank;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -26,15 +62,47 @@ import org.springframework.web.bind.annotation.RestController;
 @Validated
 public class LageplanController {
 
+    private static final String FILE_PART = "file";
+
+    private static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+    private static final String EXPORT_FILE_NAME = "lageplaene.zip";
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
     private final LageplanService lageplanService;
 
+    private final LageplanUploadService lageplanUploadService;
+
+    private final LageplanChangeService lageplanChangeService;
+
+    private final LageplanUpdateBroadcaster lageplanUpdateBroadcaster;
+
+    private final MessstelleCatalog messstelleCatalog;
+
+    private final LageplanExportService lageplanExportService;
+
+    private final LageplanEventService lageplanEventService;
+
+    private final JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> fileUpload;
+
     @GetMapping
-    @Operation(summary = "Liefert den aktuellsten Lageplan für eine gegebene Messstelle.")
+    @WithRateLimit("lageplan")
+    @WithBulkhead("lageplan")
+    @Operation(
+            summary = "Liefert den aktuellsten Lageplan für eine gegebene Messstelle.",
+            description = "Der erste Lageplan einer Messstelle, der nicht über diesen Service hochgeladen und nicht per S3-Benachrichtigung "
+                    + "gemeldet wurde, wird erst mit der nächsten Auflistung des Änderungsprotokolls gefunden, d.h. nach höchstens "
+                    + "\"changes.scan-interval\" (Standard 5 Minuten). Bis dahin wird 404 geliefert."
+    )
     @ApiResponses(
             value = {
                     @ApiResponse(responseCode = "200", description = "Der Lageplan wurde erfolgreich abgefragt."),
                     @ApiResponse(responseCode = "404", description = "Der angefragte Lageplan wurde nicht gefunden."),
-                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten.")
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet."),
+                    @ApiResponse(responseCode = "504", description = "Der Request konnte nicht innerhalb der Deadline bearbeitet werden.")
             }
     )
     public ResponseEntity<DocumentDto> getLageplan(@RequestParam(value = "mstId") @NotBlank final String mstId)
@@ -45,11 +113,21 @@ public class LageplanController {
     }
 
     @GetMapping("/exists")
-    @Operation(summary = "Existiert für die spezifizierte Messstelle ein Lageplan?")
+    @WithRateLimit("exists")
+    @WithBulkhead("exists")
+    @Operation(
+            summary = "Existiert für die spezifizierte Messstelle ein Lageplan?",
+            description = "Der erste Lageplan einer Messstelle, der nicht über diesen Service hochgeladen und nicht per S3-Benachrichtigung "
+                    + "gemeldet wurde, wird erst mit der nächsten Auflistung des Änderungsprotokolls gefunden, d.h. nach höchstens "
+                    + "\"changes.scan-interval\" (Standard 5 Minuten). Bis dahin wird false geliefert."
+    )
     @ApiResponses(
             value = {
                     @ApiResponse(responseCode = "200", description = "Der Lageplan wurde erfolgreich abgefragt."),
-                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten.")
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet."),
+                    @ApiResponse(responseCode = "504", description = "Der Request konnte nicht innerhalb der Deadline bearbeitet werden.")
             }
     )
     public ResponseEntity<Boolean> lageplanExists(@RequestParam(value = "mstId") @NotBlank final String mstId) throws FileSystemAccessException {
@@ -57,4 +135,188 @@ public class LageplanController {
         final Boolean hasLageplan = lageplanService.lageplanForGivenMessstelleIdExists(mstId);
         return ResponseEntity.ok(hasLageplan);
     }
+
+    @GetMapping("/changes")
+    @WithRateLimit("changes")
+    @WithBulkhead("changes")
+    @Operation(summary = "Liefert die Messstellen, deren neuester Lageplan sich seit dem Zeitpunkt bzw. dem Continuation-Token geändert hat.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Die Änderungen wurden erfolgreich abgefragt."),
+                    @ApiResponse(responseCode = "400", description = "Weder Zeitpunkt noch gültiges Continuation-Token angegeben."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet.")
+            }
+    )
+    public ResponseEntity<LageplanChangesDto> getChanges(
+            @RequestParam(value = "since", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final Instant since,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
+            @RequestParam(value = "limit", defaultValue = "1000") final int limit) throws BadRequestException {
+        log.debug("Abfrage der Änderungen seit {} bzw. {}", since, continuationToken);
+        return ResponseEntity.ok(lageplanChangeService.getChanges(since, continuationToken, limit));
+    }
+
+    @GetMapping(
+            path = "/messstellen",
+            produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE }
+    )
+    @WithRateLimit("messstellen")
+    @WithBulkhead("messstellen")
+    @Operation(summary = "Liefert seitenweise alle Messstellen, für die ein Lageplan existiert.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Die Messstellen wurden erfolgreich abgefragt."),
+                    @ApiResponse(responseCode = "400", description = "Das Continuation-Token ist ungültig."),
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet.")
+            }
+    )
+    public ResponseEntity<MessstellenDto> getMessstellen(
+            @RequestParam(value = "prefix", required = false) final String prefix,
+            @RequestParam(value = "order", defaultValue = "ASC") final MessstelleCatalog.Order order,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
+            @RequestParam(value = "limit", defaultValue = "1000") final int limit) throws FileSystemAccessException, BadRequestException {
+        log.debug("Abfrage der Messstellen mit Präfix {}", prefix);
+        return ResponseEntity.ok(messstelleCatalog.getMessstellen(prefix, order, continuationToken, limit));
+    }
+
+    /**
+     * Kompakte Darstellung für große Seiten: Die Messstellen werden zeilenweise geliefert, das Token
+     * für die nächste Seite im Header "X-Continuation-Token".
+     */
+    @GetMapping(path = "/messstellen", produces = MediaType.TEXT_PLAIN_VALUE)
+    @WithRateLimit("messstellen")
+    @WithBulkhead("messstellen")
+    @Operation(summary = "Liefert seitenweise alle Messstellen, für die ein Lageplan existiert, zeilenweise als Text.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Die Messstellen wurden erfolgreich abgefragt."),
+                    @ApiResponse(responseCode = "400", description = "Das Continuation-Token ist ungültig."),
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet.")
+            }
+    )
+    public ResponseEntity<String> getMessstellenCompact(
+            @RequestParam(value = "prefix", required = false) final String prefix,
+            @RequestParam(value = "order", defaultValue = "ASC") final MessstelleCatalog.Order order,
+            @RequestParam(value = "continuationToken", required = false) final String continuationToken,
+            @RequestParam(value = "limit", defaultValue = "10000") final int limit) throws FileSystemAccessException, BadRequestException {
+        log.debug("Kompakte Abfrage der Messstellen mit Präfix {}", prefix);
+        final MessstellenDto dto = messstelleCatalog.getMessstellen(prefix, order, continuationToken, limit);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (dto.getContinuationToken() != null) {
+            response.header(CONTINUATION_TOKEN_HEADER, dto.getContinuationToken());
+        }
+        return response.body(String.join("\n", dto.getMstIds()));
+    }
+
+    /**
+     * Das ZIP-Archiv enthält je Messstelle den neuesten Lageplan unter "mstId/Dateiname". Messstellen
+     * ohne Lageplan werden in "fehlende-lageplaene.txt" aufgeführt. Das Archiv wird während des
+     * Abrufs aus dem S3 geschrieben.
+     */
+    @GetMapping(path = "/export", produces = "application/zip")
+    @WithRateLimit("export")
+    @Operation(summary = "Exportiert die neuesten Lagepläne der gegebenen Messstellen bzw. aller Messstellen mit dem Präfix als ZIP-Archiv.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Das Archiv wird übertragen."),
+                    @ApiResponse(responseCode = "400", description = "Weder Messstellen noch Präfix oder zu viele Messstellen angegeben."),
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Die maximale Anzahl gleichzeitiger Exporte ist erreicht.")
+            }
+    )
+    public ResponseEntity<StreamingResponseBody> exportLageplaene(
+            @RequestParam(value = "mstIds", required = false) final Set<String> mstIds,
+            @RequestParam(value = "prefix", required = false) final String prefix,
+            final HttpServletRequest request) throws BadRequestException, FileSystemAccessException {
+        log.info("Export der Lagepläne für Messstellen {} bzw. Präfix {}", mstIds, prefix);
+        final LageplanExportService.LageplanExport export = lageplanExportService.startExport(mstIds, prefix);
+        // Gibt den Export-Platz auch frei, falls das Archiv z.B. nach einem Timeout nie geschrieben wird.
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(export, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(final NativeWebRequest webRequest, final Callable<T> task) {
+                export.release();
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(EXPORT_FILE_NAME).build().toString())
+                .body(export::writeTo);
+    }
+
+    /**
+     * Sobald für eine der Messstellen ein neuer Lageplan erkannt wird, wird das Event "lageplan" mit
+     * dem {@link DocumentDto} gesendet. Existiert kein Lageplan mehr, wird das Event
+     * "lageplan-removed" mit der Messstelle gesendet.
+     */
+    @GetMapping(path = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Abonniert neue Lagepläne für die gegebenen Messstellen per Server-Sent Events.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "200", description = "Das Abonnement wurde erfolgreich eingerichtet."),
+                    @ApiResponse(responseCode = "400", description = "Keine oder zu viele Messstellen angegeben."),
+                    @ApiResponse(responseCode = "503", description = "Die maximale Anzahl an Abonnenten ist erreicht.")
+            }
+    )
+    public SseEmitter subscribe(@RequestParam(value = "mstIds") final Set<String> mstIds) throws BadRequestException {
+        log.debug("Abonnement für Messstellen: {}", mstIds);
+        return lageplanUpdateBroadcaster.subscribe(mstIds);
+    }
+
+    /**
+     * Der Multipart-Request wird als Stream verarbeitet. Die Datei im Feld "file" wird dabei ohne
+     * Zwischenspeicherung direkt in den S3 geschrieben.
+     */
+    @PostMapping(path = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @WithRateLimit("upload")
+    @WithBulkhead("upload")
+    @Operation(summary = "Lädt einen neuen Lageplan für eine gegebene Messstelle hoch.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "201", description = "Der Lageplan wurde erfolgreich hochgeladen."),
+                    @ApiResponse(responseCode = "400", description = "Der Request enthält keine gültige Datei."),
+                    @ApiResponse(responseCode = "413", description = "Der Request, die Datei oder ein Header überschreitet die zulässige Größe."),
+                    @ApiResponse(responseCode = "500", description = "Bei der Bearbeitung des Requests ist ein Fehler aufgetreten."),
+                    @ApiResponse(responseCode = "429", description = "Der Benutzer hat zu viele Requests gestellt."),
+                    @ApiResponse(responseCode = "503", description = "Der Service ist aktuell überlastet.")
+            }
+    )
+    public ResponseEntity<DocumentDto> uploadLageplan(@RequestParam(value = "mstId") @NotBlank final String mstId, final HttpServletRequest request)
+            throws FileSystemAccessException, BadRequestException, IOException {
+        log.info("Upload eines Lageplans: {}", mstId);
+        final FileItemInputIterator items = fileUpload.getItemIterator(request);
+        while (items.hasNext()) {
+            final FileItemInput item = items.next();
+            if (!item.isFormField() && FILE_PART.equals(item.getFieldName())) {
+                try (InputStream inputStream = item.getInputStream()) {
+                    final DocumentDto dto = lageplanUploadService.uploadLageplan(mstId, item.getName(), item.getContentType(), inputStream);
+                    return ResponseEntity.status(HttpStatus.CREATED).body(dto);
+                }
+            }
+        }
+        throw new BadRequestException("Keine Datei im Feld " + FILE_PART);
+    }
+
+    /**
+     * Empfängt Benachrichtigungen des S3 über neue oder entfernte Objekte. Der Endpunkt ist über ein
+     * eigenes Token statt über OAuth2 abgesichert, siehe SecurityConfiguration.
+     */
+    @PostMapping(path = "/events", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Übernimmt Benachrichtigungen des S3 über neue oder entfernte Lagepläne.")
+    @ApiResponses(
+            value = {
+                    @ApiResponse(responseCode = "202", description = "Die Events wurden zur Verarbeitung übernommen."),
+                    @ApiResponse(responseCode = "400", description = "Die Benachrichtigung enthält zu viele Events."),
+                    @ApiResponse(responseCode = "401", description = "Das Token fehlt oder ist ungültig.")
+            }
+    )
+    public ResponseEntity<Void> receiveEvents(@RequestBody final S3EventNotificationDto notification) throws BadRequestException {
+        final int accepted = lageplanEventService.accept(notification);
+        log.debug("Benachrichtigung des S3 empfangen: {} Events übernommen", accepted);
+        return ResponseEntity.accepted().build();
+    }
 }
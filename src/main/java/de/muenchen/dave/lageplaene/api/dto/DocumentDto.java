@@ -1,5 +1,6 @@
 package de.muenchen.dave.lageplaene.api.dto;
 
+import java.time.Instant;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -8,4 +9,20 @@ import lombok.Data;
 public class DocumentDto {
 
     private String url;
+
+    private String fileName;
+
+    private String contentType;
+
+    /**
+     * Größe der Datei in Bytes.
+     */
+    private Long size;
+
+    private Instant lastModified;
+
+    /**
+     * Zeitpunkt, bis zu dem die URL mindestens gültig ist.
+     */
+    private Instant expiresAt;
 }
@@ -0,0 +1,26 @@
+package de.muenchen.dave.lageplaene.api.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LageplanChangesDto {
+
+    /**
+     * Die Messstellen, deren neuester Lageplan sich geändert hat, in der Reihenfolge der Erkennung.
+     */
+    private List<String> mstIds;
+
+    /**
+     * Das Token für die nächste Abfrage. Es wird auch nach der letzten Seite geliefert und bei der
+     * nächsten Abfrage anstelle des Zeitpunkts übergeben.
+     */
+    private String continuationToken;
+
+    /**
+     * true falls weitere Änderungen sofort abgefragt werden können.
+     */
+    private boolean hasMore;
+}
@@ -0,0 +1,20 @@
+package de.muenchen.dave.lageplaene.api.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MessstellenDto {
+
+    /**
+     * Die Messstellen mit Lageplan in der angefragten Reihenfolge.
+     */
+    private List<String> mstIds;
+
+    /**
+     * Das Token für die nächste Seite oder null, falls keine weiteren Messstellen folgen.
+     */
+    private String continuationToken;
+}
@@ -0,0 +1,71 @@
+package de.muenchen.dave.lageplaene.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.Instant;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Benachrichtigung des S3 über neue oder entfernte Objekte im Format der S3 Event Notifications.
+ * Nicht benötigte Attribute werden ignoriert.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class S3EventNotificationDto {
+
+    @JsonProperty("Records")
+    private List<EventRecord> records;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EventRecord {
+
+        /**
+         * Z.B. "ObjectCreated:Put" bzw. "s3:ObjectCreated:Put" oder "ObjectRemoved:Delete".
+         */
+        private String eventName;
+
+        private Instant eventTime;
+
+        private S3Entity s3;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class S3Entity {
+
+        @JsonProperty("object")
+        private S3Object object;
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class S3Object {
+
+        /**
+         * Der URL-kodierte Pfad des Objekts.
+         */
+        private String key;
+
+        private Long size;
+
+        @JsonProperty("eTag")
+        private String eTag;
+
+        /**
+         * Hexadezimaler Wert zur Ordnung mehrerer Events zum selben Objekt.
+         */
+        private String sequencer;
+    }
+}
@@ -0,0 +1,58 @@
+package de.muenchen.dave.lageplaene.api.grpc;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Weist gRPC-Aufrufe ohne gültiges JWT im Header "authorization" mit UNAUTHENTICATED ab. Das JWT
+ * wird mit demselben {@link JwtDecoder} geprüft wie bei der REST-Schnittstelle und für die
+ * Begrenzung je Benutzer unter {@link #JWT} im {@link Context} des Aufrufs abgelegt.
+ */
+@Slf4j
+class JwtServerInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> AUTHORIZATION = Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    static final Context.Key<Jwt> JWT = Context.key("jwt");
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtDecoder jwtDecoder;
+
+    JwtServerInterceptor(final JwtDecoder jwtDecoder) {
+        this.jwtDecoder = jwtDecoder;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final String authorization = headers.get(AUTHORIZATION);
+        if (!StringUtils.startsWithIgnoreCase(authorization, BEARER_PREFIX)) {
+            return reject(call, "Kein Bearer-Token angegeben");
+        }
+        final Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(authorization.substring(BEARER_PREFIX.length()).strip());
+        } catch (JwtException exception) {
+            log.debug("Ungültiges JWT bei gRPC-Aufruf {}", call.getMethodDescriptor().getFullMethodName(), exception);
+            return reject(call, "Ungültiges Bearer-Token");
+        }
+        return Contexts.interceptCall(Context.current().withValue(JWT, jwt), call, headers, next);
+    }
+
+    private static <ReqT, RespT> ServerCall.Listener<ReqT> reject(final ServerCall<ReqT, RespT> call, final String description) {
+        call.close(Status.UNAUTHENTICATED.withDescription(description), new Metadata());
+        return new ServerCall.Listener<>() {
+        };
+    }
+}
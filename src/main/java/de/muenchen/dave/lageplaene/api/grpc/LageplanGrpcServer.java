@@ -0,0 +1,102 @@
+package de.muenchen.dave.lageplaene.api.grpc;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startet den optionalen gRPC-Server mit dem {@link LageplanGrpcService} auf einem eigenen Port.
+ * <p>
+ * Der Server spricht HTTP/2 ohne TLS, die Verschlüsselung erfolgt wie bei der REST-Schnittstelle
+ * durch die Plattform. Ist ein {@link JwtDecoder} konfiguriert, d.h. außerhalb des Profils
+ * "no-security", wird wie bei der REST-Schnittstelle ein gültiges JWT im Header "authorization"
+ * erwartet. Jeder Aufruf wird in einem eigenen virtuellen Thread bearbeitet.
+ */
+@Component
+@Slf4j
+public class LageplanGrpcServer {
+
+    private final LageplanGrpcService lageplanGrpcService;
+
+    private final JwtDecoder jwtDecoder;
+
+    private final boolean enabled;
+
+    private final int port;
+
+    private final Duration shutdownTimeout;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile Server server;
+
+    public LageplanGrpcServer(
+            final LageplanGrpcService lageplanGrpcService,
+            final ObjectProvider<JwtDecoder> jwtDecoder,
+            @Value("${de.muenchen.dave.document-storage.grpc.enabled:false}") final boolean enabled,
+            @Value("${de.muenchen.dave.document-storage.grpc.port:9090}") final int port,
+            @Value("${de.muenchen.dave.document-storage.grpc.shutdown-timeout:PT10S}") final Duration shutdownTimeout) {
+        this.lageplanGrpcService = lageplanGrpcService;
+        this.jwtDecoder = jwtDecoder.getIfAvailable();
+        this.enabled = enabled;
+        this.port = port;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * @throws IOException falls der Port nicht geöffnet werden kann.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        server = Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create())
+                .executor(executor)
+                .addService(getServiceDefinition())
+                .build()
+                .start();
+        log.info("gRPC-Server gestartet auf Port {}{}", server.getPort(), jwtDecoder == null ? " ohne Authentifizierung" : "");
+    }
+
+    ServerServiceDefinition getServiceDefinition() {
+        return jwtDecoder == null
+                ? lageplanGrpcService.bindService()
+                : ServerInterceptors.intercept(lageplanGrpcService, new JwtServerInterceptor(jwtDecoder));
+    }
+
+    /**
+     * Laufende Aufrufe werden bis zum konfigurierten Timeout abgeschlossen, neue Aufrufe abgewiesen.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        final Server running = server;
+        if (running != null) {
+            running.shutdown();
+            if (!running.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Laufende gRPC-Aufrufe beim Herunterfahren abgebrochen");
+                running.shutdownNow();
+            }
+        }
+        executor.shutdown();
+    }
+
+    int getPort() {
+        return server == null ? -1 : server.getPort();
+    }
+}
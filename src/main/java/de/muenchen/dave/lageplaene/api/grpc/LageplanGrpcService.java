@@ -0,0 +1,246 @@
+package de.muenchen.dave.lageplaene.api.grpc;
+
+import com.google.protobuf.Timestamp;
+import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.dave.lageplaene.api.grpc.proto.ExistsResponse;
+import de.muenchen.dave.lageplaene.api.grpc.proto.Lageplan;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanLookupGrpc;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanRequest;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanResult;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.resilience.Bulkhead;
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.dave.resilience.BulkheadRegistry;
+import de.muenchen.dave.resilience.Deadline;
+import de.muenchen.dave.resilience.DeadlineExceededException;
+import de.muenchen.dave.resilience.RateLimitAspect;
+import de.muenchen.dave.resilience.RateLimitExceededException;
+import de.muenchen.dave.resilience.RateLimiter;
+import de.muenchen.dave.resilience.RateLimiterRegistry;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC-Schnittstelle zur Abfrage der Lagepläne für interne Services.
+ * <p>
+ * Die Abfragen entsprechen denen des LageplanController und teilen sich mit diesen die Bulkheads
+ * und Rate-Limiter "lageplan" und "exists". Die Begrenzung je Benutzer erfolgt über das JWT, das der
+ * {@link JwtServerInterceptor} im {@link Context} ablegt. Die {@link Deadline} ergibt sich aus der Deadline des gRPC-Aufrufs,
+ * begrenzt durch {@code max-timeout}. Ohne Deadline des Aufrufs gilt {@code default-timeout}, beim
+ * Stream {@link #batchGetNewest(StreamObserver)} je angefragter Messstelle.
+ */
+@Component
+@Slf4j
+public class LageplanGrpcService extends LageplanLookupGrpc.LageplanLookupImplBase {
+
+    private static final String BULKHEAD_LAGEPLAN = "lageplan";
+
+    private static final String BULKHEAD_EXISTS = "exists";
+
+    private final LageplanService lageplanService;
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+
+    private final Duration defaultTimeout;
+
+    private final Duration maxTimeout;
+
+    public LageplanGrpcService(
+            final LageplanService lageplanService,
+            final BulkheadRegistry bulkheadRegistry,
+            final RateLimiterRegistry rateLimiterRegistry,
+            @Value("${de.muenchen.dave.document-storage.deadline.default-timeout:PT10S}") final Duration defaultTimeout,
+            @Value("${de.muenchen.dave.document-storage.deadline.max-timeout:PT30S}") final Duration maxTimeout) {
+        this.lageplanService = lageplanService;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.rateLimiterRegistry = rateLimiterRegistry;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    public void getNewest(final LageplanRequest request, final StreamObserver<Lageplan> responseObserver) {
+        log.info("Abfrage des aktuellsten Lageplans über gRPC: {}", request.getMstId());
+        try {
+            responseObserver.onNext(getNewest(request.getMstId()));
+            responseObserver.onCompleted();
+        } catch (Exception exception) {
+            responseObserver.onError(toStatus(exception).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void exists(final LageplanRequest request, final StreamObserver<ExistsResponse> responseObserver) {
+        log.debug("Abfrage auf Lageplan über gRPC: {}", request.getMstId());
+        try {
+            final String mstId = validate(request.getMstId());
+            final boolean exists = withinBulkhead(BULKHEAD_EXISTS, () -> lageplanService.lageplanForGivenMessstelleIdExists(mstId));
+            responseObserver.onNext(ExistsResponse.newBuilder().setExists(exists).build());
+            responseObserver.onCompleted();
+        } catch (Exception exception) {
+            responseObserver.onError(toStatus(exception).asRuntimeException());
+        }
+    }
+
+    /**
+     * Die Anfragen eines Streams werden nacheinander bearbeitet. Für parallele Abfragen öffnet der
+     * Client mehrere Streams, die über dieselbe Verbindung übertragen werden.
+     */
+    @Override
+    public StreamObserver<LageplanRequest> batchGetNewest(final StreamObserver<LageplanResult> responseObserver) {
+        // Ergebnisse nach einem Abbruch durch den Client werden verworfen.
+        ((ServerCallStreamObserver<LageplanResult>) responseObserver).setOnCancelHandler(() -> log.debug("gRPC-Stream durch den Client abgebrochen"));
+        return new StreamObserver<>() {
+
+            @Override
+            public void onNext(final LageplanRequest request) {
+                log.debug("Abfrage des aktuellsten Lageplans über gRPC-Stream: {}", request.getMstId());
+                final LageplanResult.Builder result = LageplanResult.newBuilder().setMstId(request.getMstId());
+                try {
+                    result.setLageplan(getNewest(request.getMstId()));
+                } catch (ResourceNotFoundException exception) {
+                    result.setNotFound(true);
+                } catch (Exception exception) {
+                    result.setError(StringUtils.defaultString(toStatus(exception).getDescription()));
+                }
+                responseObserver.onNext(result.build());
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                log.debug("gRPC-Stream durch den Client abgebrochen: {}", Status.fromThrowable(throwable));
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    private Lageplan getNewest(final String mstId) throws Exception {
+        final String validMstId = validate(mstId);
+        final DocumentDto document = withinBulkhead(BULKHEAD_LAGEPLAN, () -> lageplanService.getNewestLageplanForGivenMessstelleId(validMstId));
+        return toLageplan(document);
+    }
+
+    private static String validate(final String mstId) {
+        if (StringUtils.isBlank(mstId)) {
+            throw Status.INVALID_ARGUMENT.withDescription("Keine Messstelle angegeben").asRuntimeException();
+        }
+        return mstId;
+    }
+
+    /**
+     * Führt die Abfrage innerhalb des Bulkheads und mit der Deadline des Aufrufs aus. Wie beim
+     * RateLimitAspect wird die Rate vor dem Bulkhead geprüft, so dass abgewiesene Aufrufe keinen Platz
+     * belegen.
+     */
+    private <T> T withinBulkhead(final String bulkheadName, final Callable<T> lookup) throws Exception {
+        checkRateLimit(bulkheadName);
+        Deadline.start(getTimeout());
+        try {
+            final Bulkhead bulkhead = bulkheadRegistry.get(bulkheadName);
+            if (!bulkhead.tryAcquire(Deadline.remaining().orElseThrow())) {
+                log.warn("Aufruf über gRPC wegen Überlast abgewiesen: {}", bulkheadName);
+                throw new BulkheadFullException(bulkheadName, bulkheadRegistry.getRetryAfter(bulkheadName));
+            }
+            try {
+                return lookup.call();
+            } finally {
+                bulkhead.release();
+            }
+        } finally {
+            Deadline.clear();
+        }
+    }
+
+    /**
+     * @throws RateLimitExceededException falls der Benutzer des Aufrufs die Rate überschritten hat.
+     */
+    private void checkRateLimit(final String rateLimiterName) {
+        final String client = rateLimiterRegistry.isEnabled() ? RateLimitAspect.getClient(JwtServerInterceptor.JWT.get()) : null;
+        if (client == null) {
+            return;
+        }
+        final RateLimiter rateLimiter = rateLimiterRegistry.get(rateLimiterName);
+        final Duration retryAfter = rateLimiter.tryAcquire(client);
+        if (!retryAfter.isZero()) {
+            log.debug("Aufruf über gRPC von {} wegen Überschreitung der Rate abgewiesen: {}", client, rateLimiterName);
+            throw new RateLimitExceededException(rateLimiterName, retryAfter);
+        }
+    }
+
+    /**
+     * @throws DeadlineExceededException falls die Deadline des Aufrufs bereits abgelaufen ist.
+     */
+    private Duration getTimeout() {
+        final io.grpc.Deadline callDeadline = Context.current().getDeadline();
+        if (callDeadline == null) {
+            return defaultTimeout;
+        }
+        if (callDeadline.isExpired()) {
+            throw new DeadlineExceededException("gRPC-Aufruf");
+        }
+        final Duration timeout = Duration.ofMillis(callDeadline.timeRemaining(TimeUnit.MILLISECONDS));
+        return timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+    }
+
+    /**
+     * Entspricht der Abbildung der Exceptions auf HTTP-Status im RestExceptionHandler. Fehler beim
+     * Zugriff auf das S3 werden als UNAVAILABLE gemeldet, damit der Client den Aufruf wiederholen
+     * kann.
+     */
+    static Status toStatus(final Exception exception) {
+        return switch (exception) {
+        case ResourceNotFoundException notFound -> Status.NOT_FOUND.withDescription(notFound.getMessage());
+        case BulkheadFullException bulkheadFull -> Status.RESOURCE_EXHAUSTED
+                .withDescription(bulkheadFull.getMessage() + ", erneuter Versuch in " + bulkheadFull.getRetryAfter().toMillis() + " ms");
+        case RateLimitExceededException rateLimitExceeded -> Status.RESOURCE_EXHAUSTED
+                .withDescription(rateLimitExceeded.getMessage() + ", erneuter Versuch in " + rateLimitExceeded.getRetryAfter().toMillis() + " ms");
+        case DeadlineExceededException deadlineExceeded -> Status.DEADLINE_EXCEEDED.withDescription(deadlineExceeded.getMessage());
+        case FileSystemAccessException fileSystemAccess -> Status.UNAVAILABLE.withDescription(fileSystemAccess.getMessage());
+        case StatusRuntimeException statusRuntime -> statusRuntime.getStatus();
+        default -> {
+            log.error("Fehler bei der Abfrage über gRPC", exception);
+            yield Status.INTERNAL.withDescription("Bei der Bearbeitung des Aufrufs ist ein Fehler aufgetreten");
+        }
+        };
+    }
+
+    static Lageplan toLageplan(final DocumentDto document) {
+        final Lageplan.Builder lageplan = Lageplan.newBuilder()
+                .setUrl(StringUtils.defaultString(document.getUrl()))
+                .setFileName(StringUtils.defaultString(document.getFileName()))
+                .setContentType(StringUtils.defaultString(document.getContentType()));
+        if (document.getSize() != null) {
+            lageplan.setSize(document.getSize());
+        }
+        if (document.getLastModified() != null) {
+            lageplan.setLastModified(toTimestamp(document.getLastModified()));
+        }
+        if (document.getExpiresAt() != null) {
+            lageplan.setExpiresAt(toTimestamp(document.getExpiresAt()));
+        }
+        return lageplan.build();
+    }
+
+    private static Timestamp toTimestamp(final Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+}
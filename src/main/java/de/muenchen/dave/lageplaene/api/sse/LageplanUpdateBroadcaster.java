@@ -0,0 +1,243 @@
+package de.muenchen.dave.lageplaene.api.sse;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangedEvent;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Verteilt neue Lagepläne per Server-Sent Events an alle Clients, die die betroffene Messstelle
+ * abonniert haben.
+ * <p>
+ * Änderungen werden über das {@link LageplanChangedEvent} erkannt. Je Änderung wird das Event nur
+ * einmal erstellt und anschließend an alle Abonnenten verteilt. Jeder Abonnent hat einen eigenen
+ * Puffer, in dem je Messstelle nur das letzte Event gehalten wird. Der Puffer ist damit durch die
+ * Anzahl der abonnierten Messstellen begrenzt, und ein langsamer Client hält keine anderen auf. Ein
+ * Heartbeat erkennt abgebrochene Verbindungen.
+ */
+@Component
+@Slf4j
+public class LageplanUpdateBroadcaster {
+
+    static final String EVENT_LAGEPLAN = "lageplan";
+
+    static final String EVENT_LAGEPLAN_REMOVED = "lageplan-removed";
+
+    private static final String HEARTBEAT_KEY = "";
+
+    private final LageplanService lageplanService;
+
+    private final Duration emitterTimeout;
+
+    private final Semaphore subscriberSlots;
+
+    private final int maxMstIdsPerSubscription;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Set<Subscriber>> subscribersByMstId = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LageplanUpdateBroadcaster(
+            final LageplanService lageplanService,
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.subscriptions.timeout:PT30M}") final Duration emitterTimeout,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.subscriptions.max-subscribers:1000}") final int maxSubscribers,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.subscriptions.max-mst-ids:500}") final int maxMstIdsPerSubscription) {
+        this.lageplanService = lageplanService;
+        this.emitterTimeout = emitterTimeout;
+        this.subscriberSlots = new Semaphore(maxSubscribers);
+        this.maxMstIdsPerSubscription = maxMstIdsPerSubscription;
+        Gauge.builder("dave.lageplaene.subscribers", subscribers, Collection::size)
+                .description("Anzahl der per Server-Sent Events verbundenen Clients")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registriert einen neuen Abonnenten.
+     *
+     * @param mstIds die abonnierten Messstellen.
+     * @return der Emitter der Verbindung.
+     * @throws BadRequestException falls keine oder zu viele Messstellen angegeben sind.
+     * @throws BulkheadFullException falls die maximale Anzahl an Abonnenten erreicht ist.
+     */
+    public SseEmitter subscribe(final Set<String> mstIds) throws BadRequestException {
+        if (mstIds.isEmpty() || mstIds.size() > maxMstIdsPerSubscription) {
+            throw new BadRequestException("Zwischen 1 und " + maxMstIdsPerSubscription + " Messstellen erforderlich");
+        }
+        final Set<String> subscribedMstIds = Set.copyOf(mstIds);
+        // Der Platz wird vor dem Anlegen reserviert und beim Abmelden freigegeben, damit gleichzeitige
+        // Anmeldungen das Limit nicht überschreiten.
+        if (!subscriberSlots.tryAcquire()) {
+            throw new BulkheadFullException("subscriptions", emitterTimeout.dividedBy(10));
+        }
+        final SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        final Subscriber subscriber = new Subscriber(emitter, subscribedMstIds);
+        subscribers.add(subscriber);
+        subscriber.mstIds().forEach(mstId -> subscribersByMstId.computeIfAbsent(mstId, key -> ConcurrentHashMap.newKeySet()).add(subscriber));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(exception -> unsubscribe(subscriber));
+        log.debug("Neuer Abonnent für {} Messstellen, {} Abonnenten insgesamt", mstIds.size(), subscribers.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onLageplanChanged(final LageplanChangedEvent event) {
+        final Set<Subscriber> interested = subscribersByMstId.get(event.mstId());
+        if (interested == null || interested.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> fanOut(event));
+    }
+
+    @Scheduled(fixedDelayString = "${de.muenchen.dave.document-storage.lageplaene.subscriptions.heartbeat-interval:PT30S}")
+    public void sendHeartbeat() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        final Set<ResponseBodyEmitter.DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+        subscribers.forEach(subscriber -> enqueue(subscriber, HEARTBEAT_KEY, heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        executor.shutdownNow();
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    void fanOut(final LageplanChangedEvent event) {
+        final Set<ResponseBodyEmitter.DataWithMediaType> data;
+        try {
+            data = buildEvent(event);
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Event für Messstelle {} konnte nicht erstellt werden", event.mstId(), exception);
+            return;
+        }
+        subscribersByMstId.getOrDefault(event.mstId(), Set.of()).forEach(subscriber -> enqueue(subscriber, event.mstId(), data));
+    }
+
+    Set<ResponseBodyEmitter.DataWithMediaType> buildEvent(final LageplanChangedEvent event) throws FileSystemAccessException {
+        if (!event.removed()) {
+            try {
+                final DocumentDto dto = event.newest() != null
+                        ? lageplanService.toDocumentDto(event.newest())
+                        : lageplanService.getNewestLageplanForGivenMessstelleId(event.mstId());
+                return SseEmitter.event().name(EVENT_LAGEPLAN).id(event.mstId()).data(dto, MediaType.APPLICATION_JSON).build();
+            } catch (ResourceNotFoundException exception) {
+                log.debug("Lageplan für Messstelle {} nicht mehr vorhanden", event.mstId());
+            }
+        }
+        return SseEmitter.event().name(EVENT_LAGEPLAN_REMOVED).id(event.mstId()).data(event.mstId()).build();
+    }
+
+    private void enqueue(final Subscriber subscriber, final String key, final Set<ResponseBodyEmitter.DataWithMediaType> data) {
+        if (subscriber.offer(key, data)) {
+            executor.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(final Subscriber subscriber) {
+        Set<ResponseBodyEmitter.DataWithMediaType> data;
+        while ((data = subscriber.poll()) != null) {
+            try {
+                subscriber.emitter().send(data);
+            } catch (IOException | IllegalStateException exception) {
+                log.debug("Verbindung zum Abonnenten abgebrochen", exception);
+                subscriber.emitter().completeWithError(exception);
+                unsubscribe(subscriber);
+                return;
+            }
+        }
+    }
+
+    private void unsubscribe(final Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberSlots.release();
+            subscriber.mstIds().forEach(mstId -> subscribersByMstId.computeIfPresent(mstId, (key, interested) -> {
+                interested.remove(subscriber);
+                return interested.isEmpty() ? null : interested;
+            }));
+        }
+    }
+
+    /**
+     * Ein Abonnent mit seinem Puffer. Je Messstelle wird nur das letzte Event gepuffert.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final Set<String> mstIds;
+
+        private final LinkedHashMap<String, Set<ResponseBodyEmitter.DataWithMediaType>> pending = new LinkedHashMap<>();
+
+        private boolean draining;
+
+        private Subscriber(final SseEmitter emitter, final Set<String> mstIds) {
+            this.emitter = emitter;
+            this.mstIds = mstIds;
+        }
+
+        SseEmitter emitter() {
+            return emitter;
+        }
+
+        Set<String> mstIds() {
+            return mstIds;
+        }
+
+        /**
+         * @return true falls der Puffer nun abgearbeitet werden muss.
+         */
+        synchronized boolean offer(final String key, final Set<ResponseBodyEmitter.DataWithMediaType> data) {
+            pending.remove(key);
+            pending.put(key, data);
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        synchronized Set<ResponseBodyEmitter.DataWithMediaType> poll() {
+            final var iterator = pending.values().iterator();
+            if (!iterator.hasNext()) {
+                draining = false;
+                return null;
+            }
+            final Set<ResponseBodyEmitter.DataWithMediaType> data = iterator.next();
+            iterator.remove();
+            return data;
+        }
+    }
+}
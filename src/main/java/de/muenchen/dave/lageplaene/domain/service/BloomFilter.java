@@ -0,0 +1,95 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom-Filter für Zeichenketten mit fester Größe. Ein negatives Ergebnis ist sicher, ein positives
+ * Ergebnis ist mit der beim Erzeugen angegebenen Falsch-Positiv-Rate falsch.
+ * <p>
+ * Hinzufügen und Abfragen sind ohne Sperren threadsicher.
+ */
+class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private static final long SECOND_HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions die erwartete Anzahl an Einträgen.
+     * @param falsePositiveRate die Falsch-Positiv-Rate bei der erwarteten Anzahl an Einträgen.
+     */
+    BloomFilter(final int expectedInsertions, final double falsePositiveRate) {
+        final int insertions = Math.max(expectedInsertions, 1);
+        final long optimalBitCount = (long) Math.ceil(-insertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bits = new AtomicLongArray(Math.toIntExact(Math.max((optimalBitCount + Long.SIZE - 1) / Long.SIZE, 1)));
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        this.hashCount = Math.max((int) Math.round((double) bitCount / insertions * LN2), 1);
+    }
+
+    void put(final String value) {
+        final long hash1 = hash(value);
+        final long hash2 = mix(hash1 ^ SECOND_HASH_SEED);
+        for (int i = 0; i < hashCount; i++) {
+            final long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            final long mask = 1L << index;
+            final int word = (int) (index >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * @param value der Wert.
+     * @return false falls der Wert sicher nicht enthalten ist.
+     */
+    boolean mightContain(final String value) {
+        final long hash1 = hash(value);
+        final long hash2 = mix(hash1 ^ SECOND_HASH_SEED);
+        for (int i = 0; i < hashCount; i++) {
+            final long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return der Speicherbedarf der Bits in Bytes.
+     */
+    long getSizeInBytes() {
+        return bitCount / Byte.SIZE;
+    }
+
+    int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * FNV-1a über die UTF-8-Bytes mit anschließender Durchmischung aller Bits.
+     */
+    private static long hash(final String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(final long value) {
+        long mixed = value;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
+    }
+}
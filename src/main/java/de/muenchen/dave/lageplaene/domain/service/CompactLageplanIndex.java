@@ -0,0 +1,468 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Speichert je Lageplan-Folder den neuesten Lageplan ohne ein Objekt je Eintrag.
+ * <p>
+ * Zeitpunkte, Größe und Zustand liegen in parallelen primitiven Arrays, die über den Index des
+ * Eintrags adressiert werden. Die Zeichenketten eines Eintrags (Folder, Pfad des Lageplans relativ
+ * zum Folder und ETag) werden hintereinander als UTF-8 in einen Speicherbereich außerhalb des Heaps
+ * geschrieben. Die Folder werden über eine Hashtabelle mit offener Adressierung auf den Index des
+ * Eintrags abgebildet. Je Eintrag fallen damit auf dem Heap unabhängig von der Länge der
+ * Zeichenketten nur {@value #HEAP_BYTES_PER_ENTRY} Bytes zuzüglich der Hashtabelle an.
+ * <p>
+ * Lesende Zugriffe laufen parallel, schreibende Zugriffe exklusiv.
+ */
+final class CompactLageplanIndex {
+
+    /**
+     * Offset der Zeichenketten, Hash, Zeitpunkte, Größe und Zustand.
+     */
+    static final int HEAP_BYTES_PER_ENTRY = Integer.BYTES * 2 + Long.BYTES * 3 + 1;
+
+    private static final int FREE_SLOT = -1;
+    private static final int DELETED_SLOT = -2;
+
+    private static final byte PRESENT = 1;
+    private static final byte STALE = 1 << 1;
+    private static final byte HAS_LAST_MODIFIED = 1 << 2;
+    private static final byte HAS_ETAG = 1 << 3;
+    private static final byte RELATIVE_PATH = 1 << 4;
+    private static final byte LIVE = 1 << 5;
+
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_POOL_CAPACITY = 4096;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+    private int usedSlots;
+
+    private int[] stringOffsets = new int[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private long[] lastModifiedNanos = new long[INITIAL_CAPACITY];
+    private long[] fileSizes = new long[INITIAL_CAPACITY];
+    private long[] fetchedAtNanos = new long[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+
+    private int highWaterMark;
+    private int size;
+    private int[] freeEntries = new int[INITIAL_CAPACITY];
+    private int freeEntryCount;
+
+    private ByteBuffer pool = ByteBuffer.allocateDirect(INITIAL_POOL_CAPACITY);
+    private int poolPosition;
+    private int poolGarbage;
+
+    /**
+     * Speichert einen Eintrag bzw. überschreibt den bestehenden Eintrag des Folders.
+     *
+     * @param folder der Folder.
+     * @param newest der neueste Lageplan oder null, falls im Folder kein Lageplan existiert.
+     * @param fetchedAt der Zeitpunkt der Abfrage im S3.
+     * @param maxEntries die maximale Anzahl an Einträgen.
+     * @return false falls der Eintrag neu ist und die maximale Anzahl bereits erreicht ist oder eine
+     *         der Zeichenketten zu lang ist.
+     */
+    boolean put(final String folder, final FileMetadata newest, final Instant fetchedAt, final int maxEntries) {
+        return put(folder, newest, fetchedAt, maxEntries, false);
+    }
+
+    /**
+     * Speichert einen Eintrag wie {@link #put(String, FileMetadata, Instant, int)}. Ist
+     * {@code onlyIfNotOlder} gesetzt, bleibt ein bestehender Eintrag erhalten, dessen neuester
+     * Lageplan später geändert bzw. dessen leerer Folder später abgefragt wurde als der übergebene
+     * Lageplan.
+     *
+     * @param folder der Folder.
+     * @param newest der neueste Lageplan oder null, falls im Folder kein Lageplan existiert.
+     * @param fetchedAt der Zeitpunkt der Abfrage im S3.
+     * @param maxEntries die maximale Anzahl an Einträgen.
+     * @param onlyIfNotOlder true falls ein neuerer bestehender Eintrag nicht überschrieben werden soll.
+     * @return false falls der Eintrag neu ist und die maximale Anzahl bereits erreicht ist oder eine
+     *         der Zeichenketten zu lang ist.
+     */
+    boolean put(final String folder, final FileMetadata newest, final Instant fetchedAt, final int maxEntries, final boolean onlyIfNotOlder) {
+        final byte[] key = folder.getBytes(StandardCharsets.UTF_8);
+        final byte[] path = newest == null ? new byte[0]
+                : (newest.pathToFile().startsWith(folder) ? newest.pathToFile().substring(folder.length()) : newest.pathToFile())
+                        .getBytes(StandardCharsets.UTF_8);
+        final byte[] etag = newest == null || newest.etag() == null ? new byte[0] : newest.etag().getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_STRING_LENGTH || path.length > MAX_STRING_LENGTH || etag.length > MAX_STRING_LENGTH) {
+            return false;
+        }
+        final int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            final int slot = findSlot(key, hash);
+            int entry = slots[slot];
+            if (entry < 0) {
+                if (size >= maxEntries) {
+                    return false;
+                }
+                entry = allocateEntry();
+                hashes[entry] = hash;
+                insertSlot(entry, hash);
+                size++;
+            } else if (onlyIfNotOlder && isNewerThan(entry, newest)) {
+                return true;
+            } else {
+                poolGarbage += stringsLength(stringOffsets[entry]);
+            }
+            write(entry, folder, newest, fetchedAt, key, path, etag);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param folder der Folder.
+     */
+    void remove(final String folder) {
+        final byte[] key = folder.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            final int slot = findSlot(key, hash(key));
+            final int entry = slots[slot];
+            if (entry < 0) {
+                return;
+            }
+            slots[slot] = DELETED_SLOT;
+            poolGarbage += stringsLength(stringOffsets[entry]);
+            flags[entry] = 0;
+            if (freeEntryCount == freeEntries.length) {
+                freeEntries = Arrays.copyOf(freeEntries, freeEntries.length * 2);
+            }
+            freeEntries[freeEntryCount++] = entry;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Liefert den Eintrag des Folders und markiert diesen als veraltet.
+     *
+     * @param folder der Folder.
+     * @return der als veraltet markierte Eintrag oder null, falls kein Eintrag existiert.
+     */
+    NewestLageplanCache.Entry getAndMarkStale(final String folder) {
+        final byte[] key = folder.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            final int entry = slots[findSlot(key, hash(key))];
+            if (entry < 0) {
+                return null;
+            }
+            flags[entry] |= STALE;
+            return read(entry, folder);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param folder der Folder.
+     * @return der Eintrag oder null, falls kein Eintrag existiert.
+     */
+    NewestLageplanCache.Entry get(final String folder) {
+        final byte[] key = folder.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            final int entry = slots[findSlot(key, hash(key))];
+            return entry < 0 ? null : read(entry, folder);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return die Folder der als veraltet markierten Einträge.
+     */
+    List<String> getStaleFolders() {
+        lock.readLock().lock();
+        try {
+            final List<String> staleFolders = new ArrayList<>();
+            for (int entry = 0; entry < highWaterMark; entry++) {
+                if ((flags[entry] & STALE) != 0) {
+                    staleFolders.add(readString(stringOffsets[entry]));
+                }
+            }
+            return staleFolders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return der Speicherbedarf auf dem Heap in Bytes ohne Objekt-Header.
+     */
+    long getHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) stringOffsets.length * HEAP_BYTES_PER_ENTRY
+                    + (long) slots.length * Integer.BYTES
+                    + (long) freeEntries.length * Integer.BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return der Speicherbedarf außerhalb des Heaps in Bytes.
+     */
+    long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return pool.capacity();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int allocateEntry() {
+        if (freeEntryCount > 0) {
+            return freeEntries[--freeEntryCount];
+        }
+        if (highWaterMark == stringOffsets.length) {
+            final int capacity = stringOffsets.length * 2;
+            stringOffsets = Arrays.copyOf(stringOffsets, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            lastModifiedNanos = Arrays.copyOf(lastModifiedNanos, capacity);
+            fileSizes = Arrays.copyOf(fileSizes, capacity);
+            fetchedAtNanos = Arrays.copyOf(fetchedAtNanos, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        return highWaterMark++;
+    }
+
+    /**
+     * @return true falls der bestehende Eintrag einen später geänderten Lageplan enthält bzw. der
+     *         leere Folder später abgefragt wurde als der übergebene Lageplan geändert.
+     */
+    private boolean isNewerThan(final int entry, final FileMetadata newest) {
+        if (newest == null || newest.lastModified() == null) {
+            return false;
+        }
+        final long newestNanos = toNanos(newest.lastModified().toInstant(ZoneOffset.UTC));
+        final byte entryFlags = flags[entry];
+        if ((entryFlags & PRESENT) == 0) {
+            return fetchedAtNanos[entry] > newestNanos;
+        }
+        return (entryFlags & HAS_LAST_MODIFIED) != 0 && lastModifiedNanos[entry] > newestNanos;
+    }
+
+    private void write(final int entry, final String folder, final FileMetadata newest, final Instant fetchedAt, final byte[] key,
+            final byte[] path, final byte[] etag) {
+        byte entryFlags = LIVE;
+        if (newest != null) {
+            entryFlags |= PRESENT;
+            if (newest.pathToFile().startsWith(folder)) {
+                entryFlags |= RELATIVE_PATH;
+            }
+            if (newest.etag() != null) {
+                entryFlags |= HAS_ETAG;
+            }
+            fileSizes[entry] = newest.fileSize();
+            if (newest.lastModified() != null) {
+                entryFlags |= HAS_LAST_MODIFIED;
+                lastModifiedNanos[entry] = toNanos(newest.lastModified().toInstant(ZoneOffset.UTC));
+            }
+        }
+        fetchedAtNanos[entry] = toNanos(fetchedAt);
+        // Die bisherigen Zeichenketten des Eintrags werden bei einer Verdichtung nicht übernommen.
+        flags[entry] = 0;
+        stringOffsets[entry] = append(key, path, etag);
+        flags[entry] = entryFlags;
+    }
+
+    private NewestLageplanCache.Entry read(final int entry, final String folder) {
+        final byte entryFlags = flags[entry];
+        final Instant fetchedAt = fromNanos(fetchedAtNanos[entry]);
+        final boolean stale = (entryFlags & STALE) != 0;
+        if ((entryFlags & PRESENT) == 0) {
+            return new NewestLageplanCache.Entry(null, fetchedAt, stale);
+        }
+        int offset = stringOffsets[entry];
+        offset += Short.BYTES + Short.toUnsignedInt(pool.getShort(offset));
+        final String path = readString(offset);
+        offset += Short.BYTES + Short.toUnsignedInt(pool.getShort(offset));
+        final String etag = (entryFlags & HAS_ETAG) == 0 ? null : readString(offset);
+        final FileMetadata newest = new FileMetadata(
+                (entryFlags & RELATIVE_PATH) == 0 ? path : folder + path,
+                fileSizes[entry],
+                etag,
+                (entryFlags & HAS_LAST_MODIFIED) == 0 ? null
+                        : LocalDateTime.ofInstant(fromNanos(lastModifiedNanos[entry]), ZoneOffset.UTC));
+        return new NewestLageplanCache.Entry(newest, fetchedAt, stale);
+    }
+
+    /**
+     * Schreibt die Zeichenketten jeweils mit vorangestellter Länge in den Speicherbereich.
+     *
+     * @return der Offset der ersten Zeichenkette.
+     */
+    private int append(final byte[]... strings) {
+        int length = 0;
+        for (final byte[] string : strings) {
+            length += Short.BYTES + string.length;
+        }
+        ensurePoolCapacity(length);
+        final int offset = poolPosition;
+        for (final byte[] string : strings) {
+            pool.putShort(poolPosition, (short) string.length);
+            pool.put(poolPosition + Short.BYTES, string);
+            poolPosition += Short.BYTES + string.length;
+        }
+        return offset;
+    }
+
+    /**
+     * Verdichtet den Speicherbereich bei Bedarf auf die Zeichenketten der aktuellen Einträge und
+     * vergrößert diesen, falls er danach zu mehr als drei Vierteln belegt wäre.
+     */
+    private void ensurePoolCapacity(final int length) {
+        if (poolPosition + length <= pool.capacity()) {
+            return;
+        }
+        final int liveBytes = poolPosition - poolGarbage;
+        int capacity = pool.capacity();
+        while (liveBytes + length > capacity - capacity / 4) {
+            capacity = Math.multiplyExact(capacity, 2);
+        }
+        final ByteBuffer compacted = ByteBuffer.allocateDirect(capacity);
+        int position = 0;
+        for (int entry = 0; entry < highWaterMark; entry++) {
+            if (isLive(entry)) {
+                final int offset = stringOffsets[entry];
+                final int stringsLength = stringsLength(offset);
+                compacted.put(position, pool, offset, stringsLength);
+                stringOffsets[entry] = position;
+                position += stringsLength;
+            }
+        }
+        pool = compacted;
+        poolPosition = position;
+        poolGarbage = 0;
+    }
+
+    private boolean isLive(final int entry) {
+        return (flags[entry] & LIVE) != 0;
+    }
+
+    private int stringsLength(final int offset) {
+        int position = offset;
+        for (int i = 0; i < 3; i++) {
+            position += Short.BYTES + Short.toUnsignedInt(pool.getShort(position));
+        }
+        return position - offset;
+    }
+
+    private String readString(final int offset) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(pool.getShort(offset))];
+        pool.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return der Slot des Folders oder, falls dieser nicht enthalten ist, der erste freie Slot.
+     */
+    private int findSlot(final byte[] key, final int hash) {
+        final int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            final int entry = slots[slot];
+            if (entry == FREE_SLOT) {
+                return slot;
+            }
+            if (entry >= 0 && hashes[entry] == hash && keyEquals(stringOffsets[entry], key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertSlot(final int entry, final int hash) {
+        if ((usedSlots + 1) * 2 > slots.length) {
+            rehash();
+        }
+        final int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (slots[slot] == FREE_SLOT) {
+            usedSlots++;
+        }
+        slots[slot] = entry;
+    }
+
+    /**
+     * Baut die Hashtabelle ohne gelöschte Slots und bei Bedarf mit doppelter Größe neu auf.
+     */
+    private void rehash() {
+        final int capacity = (size + 1) * 4 > slots.length ? slots.length * 2 : slots.length;
+        final int[] rehashed = newSlots(capacity);
+        final int mask = capacity - 1;
+        for (final int entry : slots) {
+            if (entry >= 0) {
+                int slot = hashes[entry] & mask;
+                while (rehashed[slot] != FREE_SLOT) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed[slot] = entry;
+            }
+        }
+        slots = rehashed;
+        usedSlots = size;
+    }
+
+    private boolean keyEquals(final int offset, final byte[] key) {
+        if (Short.toUnsignedInt(pool.getShort(offset)) != key.length) {
+            return false;
+        }
+        return pool.slice(offset + Short.BYTES, key.length).mismatch(ByteBuffer.wrap(key)) < 0;
+    }
+
+    private static int[] newSlots(final int capacity) {
+        final int[] slots = new int[capacity];
+        Arrays.fill(slots, FREE_SLOT);
+        return slots;
+    }
+
+    private static int hash(final byte[] key) {
+        final int hash = Arrays.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    private static long toNanos(final Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    private static Instant fromNanos(final long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+}
@@ -0,0 +1,343 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.api.dto.LageplanChangesDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Führt ein zeitlich geordnetes Änderungsprotokoll der neuesten Lagepläne je Messstelle.
+ * <p>
+ * Das Protokoll wird durch periodische Auflistungen des Basispfads sowie direkt bei Uploads
+ * fortgeschrieben und enthält je Messstelle nur die letzte Änderung. Clients fragen initial mit einem
+ * Zeitpunkt ab und erhalten ein Continuation-Token, mit dem sie anschließend nur noch die seitdem
+ * erkannten Änderungen abfragen.
+ * <p>
+ * Das Protokoll wird nur im Speicher gehalten. Ein Token einer anderen Instanz oder aus der Zeit vor
+ * einem Neustart wird über den darin enthaltenen Zeitpunkt aufgelöst, so dass Änderungen im
+ * Zweifel mehrfach, aber nie gar nicht geliefert werden. Im Cluster werden die Änderungen anderer
+ * Instanzen über {@link #recordRemote(String, boolean, Instant)} übernommen.
+ */
+@Service
+@Slf4j
+public class LageplanChangeService {
+
+    private static final String TOKEN_DELIMITER = ":";
+
+    private final LageplanS3Client lageplanS3Client;
+    private final NewestLageplanCache newestLageplanCache;
+    private final LatestLageplanPointer latestLageplanPointer;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final String lageplaeneBasePath;
+    private final boolean scanEnabled;
+    private final Duration clockSkew;
+    private final int maxLimit;
+    private final Clock clock;
+
+    /**
+     * Kennung der Instanz, um Tokens anderer Instanzen zu erkennen.
+     */
+    private final long epoch = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+
+    private final NavigableMap<Long, Change> changes = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Change> changesByMstId = new HashMap<>();
+
+    private long sequence;
+
+    /**
+     * Zeitpunkt, ab dem alle Änderungen im Protokoll enthalten sind.
+     */
+    private volatile Instant completeSince = Instant.EPOCH;
+
+    @Autowired
+    public LageplanChangeService(
+            final LageplanS3Client lageplanS3Client,
+            final NewestLageplanCache newestLageplanCache,
+            final LatestLageplanPointer latestLageplanPointer,
+            final ApplicationEventPublisher applicationEventPublisher,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.changes.scan-enabled:true}") final boolean scanEnabled,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.changes.clock-skew:PT1M}") final Duration clockSkew,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.changes.max-limit:1000}") final int maxLimit) {
+        this(lageplanS3Client, newestLageplanCache, latestLageplanPointer, applicationEventPublisher, basePath, scanEnabled, clockSkew, maxLimit,
+                Clock.systemUTC());
+    }
+
+    LageplanChangeService(final LageplanS3Client lageplanS3Client, final NewestLageplanCache newestLageplanCache,
+            final LatestLageplanPointer latestLageplanPointer, final ApplicationEventPublisher applicationEventPublisher, final String basePath, final boolean scanEnabled, final Duration clockSkew,
+            final int maxLimit, final Clock clock) {
+        this.lageplanS3Client = lageplanS3Client;
+        this.newestLageplanCache = newestLageplanCache;
+        this.latestLageplanPointer = latestLageplanPointer;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.lageplaeneBasePath = StringUtils.appendIfMissing(basePath, LageplanService.SEPARATOR);
+        this.scanEnabled = scanEnabled;
+        this.clockSkew = clockSkew;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+    }
+
+    /**
+     * Liefert die Messstellen, deren neuester Lageplan sich geändert hat.
+     *
+     * @param since der Zeitpunkt der initialen Abfrage. Wird ignoriert, falls ein Token übergeben wird.
+     * @param continuationToken das Token der vorherigen Abfrage.
+     * @param limit die maximale Anzahl an Messstellen.
+     * @return die geänderten Messstellen und das Token für die nächste Abfrage.
+     * @throws BadRequestException falls weder Zeitpunkt noch gültiges Token übergeben wird.
+     */
+    public LageplanChangesDto getChanges(final Instant since, final String continuationToken, final int limit) throws BadRequestException {
+        final Position position;
+        if (StringUtils.isNotEmpty(continuationToken)) {
+            position = decode(continuationToken);
+        } else if (since != null) {
+            position = new Position(epoch, 0, since);
+        } else {
+            throw new BadRequestException("Zeitpunkt oder Continuation-Token erforderlich");
+        }
+        // Ein fremdes Token wird ab dem Beginn des Protokolls über den enthaltenen Zeitpunkt ausgewertet.
+        final long after = position.epoch() == epoch ? position.sequence() : 0;
+        final int pageSize = Math.clamp(limit, 1, maxLimit);
+
+        final List<String> mstIds = new ArrayList<>();
+        long lastSequence = after;
+        boolean hasMore = false;
+        for (final Change change : changes.tailMap(after, false).values()) {
+            if (mstIds.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            lastSequence = change.sequence();
+            if (change.lastModified().isAfter(position.since())) {
+                mstIds.add(change.mstId());
+            }
+        }
+        // Nach der letzten Seite kann der Zeitpunkt bis zum vollständig erfassten Stand vorgerückt werden.
+        final Instant nextSince = hasMore ? position.since() : max(position.since(), completeSince.minus(clockSkew));
+        return new LageplanChangesDto(mstIds, encode(new Position(epoch, lastSequence, nextSince)), hasMore);
+    }
+
+    /**
+     * Vermerkt einen neuen Lageplan, z.B. direkt nach einem Upload, und veröffentlicht ein
+     * {@link LageplanChangedEvent}.
+     *
+     * @param mstId die Messstelle.
+     * @param lastModified der Zeitpunkt der letzten Änderung des neuesten Lageplans.
+     */
+    public synchronized void record(final String mstId, final Instant lastModified) {
+        recordChange(mstId, lastModified, null, false);
+    }
+
+    /**
+     * Vermerkt einen neuen Lageplan und gibt dessen Metadaten im {@link LageplanChangedEvent} mit,
+     * damit Abonnenten nicht den ggf. noch veralteten Stand nachschlagen.
+     *
+     * @param mstId die Messstelle.
+     * @param newest die Metadaten des neuesten Lageplans.
+     */
+    public synchronized void record(final String mstId, final FileMetadata newest) {
+        recordChange(mstId, newest.lastModified().toInstant(ZoneOffset.UTC), newest, false);
+    }
+
+    /**
+     * Vermerkt, dass für die Messstelle kein Lageplan mehr existiert, und veröffentlicht ein
+     * {@link LageplanChangedEvent}.
+     *
+     * @param mstId die Messstelle.
+     * @param removedAt der Zeitpunkt, zu dem der letzte Lageplan entfernt wurde.
+     */
+    public synchronized void recordRemoval(final String mstId, final Instant removedAt) {
+        recordRemoval(mstId, removedAt, false);
+    }
+
+    /**
+     * @param mstId die Messstelle.
+     * @param lastModified der Zeitpunkt der letzten Änderung eines Lageplans.
+     * @return true falls für die Messstelle kein Lageplan mit gleichem oder späterem Zeitpunkt bekannt
+     *         ist.
+     */
+    public synchronized boolean isNewerThanKnown(final String mstId, final Instant lastModified) {
+        final Change previous = changesByMstId.get(mstId);
+        return previous == null || previous.removed() || lastModified.isAfter(previous.lastModified());
+    }
+
+    /**
+     * Übernimmt eine von einer anderen Instanz erkannte Änderung. Ist die Änderung neuer als der
+     * bekannte Stand, wird der Eintrag der Messstelle im {@link NewestLageplanCache} entfernt und ein
+     * als {@link LageplanChangedEvent#remote() remote} gekennzeichnetes Event veröffentlicht.
+     *
+     * @param mstId die Messstelle.
+     * @param removed true falls für die Messstelle kein Lageplan mehr existiert.
+     * @param lastModified der Zeitpunkt der Änderung.
+     */
+    public synchronized void recordRemote(final String mstId, final boolean removed, final Instant lastModified) {
+        final boolean changed = removed ? recordRemoval(mstId, lastModified, true) : recordChange(mstId, lastModified, null, true);
+        if (changed) {
+            newestLageplanCache.invalidate(LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId));
+        }
+    }
+
+    /**
+     * Listet den Basispfad auf und vermerkt alle Messstellen, deren neuester Lageplan sich seit der
+     * letzten Auflistung geändert hat oder entfernt wurde.
+     */
+    @Scheduled(
+            initialDelayString = "${de.muenchen.dave.document-storage.lageplaene.changes.initial-delay:PT10S}",
+            fixedDelayString = "${de.muenchen.dave.document-storage.lageplaene.changes.scan-interval:PT5M}"
+    )
+    public void scan() {
+        if (!scanEnabled || lageplanS3Client.isUnavailable()) {
+            return;
+        }
+        final Instant scanStartedAt = clock.instant();
+        try {
+            final Map<String, FileMetadata> newestByMstId = new HashMap<>();
+            final Map<String, LocalDateTime> pointerWrittenAtByMstId = new HashMap<>();
+            for (final FileMetadata file : lageplanS3Client.getMetadataOfFilesFromFolder(lageplaeneBasePath)) {
+                final String mstId = LageplanService.extractMstId(lageplaeneBasePath, file.pathToFile());
+                if (mstId != null) {
+                    newestByMstId.merge(mstId, file, (current, other) -> other.lastModified().isAfter(current.lastModified()) ? other : current);
+                } else if (file.pathToFile().endsWith(LatestLageplanPointer.SUFFIX)) {
+                    pointerWrittenAtByMstId.put(
+                            StringUtils.removeEnd(file.pathToFile().substring(lageplaeneBasePath.length()), LatestLageplanPointer.SUFFIX), file.lastModified());
+                }
+            }
+            applyScan(newestByMstId, pointerWrittenAtByMstId, scanStartedAt);
+            log.debug("Änderungsprotokoll mit {} Messstellen aktualisiert", newestByMstId.size());
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Auflistung für das Änderungsprotokoll fehlgeschlagen", exception);
+        }
+    }
+
+    /**
+     * Übernimmt das Ergebnis einer Auflistung. Messstellen, deren Änderung erst nach dem Beginn der
+     * Auflistung vermerkt wurde, z.B. durch einen Upload, ein Event oder eine andere Instanz, fehlen
+     * möglicherweise in der Auflistung und werden daher nicht als entfernt vermerkt.
+     * <p>
+     * Ein {@link LatestLageplanPointer Zeiger}, der vor dem neuesten Lageplan geschrieben wurde, z.B.
+     * nach einem Upload direkt in den S3, wird vor dem Vermerken der Änderung neu geschrieben, ein
+     * Zeiger ohne Lageplan gelöscht. Abfragen nach dem {@link LageplanChangedEvent} liefern damit
+     * bereits den neuen Stand.
+     *
+     * @param newestByMstId der neueste Lageplan je Messstelle laut Auflistung.
+     * @param pointerWrittenAtByMstId der Zeitpunkt der letzten Änderung des Zeigers je Messstelle laut
+     *            Auflistung.
+     * @param scanStartedAt der Beginn der Auflistung.
+     */
+    synchronized void applyScan(final Map<String, FileMetadata> newestByMstId, final Map<String, LocalDateTime> pointerWrittenAtByMstId,
+            final Instant scanStartedAt) {
+        newestByMstId.forEach((mstId, newest) -> {
+            final String folder = LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId);
+            final LocalDateTime pointerWrittenAt = pointerWrittenAtByMstId.get(mstId);
+            if (pointerWrittenAt != null && pointerWrittenAt.isBefore(newest.lastModified()) && !isRecordedSince(mstId, scanStartedAt)) {
+                log.debug("Zeiger auf neuesten Lageplan veraltet, wird neu geschrieben: {}", folder);
+                latestLageplanPointer.write(folder, newest);
+            }
+            newestLageplanCache.putIfNotOlder(folder, newest);
+            record(mstId, newest);
+        });
+        pointerWrittenAtByMstId.keySet().stream()
+                .filter(mstId -> !newestByMstId.containsKey(mstId) && !isRecordedSince(mstId, scanStartedAt))
+                .forEach(mstId -> latestLageplanPointer.delete(LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId)));
+        for (final String removed : new HashSet<>(changesByMstId.keySet())) {
+            if (!newestByMstId.containsKey(removed) && !isRecordedSince(removed, scanStartedAt)) {
+                recordRemoval(removed, scanStartedAt, false);
+            }
+        }
+        completeSince = scanStartedAt;
+    }
+
+    /**
+     * @return true falls für die Messstelle seit dem Zeitpunkt eine Änderung vermerkt wurde.
+     */
+    private boolean isRecordedSince(final String mstId, final Instant since) {
+        final Change change = changesByMstId.get(mstId);
+        return change != null && !change.recordedAt().isBefore(since);
+    }
+
+    /**
+     * @return true falls die Änderung neuer als der bekannte Stand ist und vermerkt wurde.
+     */
+    private boolean recordChange(final String mstId, final Instant lastModified, final FileMetadata newest, final boolean remote) {
+        final Change previous = changesByMstId.get(mstId);
+        if (previous != null && !previous.removed() && !lastModified.isAfter(previous.lastModified())) {
+            return false;
+        }
+        replace(previous, new Change(++sequence, mstId, lastModified, false, clock.instant()));
+        applicationEventPublisher.publishEvent(new LageplanChangedEvent(mstId, false, lastModified, remote, newest));
+        return true;
+    }
+
+    /**
+     * @return true falls die Messstelle bisher einen Lageplan hatte und das Entfernen vermerkt wurde.
+     */
+    private boolean recordRemoval(final String mstId, final Instant removedAt, final boolean remote) {
+        final Change previous = changesByMstId.get(mstId);
+        if (previous != null && (previous.removed() || previous.lastModified().isAfter(removedAt))) {
+            return false;
+        }
+        replace(previous, new Change(++sequence, mstId, removedAt, true, clock.instant()));
+        applicationEventPublisher.publishEvent(new LageplanChangedEvent(mstId, true, removedAt, remote));
+        return true;
+    }
+
+    private void replace(final Change previous, final Change change) {
+        if (previous != null) {
+            changes.remove(previous.sequence());
+        }
+        changes.put(change.sequence(), change);
+        changesByMstId.put(change.mstId(), change);
+    }
+
+    private static Instant max(final Instant first, final Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static String encode(final Position position) {
+        final String token = position.epoch() + TOKEN_DELIMITER + position.sequence() + TOKEN_DELIMITER + position.since().toEpochMilli();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(final String token) throws BadRequestException {
+        try {
+            final String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(TOKEN_DELIMITER);
+            return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Instant.ofEpochMilli(Long.parseLong(parts[2])));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException exception) {
+            throw new BadRequestException("Ungültiges Continuation-Token");
+        }
+    }
+
+    /**
+     * @param removed true falls für die Messstelle kein Lageplan mehr existiert.
+     * @param recordedAt der Zeitpunkt, zu dem die Änderung vermerkt wurde.
+     */
+    private record Change(long sequence, String mstId, Instant lastModified, boolean removed, Instant recordedAt) {
+    }
+
+    private record Position(long epoch, long sequence, Instant since) {
+    }
+}
@@ -0,0 +1,23 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.time.Instant;
+
+/**
+ * Wird veröffentlicht, sobald für eine Messstelle ein neuerer Lageplan erkannt wurde oder kein
+ * Lageplan mehr existiert.
+ *
+ * @param mstId die Messstelle.
+ * @param removed true falls für die Messstelle kein Lageplan mehr existiert.
+ * @param lastModified der Zeitpunkt der letzten Änderung des neuesten Lageplans bzw. der Zeitpunkt,
+ *            zu dem das Entfernen erkannt wurde.
+ * @param remote true falls die Änderung von einer anderen Instanz erkannt und übermittelt wurde.
+ * @param newest die Metadaten des neuesten Lageplans, sofern sie beim Erkennen der Änderung bekannt
+ *            waren, sonst null.
+ */
+public record LageplanChangedEvent(String mstId, boolean removed, Instant lastModified, boolean remote, FileMetadata newest) {
+
+    public LageplanChangedEvent(final String mstId, final boolean removed, final Instant lastModified, final boolean remote) {
+        this(mstId, removed, lastModified, remote, null);
+    }
+}
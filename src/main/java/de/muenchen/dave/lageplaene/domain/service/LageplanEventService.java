@@ -0,0 +1,207 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.api.dto.S3EventNotificationDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import jakarta.annotation.PreDestroy;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Verarbeitet Benachrichtigungen des S3 über neue oder entfernte Lagepläne.
+ * <p>
+ * Die Events werden je Messstelle zusammengefasst, so dass bei vielen Uploads in kurzer Zeit je
+ * Messstelle nur das letzte Event verarbeitet wird. Ein neuer Lageplan wird ohne Auflistung als
+ * neuester Lageplan übernommen, sofern kein späterer bekannt ist. Nach dem Entfernen eines Lageplans
+ * wird der Folder neu aufgelistet. Die periodische Auflistung im {@link LageplanChangeService} bleibt
+ * als Absicherung gegen verlorene Events bestehen.
+ */
+@Service
+@Slf4j
+public class LageplanEventService {
+
+    private static final String EVENT_NAME_PREFIX = "s3:";
+
+    private static final String OBJECT_CREATED = "ObjectCreated:";
+
+    private static final String OBJECT_REMOVED = "ObjectRemoved:";
+
+    /**
+     * Ordnet die Events einer Messstelle nach Zeitpunkt und bei gleichem Zeitpunkt nach Sequencer.
+     * Sequencer unterschiedlicher Länge werden wie vom S3 vorgesehen links mit Nullen aufgefüllt.
+     */
+    private static final Comparator<Event> EVENT_ORDER = Comparator.comparing(Event::eventTime)
+            .thenComparing(event -> StringUtils.leftPad(event.sequencer(), 32, '0'));
+
+    private final LatestLageplanPointer latestLageplanPointer;
+    private final NewestLageplanCache newestLageplanCache;
+    private final LageplanChangeService lageplanChangeService;
+    private final LageplanService lageplanService;
+    private final String lageplaeneBasePath;
+    private final int maxRecords;
+    private final int batchSize;
+    private final Duration flushInterval;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+
+    private final Map<String, Event> pending = new HashMap<>();
+
+    public LageplanEventService(
+            final LatestLageplanPointer latestLageplanPointer,
+            final NewestLageplanCache newestLageplanCache,
+            final LageplanChangeService lageplanChangeService,
+            final LageplanService lageplanService,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.events.max-records:1000}") final int maxRecords,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.events.batch-size:500}") final int batchSize,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.events.flush-interval:PT0.2S}") final Duration flushInterval) {
+        this.latestLageplanPointer = latestLageplanPointer;
+        this.newestLageplanCache = newestLageplanCache;
+        this.lageplanChangeService = lageplanChangeService;
+        this.lageplanService = lageplanService;
+        this.lageplaeneBasePath = StringUtils.appendIfMissing(basePath, LageplanService.SEPARATOR);
+        this.maxRecords = maxRecords;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Übernimmt die Events einer Benachrichtigung. Die Verarbeitung erfolgt asynchron spätestens nach
+     * dem konfigurierten Intervall. Events zu Objekten außerhalb der Lageplan-Folder sowie nicht
+     * unterstützte Events werden ignoriert.
+     *
+     * @param notification die Benachrichtigung des S3.
+     * @return die Anzahl der übernommenen Events.
+     * @throws BadRequestException falls die Benachrichtigung zu viele Events enthält.
+     */
+    public int accept(final S3EventNotificationDto notification) throws BadRequestException {
+        final List<S3EventNotificationDto.EventRecord> records = Objects.requireNonNullElse(notification.getRecords(), List.of());
+        if (records.size() > maxRecords) {
+            throw new BadRequestException("Zu viele Events: " + records.size() + " (maximal " + maxRecords + ")");
+        }
+        final List<Event> events = records.stream()
+                .map(this::toEvent)
+                .flatMap(Optional::stream)
+                .toList();
+        if (!events.isEmpty()) {
+            enqueue(events);
+        }
+        log.debug("{} von {} Events übernommen", events.size(), records.size());
+        return events.size();
+    }
+
+    private synchronized void enqueue(final List<Event> events) {
+        final boolean wasEmpty = pending.isEmpty();
+        events.forEach(event -> pending.merge(event.mstId(), event, (previous, current) -> EVENT_ORDER.compare(current, previous) >= 0 ? current : previous));
+        try {
+            if (pending.size() >= batchSize) {
+                executor.execute(this::flush);
+            } else if (wasEmpty) {
+                executor.schedule(this::flush, flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException exception) {
+            log.warn("Events werden beim Herunterfahren nicht mehr verarbeitet");
+        }
+    }
+
+    /**
+     * Verarbeitet alle bisher übernommenen Events.
+     */
+    void flush() {
+        final List<Event> batch;
+        synchronized (this) {
+            batch = List.copyOf(pending.values());
+            pending.clear();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        log.debug("Verarbeite Events zu {} Messstellen", batch.size());
+        batch.forEach(this::process);
+    }
+
+    private void process(final Event event) {
+        final String folder = LageplanService.buildPathToLageplan(lageplaeneBasePath, event.mstId());
+        try {
+            if (event.removed()) {
+                processRemoval(event, folder);
+            } else {
+                processCreation(event, folder);
+            }
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Event zu Messstelle {} konnte nicht verarbeitet werden", event.mstId(), exception);
+            newestLageplanCache.invalidate(folder);
+        }
+    }
+
+    private void processCreation(final Event event, final String folder) {
+        if (!lageplanChangeService.isNewerThanKnown(event.mstId(), event.eventTime())) {
+            log.debug("Event zu Messstelle {} ist nicht neuer als der bekannte Lageplan: {}", event.mstId(), event.key());
+            return;
+        }
+        final var fileMetadata = new FileMetadata(event.key(), event.size(), event.eTag(), LocalDateTime.ofInstant(event.eventTime(), ZoneOffset.UTC));
+        latestLageplanPointer.write(folder, fileMetadata);
+        newestLageplanCache.put(folder, Optional.of(fileMetadata));
+        lageplanChangeService.record(event.mstId(), event.eventTime());
+    }
+
+    /**
+     * Der entfernte Lageplan muss nicht der neueste gewesen sein, daher wird der Folder neu aufgelistet.
+     */
+    private void processRemoval(final Event event, final String folder) throws FileSystemAccessException {
+        final Optional<FileMetadata> newest = lageplanService.reconcileNewestFileInFolderAndSubfolder(folder);
+        if (newest.isPresent()) {
+            lageplanChangeService.record(event.mstId(), newest.get().lastModified().toInstant(ZoneOffset.UTC));
+        } else {
+            latestLageplanPointer.delete(folder);
+            lageplanChangeService.recordRemoval(event.mstId(), event.eventTime());
+        }
+    }
+
+    private Optional<Event> toEvent(final S3EventNotificationDto.EventRecord eventRecord) {
+        if (eventRecord == null || eventRecord.getEventName() == null || eventRecord.getEventTime() == null || eventRecord.getS3() == null
+                || eventRecord.getS3().getObject() == null || eventRecord.getS3().getObject().getKey() == null) {
+            return Optional.empty();
+        }
+        final String eventName = StringUtils.removeStart(eventRecord.getEventName(), EVENT_NAME_PREFIX);
+        final boolean removed = eventName.startsWith(OBJECT_REMOVED);
+        if (!removed && !eventName.startsWith(OBJECT_CREATED)) {
+            return Optional.empty();
+        }
+        final S3EventNotificationDto.S3Object object = eventRecord.getS3().getObject();
+        final String key = URLDecoder.decode(object.getKey(), StandardCharsets.UTF_8);
+        final String mstId = LageplanService.extractMstId(lageplaeneBasePath, key);
+        if (mstId == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Event(mstId, key, removed, eventRecord.getEventTime(), Objects.requireNonNullElse(object.getSize(), 0L),
+                object.getETag(), StringUtils.defaultString(object.getSequencer())));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private record Event(String mstId, String key, boolean removed, Instant eventTime, long size, String eTag, String sequencer) {
+    }
+}
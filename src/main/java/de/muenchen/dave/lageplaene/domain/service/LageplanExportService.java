@@ -0,0 +1,272 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exportiert die neuesten Lagepläne mehrerer Messstellen als ZIP-Archiv.
+ * <p>
+ * Die Lagepläne werden mit höchstens {@code parallelism} gleichzeitigen S3-Aufrufen abgerufen und in
+ * der Reihenfolge der Messstellen direkt aus dem S3-Stream in das Archiv geschrieben. Es werden
+ * weder temporäre Dateien angelegt noch ganze Lagepläne im Speicher gehalten, so dass der
+ * Speicherbedarf unabhängig von der Größe des Archivs ist. Messstellen ohne Lageplan oder mit
+ * fehlgeschlagenem Abruf werden im Archiv in {@value #MISSING_ENTRY} aufgeführt.
+ */
+@Service
+@Slf4j
+public class LageplanExportService {
+
+    static final String MISSING_ENTRY = "fehlende-lageplaene.txt";
+
+    private final LageplanService lageplanService;
+    private final LageplanS3Client lageplanS3Client;
+    private final MessstelleCatalog messstelleCatalog;
+    private final String lageplaeneBasePath;
+    private final int parallelism;
+    private final int maxMstIds;
+    private final Duration retryAfter;
+    private final Semaphore exports;
+    private final ExecutorService executor;
+
+    @Autowired
+    public LageplanExportService(
+            final LageplanService lageplanService,
+            final LageplanS3Client lageplanS3Client,
+            final MessstelleCatalog messstelleCatalog,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.export.parallelism:4}") final int parallelism,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.export.max-mst-ids:5000}") final int maxMstIds,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.export.max-concurrent-exports:2}") final int maxConcurrentExports,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.export.retry-after:PT30S}") final Duration retryAfter) {
+        this(lageplanService, lageplanS3Client, messstelleCatalog, basePath, parallelism, maxMstIds, maxConcurrentExports, retryAfter,
+                Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    LageplanExportService(final LageplanService lageplanService, final LageplanS3Client lageplanS3Client,
+            final MessstelleCatalog messstelleCatalog, final String basePath, final int parallelism, final int maxMstIds,
+            final int maxConcurrentExports, final Duration retryAfter, final ExecutorService executor) {
+        this.lageplanService = lageplanService;
+        this.lageplanS3Client = lageplanS3Client;
+        this.messstelleCatalog = messstelleCatalog;
+        this.lageplaeneBasePath = StringUtils.appendIfMissing(basePath, LageplanService.SEPARATOR);
+        this.parallelism = Math.max(parallelism, 1);
+        this.maxMstIds = maxMstIds;
+        this.retryAfter = retryAfter;
+        this.exports = new Semaphore(maxConcurrentExports);
+        this.executor = executor;
+    }
+
+    /**
+     * Ermittelt die zu exportierenden Messstellen und reserviert einen der begrenzten Export-Plätze.
+     * Der Platz wird nach dem Schreiben des Archivs über {@link LageplanExport#writeTo(OutputStream)}
+     * wieder freigegeben. Wird das Archiv nicht geschrieben, z.B. nach einem Timeout der asynchronen
+     * Verarbeitung, ist der Platz über {@link LageplanExport#release()} freizugeben.
+     *
+     * @param mstIds die Messstellen.
+     * @param prefix der Präfix der Messstellen, falls keine Messstellen angegeben sind.
+     * @return der Export.
+     * @throws BadRequestException falls weder Messstellen noch Präfix oder zu viele Messstellen
+     *             angegeben sind.
+     * @throws FileSystemAccessException falls das Verzeichnis der Messstellen nicht geladen werden
+     *             kann.
+     * @throws BulkheadFullException falls bereits die maximale Anzahl an Exporten läuft.
+     */
+    public LageplanExport startExport(final Collection<String> mstIds, final String prefix)
+            throws BadRequestException, FileSystemAccessException {
+        final List<String> resolved;
+        if (mstIds != null && !mstIds.isEmpty()) {
+            resolved = List.copyOf(new TreeSet<>(mstIds));
+        } else if (StringUtils.isNotBlank(prefix)) {
+            resolved = messstelleCatalog.getMstIdsWithPrefix(prefix);
+        } else {
+            throw new BadRequestException("Messstellen oder Präfix erforderlich");
+        }
+        if (resolved.size() > maxMstIds) {
+            throw new BadRequestException("Zu viele Messstellen: " + resolved.size());
+        }
+        if (!exports.tryAcquire()) {
+            throw new BulkheadFullException("export", retryAfter);
+        }
+        return new LageplanExport(resolved);
+    }
+
+    void export(final List<String> mstIds, final OutputStream outputStream) throws IOException {
+        log.info("Export von {} Lageplänen gestartet", mstIds.size());
+        final ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        // Lagepläne liegen überwiegend bereits komprimiert vor.
+        zip.setLevel(Deflater.BEST_SPEED);
+        final Deque<Future<ExportEntry>> inFlight = new ArrayDeque<>();
+        final Iterator<String> pending = mstIds.iterator();
+        final List<String> missing = new ArrayList<>();
+        try {
+            while (inFlight.size() < parallelism && pending.hasNext()) {
+                inFlight.add(submit(pending.next()));
+            }
+            while (!inFlight.isEmpty()) {
+                final ExportEntry entry = await(inFlight.poll());
+                if (pending.hasNext()) {
+                    inFlight.add(submit(pending.next()));
+                }
+                if (entry.content() == null) {
+                    missing.add(entry.mstId() + ": " + entry.problem());
+                } else {
+                    write(zip, entry);
+                }
+            }
+            if (!missing.isEmpty()) {
+                zip.putNextEntry(new ZipEntry(MISSING_ENTRY));
+                zip.write(String.join("\n", missing).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+            log.info("Export von {} Lageplänen abgeschlossen, {} fehlen", mstIds.size(), missing.size());
+        } finally {
+            inFlight.forEach(LageplanExportService::discard);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Future<ExportEntry> submit(final String mstId) {
+        return executor.submit(() -> fetch(mstId));
+    }
+
+    private ExportEntry fetch(final String mstId) {
+        try {
+            final Optional<FileMetadata> newest = lageplanService.getNewestFileInFolderAndSubfolder(
+                    LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId));
+            if (newest.isEmpty()) {
+                return new ExportEntry(mstId, null, null, "kein Lageplan vorhanden");
+            }
+            return lageplanS3Client.getObjectAsStream(newest.get().pathToFile())
+                    .map(content -> new ExportEntry(mstId, newest.get(), content, null))
+                    .orElseGet(() -> new ExportEntry(mstId, null, null, "kein Lageplan vorhanden"));
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Lageplan für Messstelle {} konnte nicht exportiert werden", mstId, exception);
+            return new ExportEntry(mstId, null, null, "Fehler beim Abruf");
+        }
+    }
+
+    private static ExportEntry await(final Future<ExportEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export unterbrochen", exception);
+        } catch (ExecutionException exception) {
+            throw new IOException("Export fehlgeschlagen", exception.getCause());
+        }
+    }
+
+    private static void write(final ZipOutputStream zip, final ExportEntry entry) throws IOException {
+        final String fileName = StringUtils.substringAfterLast(LageplanService.SEPARATOR + entry.file().pathToFile(), LageplanService.SEPARATOR);
+        final ZipEntry zipEntry = new ZipEntry(entry.mstId() + LageplanService.SEPARATOR + fileName);
+        if (entry.file().lastModified() != null) {
+            zipEntry.setLastModifiedTime(FileTime.from(entry.file().lastModified().toInstant(ZoneOffset.UTC)));
+        }
+        try (InputStream content = entry.content()) {
+            zip.putNextEntry(zipEntry);
+            content.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Bricht einen noch laufenden Abruf ab bzw. schließt den Stream eines bereits abgeschlossenen
+     * Abrufs, z.B. nachdem der Client die Verbindung getrennt hat.
+     */
+    private static void discard(final Future<ExportEntry> future) {
+        if (future.cancel(true) || future.state() != Future.State.SUCCESS) {
+            return;
+        }
+        final InputStream content = future.resultNow().content();
+        if (content != null) {
+            try {
+                content.close();
+            } catch (IOException exception) {
+                log.debug("Fehler beim Schließen eines nicht exportierten Lageplans", exception);
+            }
+        }
+    }
+
+    /**
+     * Ein gestarteter Export, der einen der Export-Plätze belegt.
+     */
+    public final class LageplanExport {
+
+        private final List<String> mstIds;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private LageplanExport(final List<String> mstIds) {
+            this.mstIds = mstIds;
+        }
+
+        /**
+         * Schreibt das Archiv und gibt anschließend den Export-Platz frei.
+         *
+         * @param outputStream der Stream für das Archiv.
+         * @throws IOException beim Schreiben des Archivs.
+         */
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            try {
+                export(mstIds, outputStream);
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Gibt den Export-Platz frei. Weitere Aufrufe haben keine Wirkung.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                exports.release();
+            }
+        }
+    }
+
+    /**
+     * @param file die Metadaten des Lageplans oder null, falls dieser nicht exportiert werden kann.
+     * @param content der Inhalt des Lageplans oder null, falls dieser nicht exportiert werden kann.
+     * @param problem der Grund, falls der Lageplan nicht exportiert werden kann.
+     */
+    private record ExportEntry(String mstId, FileMetadata file, InputStream content, String problem) {
+    }
+}
@@ -0,0 +1,66 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Protokolliert je erfolgreich importierter Datei deren relativen Pfad und SHA-256-Prüfsumme.
+ * <p>
+ * Jede Zeile wird unmittelbar nach dem Upload geschrieben und auf die Platte geschrieben. Ein
+ * abgebrochener Import kann dadurch fortgesetzt werden, bereits importierte und unveränderte
+ * Dateien werden übersprungen.
+ */
+class LageplanImportJournal implements Closeable {
+
+    private static final String DELIMITER = "\t";
+
+    private final Map<String, String> checksums = new ConcurrentHashMap<>();
+
+    private final BufferedWriter writer;
+
+    LageplanImportJournal(final Path journalFile) throws IOException {
+        if (Files.exists(journalFile)) {
+            final List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+            for (final String line : lines) {
+                final String[] columns = line.split(DELIMITER, 2);
+                if (columns.length == 2) {
+                    checksums.put(columns[1], columns[0]);
+                }
+            }
+        }
+        this.writer = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @param relativePath der Pfad der Datei relativ zum Importverzeichnis.
+     * @param sha256 die aktuelle Prüfsumme der Datei.
+     * @return true falls die Datei mit identischer Prüfsumme bereits importiert wurde.
+     */
+    boolean isImported(final String relativePath, final String sha256) {
+        return sha256.equals(checksums.get(relativePath));
+    }
+
+    synchronized void markImported(final String relativePath, final String sha256) throws IOException {
+        writer.write(sha256 + DELIMITER + relativePath);
+        writer.newLine();
+        writer.flush();
+        checksums.put(relativePath, sha256);
+    }
+
+    int size() {
+        return checksums.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
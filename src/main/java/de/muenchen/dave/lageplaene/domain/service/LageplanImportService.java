@@ -0,0 +1,234 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.S3MultipartUploader;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Importiert einen lokalen Verzeichnisbaum mit Lageplänen in den S3.
+ * <p>
+ * Jedes Unterverzeichnis der ersten Ebene entspricht einer Messstelle. Die enthaltenen Dateien
+ * werden mit ihrem relativen Pfad unterhalb des Lageplan-Folders der Messstelle abgelegt, d.h.
+ * {@code <quelle>/<mstId>/<pfad>} wird zu {@code <base-path>/<mstId>/<pfad>}. Es werden höchstens
+ * {@code parallelism} Dateien gleichzeitig hochgeladen. Über ein {@link LageplanImportJournal} im
+ * Importverzeichnis werden bereits importierte und unveränderte Dateien übersprungen. Nach dem
+ * Import wird der {@link LatestLageplanPointer} der betroffenen Messstellen neu ermittelt.
+ */
+@Service
+@Slf4j
+public class LageplanImportService {
+
+    static final String JOURNAL_FILE = ".lageplan-import.journal";
+
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final S3MultipartUploader s3MultipartUploader;
+    private final LageplanService lageplanService;
+    private final NewestLageplanCache newestLageplanCache;
+    private final String lageplaeneBasePath;
+    private final int parallelism;
+    private final Clock clock;
+
+    @Autowired
+    public LageplanImportService(
+            final S3MultipartUploader s3MultipartUploader,
+            final LageplanService lageplanService,
+            final NewestLageplanCache newestLageplanCache,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.import.parallelism:8}") final int parallelism) {
+        this(s3MultipartUploader, lageplanService, newestLageplanCache, basePath, parallelism, Clock.systemUTC());
+    }
+
+    LageplanImportService(final S3MultipartUploader s3MultipartUploader, final LageplanService lageplanService,
+            final NewestLageplanCache newestLageplanCache, final String basePath, final int parallelism, final Clock clock) {
+        this.s3MultipartUploader = s3MultipartUploader;
+        this.lageplanService = lageplanService;
+        this.newestLageplanCache = newestLageplanCache;
+        this.lageplaeneBasePath = basePath;
+        this.parallelism = parallelism;
+        this.clock = clock;
+    }
+
+    /**
+     * Importiert alle Dateien unterhalb des Verzeichnisses.
+     *
+     * @param sourceDirectory das Importverzeichnis mit einem Unterverzeichnis je Messstelle.
+     * @return das Ergebnis des Imports.
+     * @throws IOException beim Lesen des Verzeichnisses oder Schreiben des Journals.
+     */
+    public ImportReport importDirectory(final Path sourceDirectory) throws IOException {
+        if (!Files.isDirectory(sourceDirectory)) {
+            throw new IOException("Kein Verzeichnis: " + sourceDirectory);
+        }
+        final Instant start = clock.instant();
+        final Progress progress = new Progress();
+        final Set<String> importedFolders = ConcurrentHashMap.newKeySet();
+        try (LageplanImportJournal journal = new LageplanImportJournal(sourceDirectory.resolve(JOURNAL_FILE));
+                Stream<Path> files = Files.walk(sourceDirectory)) {
+            log.info("Starte Import aus {}, {} Dateien laut Journal bereits importiert", sourceDirectory, journal.size());
+            final Semaphore filesInFlight = new Semaphore(parallelism);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                final Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+                while (iterator.hasNext()) {
+                    final Path file = iterator.next();
+                    final Path relativePath = sourceDirectory.relativize(file);
+                    if (relativePath.getNameCount() < 2) {
+                        if (!JOURNAL_FILE.equals(relativePath.toString())) {
+                            log.warn("Datei ohne Messstelle wird ignoriert: {}", relativePath);
+                        }
+                        continue;
+                    }
+                    filesInFlight.acquire();
+                    executor.execute(() -> {
+                        try {
+                            importFile(file, relativePath, journal, progress, importedFolders);
+                        } finally {
+                            filesInFlight.release();
+                        }
+                        logProgress(progress, start);
+                    });
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                log.warn("Import aus {} unterbrochen", sourceDirectory);
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } finally {
+            importedFolders.forEach(this::reconcile);
+        }
+        final ImportReport report = progress.toReport(Duration.between(start, clock.instant()));
+        log.info("Import aus {} abgeschlossen: {}", sourceDirectory, report);
+        return report;
+    }
+
+    private void importFile(final Path file, final Path relativePath, final LageplanImportJournal journal, final Progress progress,
+            final Set<String> importedFolders) {
+        final String journalKey = toKey(relativePath);
+        final String mstId = relativePath.getName(0).toString();
+        final String folder = LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId);
+        final String pathToFile = folder + toKey(relativePath.subpath(1, relativePath.getNameCount()));
+        try {
+            final String sha256 = sha256Hex(file);
+            if (journal.isImported(journalKey, sha256)) {
+                progress.skipped.incrementAndGet();
+                return;
+            }
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                final S3MultipartUploader.UploadResult result = s3MultipartUploader.upload(pathToFile, Files.probeContentType(file), inputStream);
+                journal.markImported(journalKey, sha256);
+                importedFolders.add(folder);
+                progress.uploaded.incrementAndGet();
+                progress.bytes.addAndGet(result.size());
+            }
+        } catch (FileSystemAccessException | IOException | RuntimeException exception) {
+            log.error("Fehler beim Import von {} nach {}", relativePath, pathToFile, exception);
+            progress.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Ermittelt den neuesten Lageplan einer betroffenen Messstelle neu. Schlägt dies fehl, wird der
+     * Lageplan beim nächsten Zugriff ermittelt.
+     */
+    private void reconcile(final String folder) {
+        try {
+            lageplanService.reconcileNewestFileInFolderAndSubfolder(folder);
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Neuester Lageplan konnte nach dem Import nicht ermittelt werden: {}", folder, exception);
+            newestLageplanCache.invalidate(folder);
+        }
+    }
+
+    private void logProgress(final Progress progress, final Instant start) {
+        final long processed = progress.processed();
+        if (processed % PROGRESS_INTERVAL == 0) {
+            log.info("Import: {}", progress.toReport(Duration.between(start, clock.instant())));
+        }
+    }
+
+    private static String toKey(final Path relativePath) {
+        return relativePath.toString().replace(relativePath.getFileSystem().getSeparator(), LageplanService.SEPARATOR);
+    }
+
+    private static String sha256Hex(final Path file) throws IOException {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+                inputStream.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static final class Progress {
+
+        private final AtomicLong uploaded = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        long processed() {
+            return uploaded.get() + skipped.get() + failed.get();
+        }
+
+        ImportReport toReport(final Duration duration) {
+            return new ImportReport(uploaded.get(), skipped.get(), failed.get(), bytes.get(), duration);
+        }
+    }
+
+    /**
+     * @param uploaded die Anzahl hochgeladener Dateien.
+     * @param skipped die Anzahl unveränderter und daher übersprungener Dateien.
+     * @param failed die Anzahl fehlgeschlagener Dateien.
+     * @param bytes die Anzahl hochgeladener Bytes.
+     * @param duration die Dauer des Imports.
+     */
+    public record ImportReport(long uploaded, long skipped, long failed, long bytes, Duration duration) {
+
+        public double filesPerSecond() {
+            return perSecond(uploaded + skipped + failed);
+        }
+
+        public double megabytesPerSecond() {
+            return perSecond(bytes) / (1024 * 1024);
+        }
+
+        private double perSecond(final long value) {
+            final long millis = Math.max(duration.toMillis(), 1);
+            return value * 1000.0 / millis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hochgeladen, %d übersprungen, %d fehlgeschlagen, %.1f MB in %s (%.1f Dateien/s, %.2f MB/s)",
+                    uploaded, skipped, failed, bytes / (1024.0 * 1024.0), duration, filesPerSecond(), megabytesPerSecond());
+        }
+    }
+}
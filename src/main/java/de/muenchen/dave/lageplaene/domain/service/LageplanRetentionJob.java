@@ -0,0 +1,181 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.adapter.s3.S3BucketClient;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Entfernt ältere, durch neuere Lagepläne ersetzte Versionen aus den Lageplan-Foldern.
+ * <p>
+ * Je Messstelle bleiben die {@code keepNewest} neuesten Lagepläne sowie alle Lagepläne erhalten, die
+ * jünger als {@code keepYoungerThan} sind. Alle übrigen werden in den Archivpfad kopiert, sofern
+ * dieser konfiguriert ist, und anschließend in Batches gelöscht. Im Dry-Run werden die betroffenen
+ * Lagepläne nur protokolliert und gezählt.
+ */
+@Component
+@Slf4j
+public class LageplanRetentionJob {
+
+    private final LageplanS3Client lageplanS3Client;
+    private final S3BucketClient s3BucketClient;
+    private final String lageplaeneBasePath;
+    private final boolean enabled;
+    private final boolean dryRun;
+    private final int keepNewest;
+    private final Period keepYoungerThan;
+    private final String archivePath;
+    private final int batchSize;
+    private final Clock clock;
+    private final Counter objectsReclaimed;
+    private final Counter bytesReclaimed;
+    private final Counter objectsFailed;
+
+    @Autowired
+    public LageplanRetentionJob(
+            final LageplanS3Client lageplanS3Client,
+            final S3BucketClient s3BucketClient,
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.enabled:false}") final boolean enabled,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.dry-run:true}") final boolean dryRun,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.keep-newest:3}") final int keepNewest,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.keep-younger-than:P12M}") final Period keepYoungerThan,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.archive-path:}") final String archivePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.retention.batch-size:1000}") final int batchSize) {
+        this(lageplanS3Client, s3BucketClient, meterRegistry, basePath, enabled, dryRun, keepNewest, keepYoungerThan, archivePath, batchSize,
+                Clock.systemUTC());
+    }
+
+    LageplanRetentionJob(final LageplanS3Client lageplanS3Client, final S3BucketClient s3BucketClient, final MeterRegistry meterRegistry,
+            final String basePath, final boolean enabled, final boolean dryRun, final int keepNewest, final Period keepYoungerThan,
+            final String archivePath, final int batchSize, final Clock clock) {
+        this.lageplanS3Client = lageplanS3Client;
+        this.s3BucketClient = s3BucketClient;
+        this.lageplaeneBasePath = StringUtils.appendIfMissing(basePath, LageplanService.SEPARATOR);
+        this.enabled = enabled;
+        this.dryRun = dryRun;
+        // Der neueste Lageplan einer Messstelle wird nie entfernt.
+        this.keepNewest = Math.max(keepNewest, 1);
+        this.keepYoungerThan = keepYoungerThan;
+        this.archivePath = StringUtils.isBlank(archivePath) ? null : StringUtils.appendIfMissing(archivePath, LageplanService.SEPARATOR);
+        this.batchSize = Math.clamp(batchSize, 1, S3BucketClient.MAX_KEYS_PER_DELETE);
+        this.clock = clock;
+        final String mode = dryRun ? "dry-run" : (this.archivePath == null ? "delete" : "archive");
+        this.objectsReclaimed = Counter.builder("dave.lageplaene.retention.objects")
+                .description("Anzahl der durch die Aufbewahrungsregeln entfernten Lagepläne")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.bytesReclaimed = Counter.builder("dave.lageplaene.retention.bytes")
+                .description("Größe der durch die Aufbewahrungsregeln entfernten Lagepläne in Bytes")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.objectsFailed = Counter.builder("dave.lageplaene.retention.failed")
+                .description("Anzahl der Lagepläne, die nicht entfernt werden konnten")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${de.muenchen.dave.document-storage.lageplaene.retention.cron:0 0 3 * * *}")
+    public void applyRetention() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            final List<FileMetadata> expired = findExpiredLageplaene(lageplanS3Client.getMetadataOfFilesFromFolder(lageplaeneBasePath));
+            log.info("{} Lagepläne mit {} Bytes außerhalb der Aufbewahrungsregeln{}", expired.size(),
+                    expired.stream().mapToLong(FileMetadata::fileSize).sum(), dryRun ? " (Dry-Run)" : "");
+            for (int start = 0; start < expired.size(); start += batchSize) {
+                reclaim(expired.subList(start, Math.min(start + batchSize, expired.size())));
+            }
+        } catch (FileSystemAccessException exception) {
+            log.error("Aufbewahrungsregeln konnten nicht angewendet werden", exception);
+        }
+    }
+
+    /**
+     * @param files alle Dateien unterhalb des Basispfads.
+     * @return die Lagepläne, die nach den Aufbewahrungsregeln zu entfernen sind. Ordner-Markierungen,
+     *         deren Schlüssel auf "/" endet, zählen nicht als Lageplan.
+     */
+    List<FileMetadata> findExpiredLageplaene(final List<FileMetadata> files) {
+        final LocalDateTime keepAfter = LocalDateTime.now(clock).minus(keepYoungerThan);
+        final Map<String, List<FileMetadata>> filesPerMessstelle = files.stream()
+                .filter(file -> !file.pathToFile().endsWith("/"))
+                .filter(file -> LageplanService.extractMstId(lageplaeneBasePath, file.pathToFile()) != null)
+                .collect(Collectors.groupingBy(file -> LageplanService.extractMstId(lageplaeneBasePath, file.pathToFile())));
+        final List<FileMetadata> expired = new ArrayList<>();
+        filesPerMessstelle.forEach((mstId, filesOfMessstelle) -> {
+            final List<FileMetadata> newestFirst = filesOfMessstelle.stream()
+                    .sorted(Comparator.comparing(FileMetadata::lastModified).reversed())
+                    .toList();
+            newestFirst.stream()
+                    .skip(keepNewest)
+                    .filter(file -> file.lastModified().isBefore(keepAfter))
+                    .forEach(expired::add);
+        });
+        return expired;
+    }
+
+    private void reclaim(final List<FileMetadata> batch) {
+        if (dryRun) {
+            batch.forEach(file -> log.info("Dry-Run, würde entfernen: {} ({})", file.pathToFile(), file.lastModified()));
+            count(batch);
+            return;
+        }
+        final List<FileMetadata> deletable = new ArrayList<>();
+        for (final FileMetadata file : batch) {
+            if (archivePath == null || archive(file)) {
+                deletable.add(file);
+            }
+        }
+        if (deletable.isEmpty()) {
+            return;
+        }
+        try {
+            final Set<String> failed = new HashSet<>(s3BucketClient.deleteObjects(deletable.stream().map(FileMetadata::pathToFile).toList()));
+            objectsFailed.increment(failed.size());
+            count(deletable.stream().filter(file -> !failed.contains(file.pathToFile())).toList());
+        } catch (FileSystemAccessException exception) {
+            log.error("Fehler beim Löschen von {} Lageplänen", deletable.size(), exception);
+            objectsFailed.increment(deletable.size());
+        }
+    }
+
+    private boolean archive(final FileMetadata file) {
+        final String target = archivePath + file.pathToFile().substring(lageplaeneBasePath.length());
+        try {
+            s3BucketClient.copyObject(file.pathToFile(), target);
+            return true;
+        } catch (FileSystemAccessException exception) {
+            log.error("Fehler beim Archivieren von {}", file.pathToFile(), exception);
+            objectsFailed.increment();
+            return false;
+        }
+    }
+
+    private void count(final List<FileMetadata> reclaimed) {
+        objectsReclaimed.increment(reclaimed.size());
+        bytesReclaimed.increment(reclaimed.stream().map(FileMetadata::fileSize).filter(Objects::nonNull).mapToLong(Long::longValue).sum());
+    }
+}
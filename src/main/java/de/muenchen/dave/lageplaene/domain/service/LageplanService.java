@@ -1,15 +1,22 @@
 package de.muenchen.dave.lageplaene.domain.service;
 
 import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanPresigner;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
 import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
-import de.muenchen.refarch.integration.s3.adapter.out.s3.S3Adapter;
+import de.muenchen.dave.resilience.Deadline;
 import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
 import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
-import io.minio.http.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Comparator;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -18,15 +25,27 @@ public class LageplanService {
 
     static final String SEPARATOR = "/";
 
-    private final S3Adapter s3Adapter;
+    private final LageplanS3Client lageplanS3Client;
+    private final LageplanPresigner lageplanPresigner;
+    private final NewestLageplanCache newestLageplanCache;
+    private final LatestLageplanPointer latestLageplanPointer;
+    private final MessstelleBloomFilter messstelleBloomFilter;
     private final String lageplaeneBasePath;
     private final Integer expirationInMinutes;
 
     public LageplanService(
-            final S3Adapter s3Adapter,
+            final LageplanS3Client lageplanS3Client,
+            final LageplanPresigner lageplanPresigner,
+            final NewestLageplanCache newestLageplanCache,
+            final LatestLageplanPointer latestLageplanPointer,
+            final MessstelleBloomFilter messstelleBloomFilter,
             @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
             @Value("${de.muenchen.dave.document-storage.lageplaene.expiration-in-minutes}") final Integer expirationInMinutes) {
-        this.s3Adapter = s3Adapter;
+        this.lageplanS3Client = lageplanS3Client;
+        this.lageplanPresigner = lageplanPresigner;
+        this.newestLageplanCache = newestLageplanCache;
+        this.latestLageplanPointer = latestLageplanPointer;
+        this.messstelleBloomFilter = messstelleBloomFilter;
         this.lageplaeneBasePath = basePath;
         this.expirationInMinutes = expirationInMinutes;
     }
@@ -41,10 +60,14 @@ public class LageplanService {
      */
     public DocumentDto getNewestLageplanForGivenMessstelleId(final String mstId) throws FileSystemAccessException, ResourceNotFoundException {
         final String pathToLageplan = buildPathToLageplan(lageplaeneBasePath, mstId);
-        final Optional<String> filePath = getFilePathOfNewestFileInFolderAndSubfolder(pathToLageplan);
-        if (filePath.isPresent()) {
-            final String url = s3Adapter.getPresignedUrl(filePath.get(), Method.GET, expirationInMinutes);
-            return new DocumentDto(url);
+        if (!messstelleBloomFilter.mightHaveLageplan(mstId)) {
+            log.debug("Kein Lageplan für Messstelle laut Bloom-Filter: {}", mstId);
+            throw new ResourceNotFoundException(pathToLageplan);
+        }
+        final Optional<FileMetadata> newest = getNewestFileInFolderAndSubfolder(pathToLageplan);
+        if (newest.isPresent()) {
+            Deadline.check(pathToLageplan);
+            return toDocumentDto(newest.get(), lageplanPresigner, expirationInMinutes);
         } else {
             log.error("Kein Dokument gefunden: {}", pathToLageplan);
             throw new ResourceNotFoundException(pathToLageplan);
@@ -52,32 +75,139 @@ public class LageplanService {
     }
 
     /**
-     * Liefert zurück, ob für eine bestimmte Messstelle ein Lageplan existiert.
+     * Liefert zurück, ob für eine bestimmte Messstelle ein Lageplan existiert. Anstelle der
+     * vollständigen Auflistung wird nur bis zum ersten Lageplan im Folder aufgelistet. Messstellen, die
+     * laut {@link MessstelleBloomFilter} sicher keinen Lageplan haben, werden ohne S3-Zugriff
+     * beantwortet. Ist der S3 nicht erreichbar, wird der letzte bekannte Stand aus dem
+     * {@link NewestLageplanCache} verwendet.
      *
      * @param mstId zur Ermittlung des Speicherorts des Lageplans.
      * @return true falls ein Lageplan exitiert andernfalls false.
-     * @throws FileSystemAccessException
-     * @throws ResourceNotFoundException
+     * @throws FileSystemAccessException falls der S3 nicht erreichbar ist und kein letzter bekannter
+     *             Stand vorliegt.
      */
     public Boolean lageplanForGivenMessstelleIdExists(final String mstId) throws FileSystemAccessException {
+        if (!messstelleBloomFilter.mightHaveLageplan(mstId)) {
+            return false;
+        }
         final String pathToLageplan = buildPathToLageplan(lageplaeneBasePath, mstId);
-        final Optional<String> filePath = getFilePathOfNewestFileInFolderAndSubfolder(pathToLageplan);
-        return filePath.isPresent();
+        try {
+            return lageplanS3Client.containsAnyFile(pathToLageplan);
+        } catch (FileSystemAccessException exception) {
+            final Optional<NewestLageplanCache.Entry> lastKnown = newestLageplanCache.getAndMarkStale(pathToLageplan);
+            if (lastKnown.isPresent()) {
+                log.warn("S3 nicht verfügbar, verwende Stand vom {} für Folder: {}", lastKnown.get().fetchedAt(), pathToLageplan);
+                return lastKnown.get().getNewest().isPresent();
+            }
+            log.error("Fehler beim Auslesen des Folders: {}", pathToLageplan);
+            throw exception;
+        }
     }
 
     protected Optional<String> getFilePathOfNewestFileInFolderAndSubfolder(final String pathToFile) throws FileSystemAccessException {
+        return getNewestFileInFolderAndSubfolder(pathToFile).map(FileMetadata::pathToFile);
+    }
+
+    /**
+     * Ermittelt die neueste Datei im Folder und dessen Subfoldern. Existiert ein gültiger
+     * {@link LatestLageplanPointer}, wird der Folder nicht aufgelistet. Ist der S3 nicht erreichbar,
+     * wird der letzte bekannte Stand aus dem {@link NewestLageplanCache} verwendet.
+     *
+     * @param pathToFile der Folder.
+     * @return die Metadaten der neuesten Datei, falls vorhanden.
+     * @throws FileSystemAccessException falls der S3 nicht erreichbar ist und kein letzter bekannter
+     *             Stand vorliegt.
+     */
+    Optional<FileMetadata> getNewestFileInFolderAndSubfolder(final String pathToFile) throws FileSystemAccessException {
         try {
-            return s3Adapter.getMetadataOfFilesFromFolder(pathToFile).stream()
-                    .max(Comparator.comparing(FileMetadata::lastModified))
-                    .map(FileMetadata::pathToFile);
+            return loadNewestFileInFolderAndSubfolder(pathToFile);
         } catch (FileSystemAccessException exception) {
+            final Optional<NewestLageplanCache.Entry> lastKnown = newestLageplanCache.getAndMarkStale(pathToFile);
+            if (lastKnown.isPresent()) {
+                log.warn("S3 nicht verfügbar, verwende Stand vom {} für Folder: {}", lastKnown.get().fetchedAt(), pathToFile);
+                return lastKnown.get().getNewest();
+            }
             log.error("Fehler beim Auslesen des Folders: {}", pathToFile);
             throw exception;
         }
+    }
 
+    /**
+     * Ermittelt die neueste Datei im Folder und dessen Subfoldern wie
+     * {@link #getNewestFileInFolderAndSubfolder(String)}, jedoch ohne auf den letzten bekannten Stand
+     * auszuweichen.
+     *
+     * @param pathToFile der Folder.
+     * @return die Metadaten der neuesten Datei, falls vorhanden.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    Optional<FileMetadata> loadNewestFileInFolderAndSubfolder(final String pathToFile) throws FileSystemAccessException {
+        final Optional<FileMetadata> pointer = latestLageplanPointer.read(pathToFile);
+        if (pointer.isPresent()) {
+            newestLageplanCache.put(pathToFile, pointer);
+            return pointer;
+        }
+        return reconcileNewestFileInFolderAndSubfolder(pathToFile);
+    }
+
+    /**
+     * Ermittelt die neueste Datei über die Auflistung des Folders und aktualisiert den Zeiger auf den
+     * neuesten Lageplan.
+     *
+     * @param pathToFile der Folder.
+     * @return die Metadaten der neuesten Datei, falls vorhanden.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    Optional<FileMetadata> reconcileNewestFileInFolderAndSubfolder(final String pathToFile) throws FileSystemAccessException {
+        final Optional<FileMetadata> newest = lageplanS3Client.getMetadataOfFilesFromFolder(pathToFile).stream()
+                .max(Comparator.comparing(FileMetadata::lastModified));
+        newest.ifPresent(fileMetadata -> latestLageplanPointer.write(pathToFile, fileMetadata));
+        newestLageplanCache.put(pathToFile, newest);
+        return newest;
+    }
+
+    /**
+     * Erstellt das Dokument zu bereits bekannten Metadaten eines Lageplans, ohne den Speicher erneut
+     * abzufragen.
+     *
+     * @param fileMetadata die Metadaten des Lageplans.
+     * @return das Dokument mit Presigned-URL.
+     * @throws FileSystemAccessException
+     */
+    public DocumentDto toDocumentDto(final FileMetadata fileMetadata) throws FileSystemAccessException {
+        return toDocumentDto(fileMetadata, lageplanPresigner, expirationInMinutes);
+    }
+
+    /**
+     * Erstellt die Presigned-URL und übernimmt die Metadaten der Datei. Der Ablaufzeitpunkt wird vor
+     * dem Signieren ermittelt und liegt damit nie nach dem tatsächlichen Ablauf der URL.
+     */
+    static DocumentDto toDocumentDto(final FileMetadata fileMetadata, final LageplanPresigner lageplanPresigner, final Integer expirationInMinutes)
+            throws FileSystemAccessException {
+        final Instant expiresAt = Instant.now().plus(Duration.ofMinutes(expirationInMinutes));
+        final String url = lageplanPresigner.getPresignedUrlForDownload(fileMetadata.pathToFile(), expirationInMinutes);
+        final String fileName = StringUtils.substringAfterLast(SEPARATOR + fileMetadata.pathToFile(), SEPARATOR);
+        final String contentType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        final Instant lastModified = fileMetadata.lastModified() == null ? null : fileMetadata.lastModified().toInstant(ZoneOffset.UTC);
+        return new DocumentDto(url, fileName, contentType, fileMetadata.fileSize(), lastModified, expiresAt);
+    }
+
+    /**
+     * @param lageplaeneBasePath der Basispfad mit abschließendem Trennzeichen.
+     * @param pathToFile der Pfad einer Datei unterhalb des Basispfads.
+     * @return die Messstelle, zu deren Lageplan-Folder die Datei gehört, oder null für Dateien direkt
+     *         im Basispfad, z.B. die Zeiger auf den neuesten Lageplan.
+     */
+    static String extractMstId(final String lageplaeneBasePath, final String pathToFile) {
+        if (!pathToFile.startsWith(lageplaeneBasePath)) {
+            return null;
+        }
+        final String relativePath = pathToFile.substring(lageplaeneBasePath.length());
+        final int separator = relativePath.indexOf(SEPARATOR);
+        return separator <= 0 ? null : relativePath.substring(0, separator);
     }
 
-    private String buildPathToLageplan(final String lageplaeneBasePath, String mstId) {
+    static String buildPathToLageplan(final String lageplaeneBasePath, String mstId) {
         return lageplaeneBasePath + (lageplaeneBasePath.endsWith(SEPARATOR) ? mstId : SEPARATOR + mstId) + SEPARATOR;
     }
 }
@@ -0,0 +1,85 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanPresigner;
+import de.muenchen.dave.lageplaene.adapter.s3.S3MultipartUploader;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class LageplanUploadService {
+
+    private final S3MultipartUploader s3MultipartUploader;
+    private final LageplanPresigner lageplanPresigner;
+    private final NewestLageplanCache newestLageplanCache;
+    private final LatestLageplanPointer latestLageplanPointer;
+    private final LageplanChangeService lageplanChangeService;
+    private final String lageplaeneBasePath;
+    private final Integer expirationInMinutes;
+
+    public LageplanUploadService(
+            final S3MultipartUploader s3MultipartUploader,
+            final LageplanPresigner lageplanPresigner,
+            final NewestLageplanCache newestLageplanCache,
+            final LatestLageplanPointer latestLageplanPointer,
+            final LageplanChangeService lageplanChangeService,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.expiration-in-minutes}") final Integer expirationInMinutes) {
+        this.s3MultipartUploader = s3MultipartUploader;
+        this.lageplanPresigner = lageplanPresigner;
+        this.newestLageplanCache = newestLageplanCache;
+        this.latestLageplanPointer = latestLageplanPointer;
+        this.lageplanChangeService = lageplanChangeService;
+        this.lageplaeneBasePath = basePath;
+        this.expirationInMinutes = expirationInMinutes;
+    }
+
+    /**
+     * Lädt einen neuen Lageplan für eine gegebene Messstelle hoch. Der Lageplan wird direkt als
+     * neuester Lageplan der Messstelle vorgehalten.
+     *
+     * @param mstId zur Ermittlung des Speicherorts des Lageplans.
+     * @param fileName der ursprüngliche Dateiname.
+     * @param contentType der Content-Type der Datei.
+     * @param inputStream der Inhalt der Datei.
+     * @return die Presigned-URL zum holen des hochgeladenen Lageplans.
+     * @throws FileSystemAccessException
+     * @throws IOException beim Lesen des Datenstroms.
+     * @throws BadRequestException bei ungültiger Messstelle, fehlendem Dateinamen oder leerer Datei.
+     */
+    public DocumentDto uploadLageplan(final String mstId, final String fileName, final String contentType, final InputStream inputStream)
+            throws FileSystemAccessException, IOException, BadRequestException {
+        if (StringUtils.containsAny(mstId, '/', '\\') || mstId.contains("..")) {
+            throw new BadRequestException("Ungültige Messstelle: " + mstId);
+        }
+        final String name = FilenameUtils.getName(StringUtils.trimToEmpty(fileName));
+        if (StringUtils.isBlank(name)) {
+            throw new BadRequestException("Kein Dateiname angegeben");
+        }
+        final String pathToLageplan = LageplanService.buildPathToLageplan(lageplaeneBasePath, mstId);
+        final S3MultipartUploader.UploadResult result;
+        try {
+            result = s3MultipartUploader.upload(pathToLageplan + name, contentType, inputStream);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException(exception.getMessage());
+        }
+        log.info("Neuer Lageplan hochgeladen: {}", result.pathToFile());
+        final var fileMetadata = new FileMetadata(result.pathToFile(), result.size(), result.etag(), LocalDateTime.now(ZoneOffset.UTC));
+        latestLageplanPointer.write(pathToLageplan, fileMetadata);
+        newestLageplanCache.put(pathToLageplan, Optional.of(fileMetadata));
+        lageplanChangeService.record(mstId, fileMetadata);
+        return LageplanService.toDocumentDto(fileMetadata, lageplanPresigner, expirationInMinutes);
+    }
+}
@@ -0,0 +1,142 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verwaltet je Messstelle ein kleines Zeigerobjekt mit den Metadaten des neuesten Lageplans.
+ * <p>
+ * Der Zeiger liegt neben dem Lageplan-Folder, z.B. {@code .../Lageplaene/4001.latest.json} für den
+ * Folder {@code .../Lageplaene/4001/}, und wird daher bei der Auflistung des Folders nicht
+ * berücksichtigt. Die Ermittlung des neuesten Lageplans kostet damit nur einen einzelnen GET,
+ * unabhängig von der Anzahl der Lagepläne im Folder. Ein Zeiger, der älter als {@code maxAge} ist,
+ * wird ignoriert, so dass außerhalb des Service abgelegte Lagepläne spätestens dann berücksichtigt
+ * werden.
+ */
+@Component
+@Slf4j
+public class LatestLageplanPointer {
+
+    static final String SUFFIX = ".latest.json";
+
+    private final LageplanS3Client lageplanS3Client;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final Duration maxAge;
+
+    private final Clock clock;
+
+    @Autowired
+    public LatestLageplanPointer(
+            final LageplanS3Client lageplanS3Client,
+            final ObjectMapper objectMapper,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.latest-pointer.enabled:true}") final boolean enabled,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.latest-pointer.max-age:PT1H}") final Duration maxAge) {
+        this(lageplanS3Client, objectMapper, enabled, maxAge, Clock.systemUTC());
+    }
+
+    LatestLageplanPointer(final LageplanS3Client lageplanS3Client, final ObjectMapper objectMapper, final boolean enabled, final Duration maxAge,
+            final Clock clock) {
+        this.lageplanS3Client = lageplanS3Client;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    /**
+     * Liest den Zeiger auf den neuesten Lageplan im Folder.
+     *
+     * @param folder der Lageplan-Folder.
+     * @return die Metadaten des neuesten Lageplans oder leer, falls kein gültiger Zeiger existiert.
+     * @throws FileSystemAccessException bei einem Fehler im S3.
+     */
+    public Optional<FileMetadata> read(final String folder) throws FileSystemAccessException {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        final Optional<String> content = lageplanS3Client.getObject(pointerPath(folder));
+        if (content.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            final Pointer pointer = objectMapper.readValue(content.get(), Pointer.class);
+            if (pointer.updatedAt() == null || pointer.updatedAt().plus(maxAge).isBefore(clock.instant())) {
+                log.debug("Zeiger auf neuesten Lageplan veraltet: {}", folder);
+                return Optional.empty();
+            }
+            return Optional.of(new FileMetadata(pointer.pathToFile(), pointer.fileSize(), pointer.etag(), pointer.lastModified()));
+        } catch (JsonProcessingException exception) {
+            log.warn("Zeiger auf neuesten Lageplan nicht lesbar: {}", folder, exception);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Schreibt den Zeiger auf den neuesten Lageplan im Folder. Fehler werden nur protokolliert, da
+     * der Zeiger jederzeit über die Auflistung des Folders neu ermittelt werden kann. Der bisherige
+     * Zeiger wird in diesem Fall gelöscht, damit er nicht bis zum Ablauf von {@code maxAge} einen
+     * älteren Lageplan liefert.
+     *
+     * @param folder der Lageplan-Folder.
+     * @param newest die Metadaten des neuesten Lageplans.
+     */
+    public void write(final String folder, final FileMetadata newest) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            final Pointer pointer = new Pointer(newest.pathToFile(), newest.fileSize(), newest.etag(), newest.lastModified(), clock.instant());
+            final byte[] content = objectMapper.writeValueAsString(pointer).getBytes(StandardCharsets.UTF_8);
+            lageplanS3Client.putObject(pointerPath(folder), MediaType.APPLICATION_JSON_VALUE, content);
+        } catch (FileSystemAccessException | JsonProcessingException | RuntimeException exception) {
+            log.warn("Zeiger auf neuesten Lageplan konnte nicht geschrieben werden: {}", folder, exception);
+            delete(folder);
+        }
+    }
+
+    /**
+     * Löscht den Zeiger, z.B. nachdem der letzte Lageplan im Folder entfernt wurde. Fehler werden nur
+     * protokolliert, da ein verwaister Zeiger spätestens nach {@code maxAge} ignoriert wird.
+     *
+     * @param folder der Lageplan-Folder.
+     */
+    public void delete(final String folder) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            lageplanS3Client.deleteObject(pointerPath(folder));
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Zeiger auf neuesten Lageplan konnte nicht gelöscht werden: {}", folder, exception);
+        }
+    }
+
+    static String pointerPath(final String folder) {
+        return StringUtils.removeEnd(folder, LageplanService.SEPARATOR) + SUFFIX;
+    }
+
+    /**
+     * @param updatedAt der Zeitpunkt, zu dem der Zeiger geschrieben wurde.
+     */
+    record Pointer(String pathToFile, Long fileSize, String etag, LocalDateTime lastModified, Instant updatedAt) {
+    }
+}
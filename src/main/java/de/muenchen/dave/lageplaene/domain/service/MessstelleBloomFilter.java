@@ -0,0 +1,138 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält einen {@link BloomFilter} aller Messstellen mit Lageplan vor, um Anfragen zu Messstellen
+ * ohne Lageplan ohne S3-Zugriff zu beantworten.
+ * <p>
+ * Der Filter wird periodisch aus dem {@link MessstelleCatalog} neu aufgebaut und zwischenzeitlich um
+ * neue Lagepläne aus {@link LageplanChangedEvent}s ergänzt. Entfernte Messstellen bleiben bis zum
+ * nächsten Neuaufbau enthalten, was nur zu einem zusätzlichen S3-Zugriff führt. Solange der Filter
+ * noch nicht aufgebaut werden konnte, werden alle Anfragen an den S3 weitergeleitet.
+ * <p>
+ * Neue Lagepläne, die über eine andere Instanz oder direkt im S3 hochgeladen wurden, sind ohne
+ * aktivierten Cluster bzw. S3-Benachrichtigung erst enthalten, sobald die Auflistung des
+ * {@link LageplanChangeService} sie als Änderung meldet, also nach höchstens "changes.scan-interval".
+ * Ist die Auflistung abgeschaltet, verzögert sich dies bis zu "rebuild-interval" zuzüglich
+ * "catalog.max-age".
+ */
+@Component
+@Slf4j
+public class MessstelleBloomFilter {
+
+    private final MessstelleCatalog messstelleCatalog;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final double headroom;
+    private final Counter negatives;
+
+    private volatile BloomFilter bloomFilter;
+
+    /**
+     * Die während eines Neuaufbaus hinzugekommenen Messstellen, die in den neuen Filter zu übernehmen
+     * sind.
+     */
+    private List<String> addedDuringRebuild;
+
+    @Autowired
+    public MessstelleBloomFilter(
+            final MessstelleCatalog messstelleCatalog,
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.bloom-filter.enabled:true}") final boolean enabled,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.bloom-filter.false-positive-rate:0.01}") final double falsePositiveRate,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.bloom-filter.headroom:0.2}") final double headroom) {
+        this.messstelleCatalog = messstelleCatalog;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.headroom = headroom;
+        Gauge.builder("dave.lageplaene.bloomfilter.size", this, MessstelleBloomFilter::getSizeInBytes)
+                .description("Speicherbedarf des Bloom-Filters der Messstellen mit Lageplan")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.negatives = Counter.builder("dave.lageplaene.bloomfilter.negatives")
+                .description("Anzahl der ohne S3-Zugriff beantworteten Anfragen zu Messstellen ohne Lageplan")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param mstId die Messstelle.
+     * @return false falls für die Messstelle sicher kein Lageplan existiert.
+     */
+    public boolean mightHaveLageplan(final String mstId) {
+        final BloomFilter current = bloomFilter;
+        if (current == null || current.mightContain(mstId)) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Baut den Filter aus dem aktuellen Verzeichnis der Messstellen neu auf. Die Größe wird dabei
+     * mit einem Zuschlag für zwischenzeitlich hinzukommende Messstellen bemessen.
+     */
+    @Scheduled(
+            initialDelayString = "${de.muenchen.dave.document-storage.lageplaene.bloom-filter.initial-delay:PT15S}",
+            fixedDelayString = "${de.muenchen.dave.document-storage.lageplaene.bloom-filter.rebuild-interval:PT5M}"
+    )
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+        try {
+            final List<String> mstIds = messstelleCatalog.getMstIdsWithPrefix("");
+            final BloomFilter rebuilt = new BloomFilter((int) Math.ceil(mstIds.size() * (1 + headroom)), falsePositiveRate);
+            mstIds.forEach(rebuilt::put);
+            synchronized (this) {
+                addedDuringRebuild.forEach(rebuilt::put);
+                bloomFilter = rebuilt;
+            }
+            log.debug("Bloom-Filter mit {} Messstellen, {} Bytes und {} Hashfunktionen aufgebaut", mstIds.size(), rebuilt.getSizeInBytes(),
+                    rebuilt.getHashCount());
+        } catch (FileSystemAccessException | RuntimeException exception) {
+            log.warn("Bloom-Filter der Messstellen konnte nicht neu aufgebaut werden", exception);
+        } finally {
+            synchronized (this) {
+                addedDuringRebuild = null;
+            }
+        }
+    }
+
+    /**
+     * Ergänzt den Filter um Messstellen mit neuem Lageplan.
+     *
+     * @param event das Event.
+     */
+    @EventListener
+    public synchronized void onLageplanChanged(final LageplanChangedEvent event) {
+        if (event.removed()) {
+            return;
+        }
+        if (bloomFilter != null) {
+            bloomFilter.put(event.mstId());
+        }
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(event.mstId());
+        }
+    }
+
+    long getSizeInBytes() {
+        final BloomFilter current = bloomFilter;
+        return current == null ? 0 : current.getSizeInBytes();
+    }
+}
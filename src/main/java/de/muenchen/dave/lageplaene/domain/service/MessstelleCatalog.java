@@ -0,0 +1,188 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.api.dto.MessstellenDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListSet;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verzeichnis aller Messstellen, für die ein Lageplan existiert.
+ * <p>
+ * Die Messstellen werden über eine Auflistung des Basispfads mit Trennzeichen ermittelt, so dass
+ * nur die Subfolder und nicht die einzelnen Lagepläne aufgelistet werden. Das Ergebnis wird für
+ * {@code maxAge} vorgehalten und zwischenzeitlich über {@link LageplanChangedEvent}s fortgeschrieben.
+ * Kann das Verzeichnis nicht neu geladen werden, wird der letzte Stand weiter ausgeliefert.
+ * <p>
+ * Die Seiten werden über die zuletzt gelieferte Messstelle fortgesetzt, so dass zwischenzeitlich
+ * hinzugekommene oder entfernte Messstellen nicht zu Lücken oder Dopplungen führen.
+ */
+@Component
+@Slf4j
+public class MessstelleCatalog {
+
+    public enum Order {
+        ASC,
+        DESC
+    }
+
+    private final LageplanS3Client lageplanS3Client;
+    private final String lageplaeneBasePath;
+    private final Duration maxAge;
+    private final int maxLimit;
+    private final Clock clock;
+
+    private volatile NavigableSet<String> mstIds;
+
+    private volatile Instant loadedAt = Instant.MIN;
+
+    @Autowired
+    public MessstelleCatalog(
+            final LageplanS3Client lageplanS3Client,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.base-path}") final String basePath,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.catalog.max-age:PT5M}") final Duration maxAge,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.catalog.max-limit:10000}") final int maxLimit) {
+        this(lageplanS3Client, basePath, maxAge, maxLimit, Clock.systemUTC());
+    }
+
+    MessstelleCatalog(final LageplanS3Client lageplanS3Client, final String basePath, final Duration maxAge, final int maxLimit,
+            final Clock clock) {
+        this.lageplanS3Client = lageplanS3Client;
+        this.lageplaeneBasePath = StringUtils.appendIfMissing(basePath, LageplanService.SEPARATOR);
+        this.maxAge = maxAge;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+    }
+
+    /**
+     * Liefert eine Seite der Messstellen in lexikographischer Reihenfolge.
+     *
+     * @param prefix der Präfix der Messstellen, falls nur diese geliefert werden sollen.
+     * @param order die Reihenfolge.
+     * @param continuationToken das Token der vorherigen Seite.
+     * @param limit die maximale Anzahl an Messstellen je Seite.
+     * @return die Messstellen und, falls weitere folgen, das Token für die nächste Seite.
+     * @throws FileSystemAccessException falls das Verzeichnis noch nie geladen werden konnte.
+     * @throws BadRequestException bei einem ungültigen Token.
+     */
+    public MessstellenDto getMessstellen(final String prefix, final Order order, final String continuationToken, final int limit)
+            throws FileSystemAccessException, BadRequestException {
+        NavigableSet<String> candidates = getSnapshot();
+        if (StringUtils.isNotEmpty(prefix)) {
+            candidates = candidates.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+        if (order == Order.DESC) {
+            candidates = candidates.descendingSet();
+        }
+        if (StringUtils.isNotEmpty(continuationToken)) {
+            candidates = candidates.tailSet(decode(continuationToken), false);
+        }
+        final int pageSize = Math.clamp(limit, 1, maxLimit);
+        final List<String> page = new ArrayList<>(Math.min(pageSize, candidates.size()));
+        boolean hasMore = false;
+        for (final String mstId : candidates) {
+            if (page.size() == pageSize) {
+                hasMore = true;
+                break;
+            }
+            page.add(mstId);
+        }
+        return new MessstellenDto(page, hasMore ? encode(page.getLast()) : null);
+    }
+
+    /**
+     * @param prefix der Präfix der Messstellen.
+     * @return alle Messstellen mit dem Präfix in lexikographischer Reihenfolge.
+     * @throws FileSystemAccessException falls das Verzeichnis noch nie geladen werden konnte.
+     */
+    public List<String> getMstIdsWithPrefix(final String prefix) throws FileSystemAccessException {
+        return List.copyOf(getSnapshot().subSet(prefix, true, prefix + Character.MAX_VALUE, false));
+    }
+
+    /**
+     * Schreibt das Verzeichnis bei einem neuen bzw. entfernten Lageplan fort.
+     *
+     * @param event das Event.
+     */
+    @EventListener
+    public void onLageplanChanged(final LageplanChangedEvent event) {
+        final NavigableSet<String> current = mstIds;
+        if (current == null) {
+            return;
+        }
+        if (event.removed()) {
+            current.remove(event.mstId());
+        } else {
+            current.add(event.mstId());
+        }
+    }
+
+    private NavigableSet<String> getSnapshot() throws FileSystemAccessException {
+        final NavigableSet<String> current = mstIds;
+        if (current != null && loadedAt.plus(maxAge).isAfter(clock.instant())) {
+            return current;
+        }
+        synchronized (this) {
+            if (mstIds != current) {
+                return mstIds;
+            }
+            try {
+                final NavigableSet<String> loaded = load();
+                mstIds = loaded;
+                loadedAt = clock.instant();
+                log.debug("Verzeichnis mit {} Messstellen geladen", loaded.size());
+                return loaded;
+            } catch (FileSystemAccessException exception) {
+                if (current == null) {
+                    throw exception;
+                }
+                log.warn("Verzeichnis der Messstellen konnte nicht neu geladen werden, letzter Stand wird verwendet", exception);
+                return current;
+            }
+        }
+    }
+
+    private NavigableSet<String> load() throws FileSystemAccessException {
+        final NavigableSet<String> loaded = new ConcurrentSkipListSet<>();
+        if (lageplanS3Client.isDelimiterListingSupported()) {
+            for (final String subfolder : lageplanS3Client.getSubfolders(lageplaeneBasePath)) {
+                loaded.add(StringUtils.removeEnd(subfolder.substring(lageplaeneBasePath.length()), LageplanService.SEPARATOR));
+            }
+        } else {
+            lageplanS3Client.getMetadataOfFilesFromFolder(lageplaeneBasePath).stream()
+                    .map(FileMetadata::pathToFile)
+                    .map(pathToFile -> LageplanService.extractMstId(lageplaeneBasePath, pathToFile))
+                    .filter(Objects::nonNull)
+                    .forEach(loaded::add);
+        }
+        return loaded;
+    }
+
+    private static String encode(final String mstId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(mstId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(final String token) throws BadRequestException {
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException exception) {
+            throw new BadRequestException("Ungültiges Continuation-Token");
+        }
+    }
+}
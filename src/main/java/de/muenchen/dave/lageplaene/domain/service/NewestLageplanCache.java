@@ -0,0 +1,127 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hält je Lageplan-Folder den zuletzt aus dem S3 ermittelten neuesten Lageplan vor.
+ * <p>
+ * Die Einträge dienen als letzter bekannter Stand, falls der S3 nicht erreichbar ist. Ein Eintrag,
+ * der ersatzweise ausgeliefert wurde, wird als veraltet markiert und nach Wiederverfügbarkeit des
+ * S3 asynchron aktualisiert.
+ * <p>
+ * Die Einträge werden in einem {@link CompactLageplanIndex} gehalten, so dass auch bei einer
+ * sehr großen Anzahl an Messstellen kein Objekt je Eintrag auf dem Heap anfällt.
+ */
+@Component
+@Slf4j
+public class NewestLageplanCache {
+
+    private final CompactLageplanIndex entries = new CompactLageplanIndex();
+
+    private final int maxEntries;
+
+    private final Clock clock;
+
+    @Autowired
+    public NewestLageplanCache(
+            final MeterRegistry meterRegistry,
+            @Value("${de.muenchen.dave.document-storage.lageplaene.cache.max-entries:100000}") final int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+        Gauge.builder("dave.lageplaene.cache.entries", entries, CompactLageplanIndex::size)
+                .description("Anzahl der vorgehaltenen neuesten Lagepläne")
+                .register(meterRegistry);
+        Gauge.builder("dave.lageplaene.cache.memory", entries, CompactLageplanIndex::getHeapBytes)
+                .description("Speicherbedarf der vorgehaltenen neuesten Lagepläne")
+                .baseUnit("bytes")
+                .tag("area", "heap")
+                .register(meterRegistry);
+        Gauge.builder("dave.lageplaene.cache.memory", entries, CompactLageplanIndex::getOffHeapBytes)
+                .description("Speicherbedarf der vorgehaltenen neuesten Lagepläne")
+                .baseUnit("bytes")
+                .tag("area", "off-heap")
+                .register(meterRegistry);
+    }
+
+    NewestLageplanCache(final int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+    }
+
+    NewestLageplanCache(final int maxEntries, final Clock clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Speichert das Ergebnis einer erfolgreichen Abfrage im S3.
+     *
+     * @param folder der Lageplan-Folder.
+     * @param newest der neueste Lageplan im Folder, falls vorhanden.
+     */
+    public void put(final String folder, final Optional<FileMetadata> newest) {
+        if (!entries.put(folder, newest.orElse(null), clock.instant(), maxEntries)) {
+            log.debug("Maximale Anzahl an Einträgen erreicht, {} wird nicht vorgehalten", folder);
+        }
+    }
+
+    /**
+     * Speichert den neuesten Lageplan aus einer Auflistung, sofern kein neuerer Stand vorgehalten
+     * wird. Ein während der Auflistung hochgeladener oder entfernter Lageplan wird so nicht durch den
+     * älteren Stand der Auflistung überschrieben.
+     *
+     * @param folder der Lageplan-Folder.
+     * @param newest der neueste Lageplan im Folder laut Auflistung.
+     */
+    public void putIfNotOlder(final String folder, final FileMetadata newest) {
+        if (!entries.put(folder, newest, clock.instant(), maxEntries, true)) {
+            log.debug("Maximale Anzahl an Einträgen erreicht, {} wird nicht vorgehalten", folder);
+        }
+    }
+
+    /**
+     * Entfernt den Eintrag des Folders, z.B. nach einem Import neuer Lagepläne.
+     *
+     * @param folder der Lageplan-Folder.
+     */
+    public void invalidate(final String folder) {
+        entries.remove(folder);
+    }
+
+    /**
+     * Liefert den letzten bekannten Stand für den Folder und markiert diesen als veraltet.
+     *
+     * @param folder der Lageplan-Folder.
+     * @return der letzte bekannte Stand, falls vorhanden.
+     */
+    public Optional<Entry> getAndMarkStale(final String folder) {
+        return Optional.ofNullable(entries.getAndMarkStale(folder));
+    }
+
+    /**
+     * @return die Folder, deren Einträge veraltet sind.
+     */
+    public List<String> getStaleFolders() {
+        return entries.getStaleFolders();
+    }
+
+    /**
+     * @param newest der neueste Lageplan oder null, falls im Folder kein Lageplan existiert.
+     * @param fetchedAt der Zeitpunkt der Abfrage im S3.
+     * @param stale true falls der Eintrag ersatzweise ausgeliefert wurde und zu aktualisieren ist.
+     */
+    public record Entry(FileMetadata newest, Instant fetchedAt, boolean stale) {
+
+        public Optional<FileMetadata> getNewest() {
+            return Optional.ofNullable(newest);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aktualisiert die während eines S3-Ausfalls ersatzweise ausgelieferten Einträge des
+ * {@link NewestLageplanCache}, sobald der S3 wieder erreichbar ist.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaleLageplanRefresher {
+
+    private final LageplanService lageplanService;
+
+    private final NewestLageplanCache newestLageplanCache;
+
+    private final LageplanS3Client lageplanS3Client;
+
+    @Scheduled(fixedDelayString = "${de.muenchen.dave.document-storage.lageplaene.cache.stale-refresh-interval:PT30S}")
+    public void refreshStaleEntries() {
+        final List<String> staleFolders = newestLageplanCache.getStaleFolders();
+        if (staleFolders.isEmpty() || lageplanS3Client.isUnavailable()) {
+            return;
+        }
+        log.info("Aktualisiere {} veraltete Lageplan-Einträge", staleFolders.size());
+        for (final String folder : staleFolders) {
+            try {
+                lageplanService.loadNewestFileInFolderAndSubfolder(folder);
+            } catch (FileSystemAccessException exception) {
+                log.warn("Aktualisierung abgebrochen, S3 weiterhin nicht verfügbar: {}", folder);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * Begrenzt die Anzahl gleichzeitiger Aufrufe einer Operation.
+ * <p>
+ * Ist keine Ausführungserlaubnis frei, wartet ein Aufruf höchstens {@code maxWaitDuration} in
+ * einer auf {@code maxQueueSize} begrenzten Warteschlange. Ist die Warteschlange voll oder läuft
+ * die Wartezeit ab, wird der Aufruf abgewiesen.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final int maxConcurrentCalls;
+
+    private final int maxQueueSize;
+
+    private final Duration maxWaitDuration;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    public Bulkhead(final String name, final int maxConcurrentCalls, final int maxQueueSize, final Duration maxWaitDuration) {
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxQueueSize = maxQueueSize;
+        this.maxWaitDuration = maxWaitDuration;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * Versucht eine Ausführungserlaubnis zu erhalten. Eine erhaltene Erlaubnis muss mit
+     * {@link #release()} zurückgegeben werden.
+     *
+     * @return true falls der Aufruf ausgeführt werden darf.
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(maxWaitDuration);
+    }
+
+    /**
+     * Versucht eine Ausführungserlaubnis zu erhalten und wartet dabei höchstens die kürzere der
+     * beiden Wartezeiten.
+     *
+     * @param maxWait die maximale Wartezeit des Aufrufers, z.B. die bis zur Deadline verbleibende Zeit.
+     * @return true falls der Aufruf ausgeführt werden darf.
+     */
+    public boolean tryAcquire(final Duration maxWait) {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queueDepth.incrementAndGet() > maxQueueSize) {
+            queueDepth.decrementAndGet();
+            rejectedCalls.increment();
+            return false;
+        }
+        try {
+            final Duration wait = maxWait.compareTo(maxWaitDuration) < 0 ? maxWait : maxWaitDuration;
+            if (permits.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            rejectedCalls.increment();
+            return false;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            rejectedCalls.increment();
+            return false;
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return die Anzahl der aktuell wartenden Aufrufe.
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return die Anzahl der aktuell ausgeführten Aufrufe.
+     */
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    /**
+     * @return die Anzahl der seit dem Start abgewiesenen Aufrufe.
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+}
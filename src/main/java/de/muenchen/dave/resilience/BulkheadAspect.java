@@ -0,0 +1,43 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Führt die mit {@link WithBulkhead} annotierten Methoden innerhalb des jeweiligen
+ * {@link Bulkhead} aus. Die Wartezeit ist zusätzlich durch die {@link Deadline} des Requests
+ * begrenzt.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkheadAspect {
+
+    private final BulkheadRegistry bulkheadRegistry;
+
+    @Around("@annotation(withBulkhead)")
+    public Object executeWithinBulkhead(final ProceedingJoinPoint joinPoint, final WithBulkhead withBulkhead) throws Throwable {
+        final Bulkhead bulkhead = bulkheadRegistry.get(withBulkhead.value());
+        final boolean acquired = Deadline.remaining()
+                .map(bulkhead::tryAcquire)
+                .orElseGet(bulkhead::tryAcquire);
+        if (!acquired) {
+            log.warn("Aufruf wegen Überlast abgewiesen: {}", bulkhead.getName());
+            throw new BulkheadFullException(bulkhead.getName(), bulkheadRegistry.getRetryAfter(bulkhead.getName()));
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
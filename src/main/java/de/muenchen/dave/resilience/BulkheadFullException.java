@@ -0,0 +1,22 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Wird geworfen, falls ein Aufruf durch einen {@link Bulkhead} abgewiesen wurde.
+ */
+@Getter
+public class BulkheadFullException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public BulkheadFullException(final String bulkheadName, final Duration retryAfter) {
+        super("Bulkhead ausgelastet: " + bulkheadName);
+        this.retryAfter = retryAfter;
+    }
+}
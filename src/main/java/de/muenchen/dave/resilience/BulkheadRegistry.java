@@ -0,0 +1,77 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erzeugt und verwaltet die {@link Bulkhead}s je Operation.
+ * <p>
+ * Die Grenzen werden je Name unter "de.muenchen.dave.document-storage.bulkhead.&lt;name&gt;"
+ * konfiguriert. Fehlt eine Konfiguration, gelten die Werte unter "...bulkhead.default".
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkheadRegistry {
+
+    private static final String PREFIX = "de.muenchen.dave.document-storage.bulkhead.";
+
+    private static final String DEFAULT = "default";
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public Bulkhead get(final String name) {
+        return bulkheads.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * @param name der Name des Bulkheads.
+     * @return die dem Client empfohlene Wartezeit bis zum nächsten Versuch.
+     */
+    public Duration getRetryAfter(final String name) {
+        return getProperty(name, "retry-after", Duration.class, Duration.ofSeconds(1));
+    }
+
+    private Bulkhead create(final String name) {
+        final Bulkhead bulkhead = new Bulkhead(
+                name,
+                getProperty(name, "max-concurrent-calls", Integer.class, 20),
+                getProperty(name, "max-queue-size", Integer.class, 50),
+                getProperty(name, "max-wait-duration", Duration.class, Duration.ofMillis(500)));
+        Gauge.builder("dave.bulkhead.queue.depth", bulkhead, Bulkhead::getQueueDepth)
+                .description("Anzahl der auf eine Ausführung wartenden Aufrufe")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("dave.bulkhead.active.calls", bulkhead, Bulkhead::getActiveCalls)
+                .description("Anzahl der aktuell ausgeführten Aufrufe")
+                .tag("name", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("dave.bulkhead.rejected.calls", bulkhead, Bulkhead::getRejectedCalls)
+                .description("Anzahl der wegen Überlast abgewiesenen Aufrufe")
+                .tag("name", name)
+                .register(meterRegistry);
+        log.info("Bulkhead {} mit {} gleichzeitigen Aufrufen erstellt", name, bulkhead.getMaxConcurrentCalls());
+        return bulkhead;
+    }
+
+    private <T> T getProperty(final String name, final String key, final Class<T> type, final T defaultValue) {
+        final T fallback = environment.getProperty(PREFIX + DEFAULT + "." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + name + "." + key, type, fallback);
+    }
+}
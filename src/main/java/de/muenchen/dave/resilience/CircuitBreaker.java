@@ -0,0 +1,130 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Einfacher Circuit-Breaker auf Basis aufeinanderfolgender Fehler.
+ * <p>
+ * Nach {@code failureThreshold} aufeinanderfolgenden Fehlern oder zu langsamen Aufrufen wird der
+ * Circuit-Breaker für {@code openDuration} geöffnet und weist alle Aufrufe sofort ab. Danach wird
+ * genau ein Probeaufruf zugelassen, dessen Ergebnis über Schließen oder erneutes Öffnen entscheidet.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final Duration openDuration;
+
+    private final Duration slowCallDuration;
+
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private Instant openedAt;
+
+    private boolean trialCallInFlight;
+
+    public CircuitBreaker(final String name, final int failureThreshold, final Duration openDuration, final Duration slowCallDuration,
+            final Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.slowCallDuration = slowCallDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Prüft, ob ein Aufruf durchgeführt werden darf. Jeder zugelassene Aufruf muss mit
+     * {@link #onSuccess(Duration)}, {@link #onError()} oder {@link #release()} abgeschlossen werden.
+     *
+     * @return true falls der Aufruf durchgeführt werden darf.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialCallInFlight = false;
+            log.info("Circuit-Breaker {} ist halb offen", name);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallInFlight) {
+                return false;
+            }
+            trialCallInFlight = true;
+        }
+        return true;
+    }
+
+    /**
+     * Meldet einen erfolgreichen Aufruf. Überschreitet die Dauer die Grenze für langsame Aufrufe, wird
+     * der Aufruf als Fehler gewertet.
+     *
+     * @param duration die Dauer des Aufrufs.
+     */
+    public synchronized void onSuccess(final Duration duration) {
+        if (duration.compareTo(slowCallDuration) > 0) {
+            log.debug("Langsamer Aufruf über Circuit-Breaker {}: {}", name, duration);
+            onError();
+            return;
+        }
+        if (state != State.CLOSED) {
+            log.info("Circuit-Breaker {} ist geschlossen", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialCallInFlight = false;
+    }
+
+    /**
+     * Meldet einen fehlgeschlagenen Aufruf.
+     */
+    public synchronized void onError() {
+        trialCallInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.instant();
+            log.warn("Circuit-Breaker {} ist nach {} Fehlern geöffnet", name, consecutiveFailures);
+        }
+    }
+
+    /**
+     * Gibt eine Erlaubnis ohne Bewertung zurück, z.B. wenn der Aufruf wegen einer überschrittenen
+     * Deadline des Clients abgebrochen wurde.
+     */
+    public synchronized void release() {
+        trialCallInFlight = false;
+    }
+
+    /**
+     * @return true falls Aufrufe aktuell sofort abgewiesen werden.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.instant().isBefore(openedAt.plus(openDuration));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
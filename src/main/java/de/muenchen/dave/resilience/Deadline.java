@@ -0,0 +1,80 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Hält die Deadline des aktuell bearbeiteten Requests für den bearbeitenden Thread vor.
+ * <p>
+ * Die Deadline wird durch den {@link DeadlineFilter} gesetzt und von allen nachgelagerten
+ * S3-Zugriffen als Obergrenze der Wartezeit verwendet.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * Setzt die Deadline für den aktuellen Thread.
+     *
+     * @param timeout die ab jetzt verbleibende Zeit.
+     */
+    public static void start(final Duration timeout) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * @return die verbleibende Zeit bis zur Deadline, falls eine Deadline gesetzt ist. Die Zeit ist
+     *         negativ, falls die Deadline bereits überschritten ist.
+     */
+    public static Optional<Duration> remaining() {
+        final Long deadlineNanos = DEADLINE_NANOS.get();
+        return deadlineNanos == null ? Optional.empty() : Optional.of(Duration.ofNanos(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Überträgt die Deadline des aktuellen Threads auf einen Aufruf, der in einem anderen Thread
+     * ausgeführt wird.
+     *
+     * @param callable der Aufruf.
+     * @param <T> der Ergebnistyp.
+     * @return der Aufruf, der mit der Deadline des aktuellen Threads ausgeführt wird.
+     */
+    public static <T> Callable<T> propagate(final Callable<T> callable) {
+        final Long deadlineNanos = DEADLINE_NANOS.get();
+        if (deadlineNanos == null) {
+            return callable;
+        }
+        return () -> {
+            DEADLINE_NANOS.set(deadlineNanos);
+            try {
+                return callable.call();
+            } finally {
+                DEADLINE_NANOS.remove();
+            }
+        };
+    }
+
+    /**
+     * Prüft, ob die Deadline überschritten ist.
+     *
+     * @param operation die Beschreibung der abzubrechenden Operation.
+     * @throws DeadlineExceededException falls die Deadline überschritten ist.
+     */
+    public static void check(final String operation) {
+        if (remaining().filter(remaining -> remaining.isNegative() || remaining.isZero()).isPresent()) {
+            throw new DeadlineExceededException(operation);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+/**
+ * Wird geworfen, falls die Deadline eines Requests vor Abschluss einer Operation überschritten
+ * wurde und die Operation daher abgebrochen wird.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(final String operation) {
+        super("Deadline überschritten: " + operation);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Setzt für jeden Request an die Lageplan-Endpunkte eine {@link Deadline}.
+ * <p>
+ * Der Client kann über den konfigurierten Header eine Zeitspanne in Millisekunden vorgeben, welche
+ * durch das konfigurierte Maximum begrenzt wird. Ohne Header gilt die Standard-Zeitspanne.
+ * <p>
+ * Upload, Export und Subscription sind ausgenommen, da deren Dauer von der Größe der übertragenen
+ * Daten bzw. der Verbindung des Clients abhängt. Eine Deadline würde dort z.B. das Schreiben des
+ * Zeigers nach einem erfolgreichen Upload abbrechen.
+ */
+@Component
+@Slf4j
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private static final String LAGEPLAN_PATH = "/lageplan";
+
+    private static final Set<String> EXCLUDED_PATHS = Set.of(LAGEPLAN_PATH + "/upload", LAGEPLAN_PATH + "/export", LAGEPLAN_PATH + "/subscribe");
+
+    private final String timeoutHeader;
+
+    private final Duration defaultTimeout;
+
+    private final Duration maxTimeout;
+
+    public DeadlineFilter(
+            @Value("${de.muenchen.dave.document-storage.deadline.header:X-Request-Timeout}") final String timeoutHeader,
+            @Value("${de.muenchen.dave.document-storage.deadline.default-timeout:PT10S}") final Duration defaultTimeout,
+            @Value("${de.muenchen.dave.document-storage.deadline.max-timeout:PT30S}") final Duration maxTimeout) {
+        this.timeoutHeader = timeoutHeader;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(LAGEPLAN_PATH) || EXCLUDED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        final Duration timeout = getTimeout(request);
+        log.debug("Deadline in {} für URI {}", timeout, request.getRequestURI());
+        Deadline.start(timeout);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+        }
+    }
+
+    private Duration getTimeout(final HttpServletRequest request) {
+        final String header = request.getHeader(timeoutHeader);
+        if (StringUtils.isBlank(header)) {
+            return defaultTimeout;
+        }
+        final long timeoutInMillis = NumberUtils.toLong(header.trim(), -1);
+        if (timeoutInMillis <= 0) {
+            log.debug("Ungültiger Wert im Header {}: {}", timeoutHeader, header);
+            return defaultTimeout;
+        }
+        final Duration timeout = Duration.ofMillis(timeoutInMillis);
+        return timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Führt Aufrufe mit Hedging aus, um die Tail-Latenz zu senken.
+ * <p>
+ * Liegt nach einer aus dem Perzentil der bisherigen Latenzen abgeleiteten Wartezeit noch keine
+ * Antwort vor, wird derselbe Aufruf ein zweites Mal abgesetzt. Die erste erfolgreiche Antwort wird
+ * verwendet und der verbleibende Aufruf abgebrochen. Ein Budget begrenzt den Anteil zusätzlicher
+ * Aufrufe auf {@code budgetRatio} der Gesamtaufrufe.
+ */
+public class HedgingExecutor {
+
+    private static final long BUDGET_SCALE = 1000;
+
+    private static final long MAX_BUDGET = 10 * BUDGET_SCALE;
+
+    private final ExecutorService executor;
+
+    private final LatencyTracker latencyTracker;
+
+    private final Duration minDelay;
+
+    private final long budgetPerCall;
+
+    private final AtomicLong budget = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder hedgesFired = new LongAdder();
+
+    private final LongAdder hedgesWon = new LongAdder();
+
+    public HedgingExecutor(final ExecutorService executor, final LatencyTracker latencyTracker, final Duration minDelay, final double budgetRatio) {
+        this.executor = executor;
+        this.latencyTracker = latencyTracker;
+        this.minDelay = minDelay;
+        this.budgetPerCall = Math.round(budgetRatio * BUDGET_SCALE);
+    }
+
+    /**
+     * Führt den Aufruf aus und setzt bei Bedarf einen zweiten identischen Aufruf ab.
+     *
+     * @param call der Aufruf.
+     * @param <T> der Ergebnistyp.
+     * @return das Ergebnis des zuerst erfolgreichen Aufrufs.
+     * @throws ExecutionException mit dem Fehler des Aufrufs, falls alle Aufrufe fehlschlagen.
+     * @throws InterruptedException falls der wartende Thread unterbrochen wird.
+     */
+    public <T> T execute(final Callable<T> call) throws ExecutionException, InterruptedException {
+        try {
+            return execute(call, null);
+        } catch (TimeoutException exception) {
+            throw new IllegalStateException("Zeitüberschreitung ohne Timeout", exception);
+        }
+    }
+
+    /**
+     * Führt den Aufruf aus und setzt bei Bedarf einen zweiten identischen Aufruf ab. Nach Ablauf des
+     * Timeouts werden alle noch laufenden Aufrufe abgebrochen.
+     *
+     * @param call der Aufruf.
+     * @param timeout die maximale Wartezeit oder null für unbegrenztes Warten.
+     * @param <T> der Ergebnistyp.
+     * @return das Ergebnis des zuerst erfolgreichen Aufrufs.
+     * @throws ExecutionException mit dem Fehler des Aufrufs, falls alle Aufrufe fehlschlagen.
+     * @throws InterruptedException falls der wartende Thread unterbrochen wird.
+     * @throws TimeoutException falls innerhalb des Timeouts keine Antwort vorliegt.
+     */
+    public <T> T execute(final Callable<T> call, final Duration timeout) throws ExecutionException, InterruptedException, TimeoutException {
+        calls.increment();
+        depositBudget();
+        final long deadlineNanos = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger pendingAttempts = new AtomicInteger(1);
+        final Future<?> primary = submit(call, result, pendingAttempts, false);
+        Future<?> hedge = null;
+        try {
+            final long hedgeDelayNanos = getHedgeDelay().toNanos();
+            final long firstWaitNanos = timeout == null ? hedgeDelayNanos : Math.min(hedgeDelayNanos, remainingNanos(deadlineNanos));
+            try {
+                return result.get(firstWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException exception) {
+                if (timeout != null && remainingNanos(deadlineNanos) <= 0) {
+                    throw exception;
+                }
+                if (tryWithdrawBudget()) {
+                    hedgesFired.increment();
+                    pendingAttempts.incrementAndGet();
+                    hedge = submit(call, result, pendingAttempts, true);
+                }
+                return timeout == null ? result.get() : result.get(remainingNanos(deadlineNanos), TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return die Wartezeit bis zum Absetzen eines zweiten Aufrufs.
+     */
+    public Duration getHedgeDelay() {
+        final Duration percentile = latencyTracker.getPercentile();
+        return percentile.compareTo(minDelay) > 0 ? percentile : minDelay;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getHedgesFired() {
+        return hedgesFired.sum();
+    }
+
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    private <T> Future<?> submit(final Callable<T> call, final CompletableFuture<T> result, final AtomicInteger pendingAttempts,
+            final boolean isHedge) {
+        return executor.submit(() -> {
+            final long start = System.nanoTime();
+            try {
+                final T value = call.call();
+                latencyTracker.record(System.nanoTime() - start);
+                if (result.complete(value) && isHedge) {
+                    hedgesWon.increment();
+                }
+            } catch (Exception exception) {
+                if (pendingAttempts.decrementAndGet() == 0) {
+                    result.completeExceptionally(exception);
+                }
+            }
+        });
+    }
+
+    private static long remainingNanos(final long deadlineNanos) {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    private void depositBudget() {
+        budget.updateAndGet(current -> Math.min(MAX_BUDGET, current + budgetPerCall));
+    }
+
+    private boolean tryWithdrawBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < BUDGET_SCALE) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - BUDGET_SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Erfasst die Latenzen der letzten Aufrufe in einem Ringpuffer und liefert ein Perzentil darüber.
+ * <p>
+ * Das Perzentil wird nicht bei jeder Abfrage, sondern nur nach jeweils einem Zehntel der
+ * Fenstergröße neu berechnet.
+ */
+public class LatencyTracker {
+
+    private final AtomicLongArray samples;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final double percentile;
+
+    private final int recomputeInterval;
+
+    private final long defaultNanos;
+
+    private volatile long percentileNanos;
+
+    /**
+     * @param windowSize die Anzahl der berücksichtigten Aufrufe.
+     * @param percentile das Perzentil zwischen 0 und 1.
+     * @param defaultValue der Wert solange zu wenige Aufrufe erfasst wurden.
+     */
+    public LatencyTracker(final int windowSize, final double percentile, final Duration defaultValue) {
+        this.samples = new AtomicLongArray(windowSize);
+        this.percentile = percentile;
+        this.recomputeInterval = Math.max(1, windowSize / 10);
+        this.defaultNanos = defaultValue.toNanos();
+        this.percentileNanos = defaultNanos;
+    }
+
+    public void record(final long nanos) {
+        final long index = count.getAndIncrement();
+        samples.set((int) (index % samples.length()), nanos);
+        if ((index + 1) % recomputeInterval == 0) {
+            recompute();
+        }
+    }
+
+    /**
+     * @return das Perzentil der erfassten Latenzen.
+     */
+    public Duration getPercentile() {
+        return Duration.ofNanos(count.get() < recomputeInterval ? defaultNanos : percentileNanos);
+    }
+
+    private void recompute() {
+        final int size = (int) Math.min(count.get(), samples.length());
+        final long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        final int index = Math.max(0, (int) Math.ceil(percentile * size) - 1);
+        percentileNanos = sorted[index];
+    }
+}
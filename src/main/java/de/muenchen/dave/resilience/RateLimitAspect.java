@@ -0,0 +1,88 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+/**
+ * Begrenzt die Aufrufe der mit {@link WithRateLimit} annotierten Methoden je Benutzer aus dem Claim
+ * "username" des JWT. Tokens ohne Benutzer, z.B. von Service-Accounts, werden über den Claim "sub"
+ * bzw. "azp" begrenzt. Die Prüfung erfolgt vor dem {@link BulkheadAspect}, so dass abgewiesene
+ * Aufrufe keinen Platz in der Warteschlange belegen. Aufrufe ohne JWT, z.B. im Profil
+ * "no-security", werden nicht begrenzt.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitAspect {
+
+    /**
+     * Die Claims zur Identifikation des Clients in absteigender Priorität.
+     */
+    private static final List<String> CLIENT_CLAIMS = List.of("username", "sub", "azp");
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+
+    @Around("@annotation(withRateLimit)")
+    public Object executeWithinRateLimit(final ProceedingJoinPoint joinPoint, final WithRateLimit withRateLimit) throws Throwable {
+        final String client = rateLimiterRegistry.isEnabled() ? getClient() : null;
+        if (client != null) {
+            final RateLimiter rateLimiter = rateLimiterRegistry.get(withRateLimit.value());
+            final Duration retryAfter = rateLimiter.tryAcquire(client);
+            if (!retryAfter.isZero()) {
+                log.debug("Aufruf von {} wegen Überschreitung der Rate abgewiesen: {}", client, rateLimiter.getName());
+                throw new RateLimitExceededException(rateLimiter.getName(), retryAfter);
+            }
+        }
+        return joinPoint.proceed();
+    }
+
+    /**
+     * @return der Client als Claim und Wert, z.B. "sub:service-account", oder null falls der Aufruf
+     *         kein JWT mit einem der {@link #CLIENT_CLAIMS} enthält.
+     */
+    static String getClient() {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
+            return null;
+        }
+        return getClient(jwt);
+    }
+
+    /**
+     * Ermittelt den Client wie bei REST-Aufrufen, z.B. für das JWT eines gRPC-Aufrufs.
+     *
+     * @param jwt das JWT des Aufrufs oder null.
+     * @return der Client als Claim und Wert oder null falls das JWT keinen der {@link #CLIENT_CLAIMS}
+     *         enthält.
+     */
+    public static String getClient(final Jwt jwt) {
+        if (jwt == null) {
+            return null;
+        }
+        for (final String claim : CLIENT_CLAIMS) {
+            final String value = jwt.getClaimAsString(claim);
+            if (StringUtils.isNotBlank(value)) {
+                return claim + ":" + value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Wird geworfen, falls ein Aufruf durch einen {@link RateLimiter} abgewiesen wurde.
+ */
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(final String rateLimiterName, final Duration retryAfter) {
+        super("Rate überschritten: " + rateLimiterName);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * Begrenzt die Aufrufe einer Operation je Client über einen {@link TokenBucket} je Client.
+ * <p>
+ * Es werden höchstens {@code maxClients} Buckets vorgehalten. Ist die Grenze erreicht, werden
+ * zunächst volle Buckets verworfen, was das Verhalten nicht ändert. Reicht dies nicht, werden
+ * weitere Buckets verworfen, so dass die betroffenen Clients wieder mit vollem Bucket beginnen.
+ */
+public class RateLimiter {
+
+    @Getter
+    private final String name;
+
+    private final int capacity;
+
+    private final double tokensPerSecond;
+
+    private final int maxClients;
+
+    private final Clock clock;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder throttledCalls = new LongAdder();
+
+    private final LongAdder evictedClients = new LongAdder();
+
+    public RateLimiter(final String name, final int capacity, final double tokensPerSecond, final int maxClients) {
+        this(name, capacity, tokensPerSecond, maxClients, Clock.systemUTC());
+    }
+
+    RateLimiter(final String name, final int capacity, final double tokensPerSecond, final int maxClients, final Clock clock) {
+        this.name = name;
+        this.capacity = capacity;
+        this.tokensPerSecond = tokensPerSecond;
+        this.maxClients = maxClients;
+        this.clock = clock;
+    }
+
+    /**
+     * Versucht ein Token aus dem Bucket des Clients zu entnehmen.
+     *
+     * @param client der Client, z.B. der Benutzername.
+     * @return {@link Duration#ZERO} falls der Aufruf erlaubt ist, andernfalls die Wartezeit bis zum
+     *         nächsten erlaubten Aufruf.
+     */
+    public Duration tryAcquire(final String client) {
+        final long nowNanos = nowNanos();
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                evict(nowNanos);
+            }
+            bucket = buckets.computeIfAbsent(client, key -> new TokenBucket(capacity, tokensPerSecond));
+        }
+        final long waitNanos = bucket.tryConsume(nowNanos);
+        if (waitNanos > 0) {
+            throttledCalls.increment();
+            return Duration.ofNanos(waitNanos);
+        }
+        return Duration.ZERO;
+    }
+
+    /**
+     * Verwirft alle vollen Buckets. Sind danach noch zu viele Buckets vorhanden, wird ein Viertel der
+     * Buckets verworfen, damit nicht jeder neue Client erneut aufräumt. Es räumt immer nur ein Thread
+     * auf, die übrigen legen ihren Bucket ohne zu warten an.
+     */
+    private void evict(final long nowNanos) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final Iterator<TokenBucket> full = buckets.values().iterator();
+            while (full.hasNext()) {
+                if (full.next().isFull(nowNanos)) {
+                    full.remove();
+                    evictedClients.increment();
+                }
+            }
+            final Iterator<TokenBucket> active = buckets.values().iterator();
+            while (buckets.size() > maxClients * 3 / 4 && active.hasNext()) {
+                active.next();
+                active.remove();
+                evictedClients.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private long nowNanos() {
+        final Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000_000 + now.getNano();
+    }
+
+    public int getClients() {
+        return buckets.size();
+    }
+
+    public long getThrottledCalls() {
+        return throttledCalls.sum();
+    }
+
+    public long getEvictedClients() {
+        return evictedClients.sum();
+    }
+}
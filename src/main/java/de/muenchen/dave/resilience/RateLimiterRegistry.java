@@ -0,0 +1,75 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erzeugt und verwaltet die {@link RateLimiter} je Operation.
+ * <p>
+ * Die Grenzen werden je Name unter "de.muenchen.dave.document-storage.rate-limit.&lt;name&gt;"
+ * konfiguriert. Fehlt eine Konfiguration, gelten die Werte unter "...rate-limit.default".
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimiterRegistry {
+
+    private static final String PREFIX = "de.muenchen.dave.document-storage.rate-limit.";
+
+    private static final String DEFAULT = "default";
+
+    private final Environment environment;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    public RateLimiter get(final String name) {
+        return rateLimiters.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * @return false falls die Begrenzung über "...rate-limit.enabled" abgeschaltet ist.
+     */
+    public boolean isEnabled() {
+        return environment.getProperty(PREFIX + "enabled", Boolean.class, true);
+    }
+
+    private RateLimiter create(final String name) {
+        final RateLimiter rateLimiter = new RateLimiter(
+                name,
+                getProperty(name, "capacity", Integer.class, 50),
+                getProperty(name, "tokens-per-second", Double.class, 10.0),
+                getProperty(name, "max-clients", Integer.class, 10000));
+        FunctionCounter.builder("dave.ratelimit.throttled.calls", rateLimiter, RateLimiter::getThrottledCalls)
+                .description("Anzahl der wegen Überschreitung der Rate abgewiesenen Aufrufe")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("dave.ratelimit.clients", rateLimiter, RateLimiter::getClients)
+                .description("Anzahl der vorgehaltenen Token-Buckets")
+                .tag("name", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("dave.ratelimit.evicted.clients", rateLimiter, RateLimiter::getEvictedClients)
+                .description("Anzahl der verworfenen Token-Buckets")
+                .tag("name", name)
+                .register(meterRegistry);
+        log.info("Rate-Limiter {} erstellt", name);
+        return rateLimiter;
+    }
+
+    private <T> T getProperty(final String name, final String key, final Class<T> type, final T defaultValue) {
+        final T fallback = environment.getProperty(PREFIX + DEFAULT + "." + key, type, defaultValue);
+        return environment.getProperty(PREFIX + name + "." + key, type, fallback);
+    }
+}
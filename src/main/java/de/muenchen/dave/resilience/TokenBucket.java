@@ -0,0 +1,65 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-Bucket ohne Sperren für einen einzelnen Client.
+ * <p>
+ * Der Bucket fasst {@code capacity} Tokens und wird mit {@code tokensPerSecond} aufgefüllt. Statt
+ * des Füllstands wird nur der Zeitpunkt gehalten, zu dem der Bucket wieder voll ist (Generic Cell
+ * Rate Algorithm). Dadurch genügt ein einzelner {@link AtomicLong}, der per Compare-and-Set
+ * fortgeschrieben wird. Ein voller Bucket unterscheidet sich nicht von einem neuen und kann daher
+ * jederzeit verworfen werden.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+
+    private final long capacityNanos;
+
+    /**
+     * Zeitpunkt in Nanosekunden, zu dem der Bucket wieder voll ist.
+     */
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(final int capacity, final double tokensPerSecond) {
+        if (capacity < 1 || tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Kapazität und Auffüllrate müssen positiv sein");
+        }
+        this.nanosPerToken = Math.max(1, Math.round(1_000_000_000 / tokensPerSecond));
+        this.capacityNanos = Math.multiplyExact(nanosPerToken, capacity);
+    }
+
+    /**
+     * Entnimmt ein Token, falls vorhanden.
+     *
+     * @param nowNanos der aktuelle Zeitpunkt in Nanosekunden.
+     * @return 0 falls ein Token entnommen wurde, andernfalls die Wartezeit in Nanosekunden bis zum
+     *         nächsten Token.
+     */
+    public long tryConsume(final long nowNanos) {
+        while (true) {
+            final long current = fullAt.get();
+            final long next = Math.max(current, nowNanos) + nanosPerToken;
+            final long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param nowNanos der aktuelle Zeitpunkt in Nanosekunden.
+     * @return true falls der Bucket voll ist.
+     */
+    public boolean isFull(final long nowNanos) {
+        return fullAt.get() <= nowNanos;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Führt die annotierte Methode innerhalb des {@link Bulkhead} mit dem angegebenen Namen aus.
+ *
+ * @see BulkheadAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface WithBulkhead {
+
+    /**
+     * @return der Name des Bulkheads, zugleich der Schlüssel der Konfiguration unter
+     *         "de.muenchen.dave.document-storage.bulkhead".
+     */
+    String value();
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.resilience;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Begrenzt die Aufrufe der annotierten Methode je Benutzer über den {@link RateLimiter} mit dem
+ * angegebenen Namen.
+ *
+ * @see RateLimitAspect
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface WithRateLimit {
+
+    /**
+     * @return der Name des Rate-Limiters, zugleich der Schlüssel der Konfiguration unter
+     *         "de.muenchen.dave.document-storage.rate-limit".
+     */
+    String value();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authentifiziert Requests anhand eines fest konfigurierten Tokens im Authorization-Header, mit oder
+ * ohne Präfix "Bearer ". Gedacht für Systeme wie die Benachrichtigungen des S3, die kein OAuth2
+ * unterstützen. Ist kein Token konfiguriert, wird kein Request authentifiziert.
+ */
+public class SharedTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final String principal;
+
+    private final byte[] token;
+
+    /**
+     * @param principal der Name, unter dem authentifizierte Requests protokolliert werden.
+     * @param token das erwartete Token.
+     */
+    public SharedTokenAuthenticationFilter(final String principal, final String token) {
+        this.principal = principal;
+        this.token = StringUtils.defaultString(token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        final String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (token.length > 0 && header != null) {
+            final String presented = StringUtils.removeStartIgnoreCase(header.strip(), BEARER_PREFIX).strip();
+            if (MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+                final var authentication = UsernamePasswordAuthenticationToken.authenticated(principal, null, AuthorityUtils.NO_AUTHORITIES);
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.timing;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Erfasst die Prüfung des JWT als Abschnitt {@value #JWT_STAGE} des Requests, indem jeder
+ * {@link JwtDecoder} entsprechend umhüllt wird.
+ */
+@Component
+public class JwtDecoderTimingPostProcessor implements BeanPostProcessor {
+
+    static final String JWT_STAGE = "jwt";
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+        if (bean instanceof JwtDecoder jwtDecoder) {
+            return timed(jwtDecoder);
+        }
+        return bean;
+    }
+
+    static JwtDecoder timed(final JwtDecoder jwtDecoder) {
+        return token -> {
+            try (RequestTiming.Stage ignored = RequestTiming.stage(JWT_STAGE)) {
+                return jwtDecoder.decode(token);
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.timing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Erfasst die Dauer der einzelnen Abschnitte des aktuell bearbeiteten Requests für den
+ * bearbeitenden Thread, z.B. JWT-Prüfung, S3-Auflistung oder Presigning.
+ * <p>
+ * Die Erfassung wird durch den {@link RequestTimingFilter} gestartet. Ohne laufende Erfassung, z.B.
+ * in geplanten Jobs, sind die Abschnitte wirkungslos. Jeder Abschnitt wird zusätzlich als
+ * {@link Observation} {@value #OBSERVATION_NAME} und damit als Span im Tracing erfasst. Mehrfach
+ * durchlaufene Abschnitte werden aufsummiert.
+ */
+public final class RequestTiming {
+
+    public static final String OBSERVATION_NAME = "lageplan.request.stage";
+
+    private static final String STAGE_KEY = "stage";
+
+    private static final String TOTAL = "total";
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final Stage NOOP = () -> {
+    };
+
+    private final ObservationRegistry observationRegistry;
+
+    private final long startNanos;
+
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+    private RequestTiming(final ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Startet die Erfassung für den aktuellen Thread.
+     *
+     * @param observationRegistry für die Spans der Abschnitte.
+     * @return die Erfassung.
+     */
+    public static RequestTiming start(final ObservationRegistry observationRegistry) {
+        final RequestTiming requestTiming = new RequestTiming(observationRegistry);
+        CURRENT.set(requestTiming);
+        return requestTiming;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Optional<RequestTiming> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Beginnt einen Abschnitt, der mit {@link Stage#close()} beendet wird.
+     *
+     * @param name der Name des Abschnitts, z.B. "s3-listing".
+     * @return der laufende Abschnitt.
+     */
+    public static Stage stage(final String name) {
+        final RequestTiming requestTiming = CURRENT.get();
+        return requestTiming == null ? NOOP : requestTiming.startStage(name);
+    }
+
+    private Stage startStage(final String name) {
+        final Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName(name)
+                .lowCardinalityKeyValue(STAGE_KEY, name)
+                .start();
+        final Observation.Scope scope = observation.openScope();
+        final long stageStartNanos = System.nanoTime();
+        return () -> {
+            stageNanos.merge(name, System.nanoTime() - stageStartNanos, Long::sum);
+            scope.close();
+            observation.stop();
+        };
+    }
+
+    /**
+     * @return die Dauer der bisher abgeschlossenen Abschnitte in der Reihenfolge ihres ersten Beginns.
+     */
+    public Map<String, Duration> getStages() {
+        final Map<String, Duration> stages = new LinkedHashMap<>();
+        stageNanos.forEach((name, nanos) -> stages.put(name, Duration.ofNanos(nanos)));
+        return stages;
+    }
+
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return die abgeschlossenen Abschnitte und die bisherige Gesamtdauer im Format des Headers
+     *         "Server-Timing", z.B. {@code jwt;dur=2.1, s3-listing;dur=48.7, total;dur=55.0}.
+     */
+    public String toServerTiming() {
+        final Map<String, Duration> stages = getStages();
+        stages.put(TOTAL, getElapsed());
+        return stages.entrySet().stream()
+                .map(stage -> String.format(Locale.ROOT, "%s;dur=%.1f", stage.getKey(), stage.getValue().toNanos() / 1_000_000.0))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Ein laufender Abschnitt.
+     */
+    @FunctionalInterface
+    public interface Stage extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
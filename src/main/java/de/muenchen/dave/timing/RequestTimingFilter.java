@@ -0,0 +1,176 @@
+/*
+ * Copyright (c): it@M - Dienstleister für Informations- und Telekommunikationstechnik
+ * der Landeshauptstadt München, 2026
+ */
+package de.muenchen.dave.timing;
+
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import net.logstash.logback.argument.StructuredArguments;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Erfasst für jeden Request an die Lageplan-Endpunkte die Dauer der einzelnen Abschnitte über
+ * {@link RequestTiming}.
+ * <p>
+ * Der Filter läuft vor Spring Security und innerhalb der Observation des Requests, so dass die
+ * Abschnitte als Child-Spans des Requests erscheinen. Optional wird der Header
+ * {@value #SERVER_TIMING_HEADER} gesetzt. Da der Header vor dem Schreiben der Antwort gesetzt werden
+ * muss, enthält er nur die bis dahin abgeschlossenen Abschnitte, nicht jedoch den Abschnitt
+ * {@value #RESPONSE_STAGE} für Serialisierung und Schreiben der Antwort. Requests über dem
+ * Schwellwert werden mit allen Abschnitten in einer Zeile geloggt.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@Slf4j
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    static final String RESPONSE_STAGE = "response";
+
+    private static final String LAGEPLAN_PATH = "/lageplan";
+
+    private final ObservationRegistry observationRegistry;
+
+    private final boolean serverTimingHeader;
+
+    private final Duration slowRequestThreshold;
+
+    public RequestTimingFilter(
+            final ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${de.muenchen.dave.document-storage.timing.server-timing-header:false}") final boolean serverTimingHeader,
+            @Value("${de.muenchen.dave.document-storage.timing.slow-request-threshold:PT1S}") final Duration slowRequestThreshold) {
+        this.observationRegistry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+        this.serverTimingHeader = serverTimingHeader;
+        this.slowRequestThreshold = slowRequestThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + LAGEPLAN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        final RequestTiming requestTiming = RequestTiming.start(observationRegistry);
+        final TimingResponse timingResponse = new TimingResponse(response);
+        try {
+            filterChain.doFilter(request, timingResponse);
+        } finally {
+            timingResponse.finish();
+            RequestTiming.clear();
+            // Asynchron geschriebene Antworten (Export, Server-Sent Events) laufen über den Request hinaus.
+            if (!request.isAsyncStarted()) {
+                logIfSlow(request, response, requestTiming);
+            }
+        }
+    }
+
+    private void logIfSlow(final HttpServletRequest request, final HttpServletResponse response, final RequestTiming requestTiming) {
+        final Duration elapsed = requestTiming.getElapsed();
+        if (elapsed.compareTo(slowRequestThreshold) < 0) {
+            return;
+        }
+        final Map<String, Long> stages = new LinkedHashMap<>();
+        requestTiming.getStages().forEach((name, duration) -> stages.put(name, duration.toMillis()));
+        log.warn("Langsamer Request {} {} mit Status {} in {} ms, Abschnitte in ms: {}",
+                StructuredArguments.value("method", request.getMethod()),
+                StructuredArguments.value("uri", request.getRequestURI()),
+                StructuredArguments.value("status", response.getStatus()),
+                StructuredArguments.value("durationMs", elapsed.toMillis()),
+                StructuredArguments.value("stagesMs", stages));
+    }
+
+    /**
+     * Setzt den Header {@value #SERVER_TIMING_HEADER} und beginnt den Abschnitt
+     * {@value #RESPONSE_STAGE}, sobald die Antwort geschrieben wird.
+     */
+    private final class TimingResponse extends HttpServletResponseWrapper {
+
+        private RequestTiming.Stage responseStage;
+
+        private boolean headerWritten;
+
+        private TimingResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeWrite();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeWrite();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeWrite();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            writeHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            writeHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+            writeHeader();
+            super.sendRedirect(location);
+        }
+
+        private void beforeWrite() {
+            writeHeader();
+            if (responseStage == null) {
+                responseStage = RequestTiming.stage(RESPONSE_STAGE);
+            }
+        }
+
+        private void writeHeader() {
+            if (!headerWritten && serverTimingHeader && !isCommitted()) {
+                RequestTiming.current().ifPresent(requestTiming -> setHeader(SERVER_TIMING_HEADER, requestTiming.toServerTiming()));
+            }
+            headerWritten = true;
+        }
+
+        /**
+         * Beendet den Abschnitt {@value #RESPONSE_STAGE} und setzt den Header für Antworten ohne Body.
+         */
+        private void finish() {
+            if (responseStage != null) {
+                responseStage.close();
+            }
+            writeHeader();
+        }
+    }
+}
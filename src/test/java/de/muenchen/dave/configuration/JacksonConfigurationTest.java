@@ -0,0 +1,76 @@
+package de.muenchen.dave.configuration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Map;
+
+class JacksonConfigurationTest {
+
+    private final JacksonConfiguration jacksonConfiguration = new JacksonConfiguration(new ObjectMapper());
+
+    @Test
+    void testConverters_JsonRemainsDefault() {
+        final HttpMessageConverters converters = new HttpMessageConverters(
+                jacksonConfiguration.cborHttpMessageConverter(builder()),
+                jacksonConfiguration.smileHttpMessageConverter(builder()));
+
+        final HttpMessageConverter<?> firstJacksonConverter = converters.getConverters().stream()
+                .filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertInstanceOf(MappingJackson2HttpMessageConverter.class, firstJacksonConverter);
+    }
+
+    @Test
+    void testCborConverter() throws IOException {
+        final MappingJackson2CborHttpMessageConverter converter = jacksonConfiguration.cborHttpMessageConverter(builder());
+        final var dto = new DocumentDto("https://s3/4001/Lageplan.pdf", "Lageplan.pdf", "application/pdf", 1024L, Instant.parse("2025-01-01T12:00:00Z"),
+                null);
+
+        final byte[] payload = converter.getObjectMapper().writeValueAsBytes(dto);
+
+        final JsonNode tree = new ObjectMapper(new CBORFactory()).readTree(payload);
+        Assertions.assertEquals("Lageplan.pdf", tree.get("fileName").asText());
+        Assertions.assertEquals("2025-01-01T12:00:00Z", tree.get("lastModified").asText());
+    }
+
+    @Test
+    void testSmileConverter_DuplicatePropertiesRejected() throws IOException {
+        final MappingJackson2SmileHttpMessageConverter converter = jacksonConfiguration.smileHttpMessageConverter(builder());
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (JsonGenerator generator = new SmileFactory().createGenerator(payload)) {
+            generator.writeStartObject();
+            generator.writeStringField("mstId", "4001");
+            generator.writeStringField("mstId", "4002");
+            generator.writeEndObject();
+        }
+
+        Assertions.assertThrows(StreamReadException.class, () -> converter.getObjectMapper().readValue(payload.toByteArray(), Map.class));
+    }
+
+    /**
+     * Entspricht der Konfiguration durch Spring Boot.
+     */
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,48 @@
+package de.muenchen.dave.configuration;
+
+import de.muenchen.dave.lageplaene.adapter.cluster.ClusterNode;
+import de.muenchen.dave.lageplaene.adapter.cluster.LageplanClusterSync;
+import de.muenchen.dave.lageplaene.api.controller.LageplanController;
+import de.muenchen.dave.lageplaene.domain.service.LageplanExportService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanRetentionJob;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.lageplaene.domain.service.StaleLageplanRefresher;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+class LazyInitializationConfigurationTest {
+
+    @Test
+    void testScheduledBeansStayEager() {
+        final LazyInitializationExcludeFilter filter = LazyInitializationConfiguration.eagerScheduledBeans();
+
+        Assertions.assertTrue(isExcluded(filter, StaleLageplanRefresher.class));
+        Assertions.assertTrue(isExcluded(filter, LageplanRetentionJob.class));
+        Assertions.assertTrue(isExcluded(filter, ClusterNode.class));
+        Assertions.assertFalse(isExcluded(filter, LageplanExportService.class));
+        Assertions.assertFalse(filter.isExcluded("unknown", new RootBeanDefinition(), null));
+    }
+
+    @Test
+    void testLageplanLookupStaysEager() {
+        final LazyInitializationExcludeFilter filter = LazyInitializationConfiguration.eagerLageplanLookup();
+
+        Assertions.assertTrue(isExcluded(filter, LageplanController.class));
+        Assertions.assertTrue(isExcluded(filter, LageplanService.class));
+        Assertions.assertFalse(isExcluded(filter, LageplanExportService.class));
+    }
+
+    @Test
+    void testMessageHandlersStayEager() {
+        final LazyInitializationExcludeFilter filter = LazyInitializationConfiguration.eagerMessageHandlers();
+
+        Assertions.assertTrue(isExcluded(filter, LageplanClusterSync.class));
+        Assertions.assertFalse(isExcluded(filter, ClusterNode.class));
+    }
+
+    private static boolean isExcluded(final LazyInitializationExcludeFilter filter, final Class<?> beanType) {
+        return filter.isExcluded(beanType.getSimpleName(), new RootBeanDefinition(beanType), beanType);
+    }
+}
@@ -0,0 +1,92 @@
+package de.muenchen.dave.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import de.muenchen.dave.lageplaene.api.dto.LageplanChangesDto;
+import de.muenchen.dave.lageplaene.api.dto.MessstellenDto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Vergleicht Größe und Kosten der Serialisierung großer Antworten als JSON, CBOR und Smile mit den
+ * {@link ObjectMapper}n aus der {@link JacksonConfiguration}: eine Seite mit 10.000 Messstellen von
+ * /lageplan/messstellen sowie 1.000 Änderungen von /lageplan/changes.
+ * <p>
+ * Wird nicht mit den Tests ausgeführt, sondern über die main-Methode gestartet.
+ */
+public final class ResponseFormatBenchmark {
+
+    private static final int ITERATIONS = 2_000;
+
+    private ResponseFormatBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final JacksonConfiguration jacksonConfiguration = new JacksonConfiguration(new ObjectMapper());
+        final List<Format> formats = List.of(
+                new Format("JSON", builder().build()),
+                new Format("CBOR", jacksonConfiguration.cborHttpMessageConverter(builder()).getObjectMapper()),
+                new Format("Smile", jacksonConfiguration.smileHttpMessageConverter(builder()).getObjectMapper()));
+        final Object messstellen = new MessstellenDto(mstIds(10_000), "MDAwMDAwMDAwMDAwMDAxNDAwMA");
+        final Object changes = new LageplanChangesDto(mstIds(1_000), "6f3b2c1d0e9a8b7c:1000:1735732800000", true);
+
+        // Ein erster Durchlauf ohne Ausgabe, damit Laden der Klassen und JIT-Compiler die Messung nicht verfälschen.
+        for (final Format format : formats) {
+            benchmark(format, messstellen, 10_000);
+        }
+        System.out.printf("%-26s %-6s %10s %16s %16s%n", "Antwort", "Format", "Bytes", "µs/Serialisierung", "µs/Deserialisierung");
+        for (final Format format : formats) {
+            System.out.println(format("10.000 Messstellen", format, benchmark(format, messstellen, 10_000)));
+        }
+        for (final Format format : formats) {
+            System.out.println(format("1.000 Änderungen", format, benchmark(format, changes, 1_000)));
+        }
+    }
+
+    /**
+     * Die Deserialisierung erfolgt wie bei einem Client ohne die DTOs des Service als Baum.
+     */
+    private static Result benchmark(final Format format, final Object value, final int expectedMstIds) throws IOException {
+        byte[] payload = format.objectMapper().writeValueAsBytes(value);
+        final long serializationStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            payload = format.objectMapper().writeValueAsBytes(value);
+        }
+        final long serialization = System.nanoTime() - serializationStart;
+        final long deserializationStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (format.objectMapper().readTree(payload).get("mstIds").size() != expectedMstIds) {
+                throw new IllegalStateException("Unvollständige Deserialisierung: " + format.name());
+            }
+        }
+        final long deserialization = System.nanoTime() - deserializationStart;
+        return new Result(payload.length, serialization / 1_000.0 / ITERATIONS, deserialization / 1_000.0 / ITERATIONS);
+    }
+
+    /**
+     * Messstellen-IDs wie im Betrieb, d.h. vier- bis fünfstellige Zahlen.
+     */
+    private static List<String> mstIds(final int count) {
+        return IntStream.range(0, count).mapToObj(i -> Integer.toString(4_000 + i)).toList();
+    }
+
+    /**
+     * Entspricht der Konfiguration durch Spring Boot.
+     */
+    private static Jackson2ObjectMapperBuilder builder() {
+        return new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static String format(final String response, final Format format, final Result result) {
+        return String.format("%-26s %-6s %10d %16.1f %16.1f", response, format.name(), result.bytes(), result.serialization(), result.deserialization());
+    }
+
+    private record Format(String name, ObjectMapper objectMapper) {
+    }
+
+    private record Result(int bytes, double serialization, double deserialization) {
+    }
+}
@@ -0,0 +1,217 @@
+package de.muenchen.dave.lageplaene.adapter.cluster;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+class ClusterNodeTest {
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+
+    @AfterEach
+    public void afterEach() {
+        nodes.forEach(ClusterNode::shutdown);
+    }
+
+    @Test
+    void testBroadcast_DeliveredToAllOtherNodes() throws IOException, InterruptedException {
+        final List<String> members = List.of("localhost:" + freePort(), "localhost:" + freePort(), "localhost:" + freePort());
+        final List<BlockingQueue<String>> received = new ArrayList<>();
+        for (final String member : members) {
+            final ClusterNode node = startNode(Integer.parseInt(member.substring(member.indexOf(':') + 1)), members, "geheim");
+            final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+            node.onMessage(payload -> queue.add(new String(payload, StandardCharsets.UTF_8)));
+            received.add(queue);
+        }
+        for (final ClusterNode node : nodes) {
+            awaitConnectedPeers(node, 2);
+        }
+
+        nodes.getFirst().broadcast("4001".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertNull(received.get(0).poll(200, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals("4001", received.get(1).poll(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("4001", received.get(2).poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testBroadcast_WrongSecretRejected() throws IOException, InterruptedException {
+        final int port = freePort();
+        final int otherPort = freePort();
+        final List<String> members = List.of("localhost:" + port, "localhost:" + otherPort);
+        final ClusterNode node = startNode(port, members, "geheim");
+        final ClusterNode other = startNode(otherPort, members, "anders");
+        final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        other.onMessage(received::add);
+        awaitConnectedPeers(node, 1);
+
+        node.broadcast("4001".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testReceive_ReplayedFramesRejected() throws IOException, InterruptedException {
+        final ClusterNode receiver = startNode(freePort(), List.of(), "geheim");
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        receiver.onMessage(payload -> received.add(new String(payload, StandardCharsets.UTF_8)));
+        final byte[] recorded = relayAndRecordUntilMessage(receiver.getPort(), "4001");
+        Assertions.assertEquals("4001", received.poll(5, TimeUnit.SECONDS));
+
+        replay(receiver.getPort(), recorded);
+
+        Assertions.assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testReceive_FramesReplayedToOtherNodeRejected() throws IOException, InterruptedException {
+        final ClusterNode receiver = startNode(freePort(), List.of(), "geheim");
+        final ClusterNode other = startNode(freePort(), List.of(), "geheim");
+        final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        other.onMessage(payload -> received.add(new String(payload, StandardCharsets.UTF_8)));
+        final byte[] recorded = relayAndRecordUntilMessage(receiver.getPort(), "4001");
+
+        replay(other.getPort(), recorded);
+
+        Assertions.assertNull(received.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testReceive_OversizedHelloRejected() throws IOException {
+        final ClusterNode node = startNode(freePort(), List.of(), "geheim");
+
+        try (Socket socket = new Socket("localhost", node.getPort())) {
+            socket.setSoTimeout(5000);
+            new DataInputStream(socket.getInputStream()).readFully(new byte[16]);
+            final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(512 * 1024);
+            out.write(new byte[1024]);
+            out.flush();
+
+            Assertions.assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void testAccept_IncomingConnectionsLimited() throws IOException {
+        final ClusterNode node = startNode(newNode(freePort(), List.of(), "geheim", 1));
+
+        try (Socket first = new Socket("localhost", node.getPort()); Socket second = new Socket("localhost", node.getPort())) {
+            second.setSoTimeout(5000);
+            Assertions.assertEquals(-1, second.getInputStream().read());
+            first.setSoTimeout(200);
+            new DataInputStream(first.getInputStream()).readFully(new byte[16]);
+            Assertions.assertThrows(SocketTimeoutException.class, () -> first.getInputStream().read());
+        }
+    }
+
+    @Test
+    void testConstructor_SecretRequired() {
+        Assertions.assertThrows(IllegalStateException.class, () -> newNode(7800, List.of(), ""));
+    }
+
+    @Test
+    void testConstructor_InvalidMember() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> newNode(7800, List.of("localhost"), "geheim"));
+    }
+
+    private ClusterNode startNode(final int port, final List<String> members, final String secret) throws IOException {
+        return startNode(newNode(port, members, secret));
+    }
+
+    private ClusterNode startNode(final ClusterNode node) throws IOException {
+        nodes.add(node);
+        node.start();
+        return node;
+    }
+
+    private static ClusterNode newNode(final int port, final List<String> members, final String secret) {
+        return newNode(port, members, secret, 10);
+    }
+
+    private static ClusterNode newNode(final int port, final List<String> members, final String secret, final int maxIncomingConnections) {
+        return new ClusterNode(new SimpleMeterRegistry(), true, port, members, secret, Duration.ofMillis(100), Duration.ofSeconds(2),
+                Duration.ofSeconds(1), 100, maxIncomingConnections);
+    }
+
+    /**
+     * Wartet, bis der Knoten mit der erwarteten Anzahl anderer Knoten verbunden ist. Die zuerst
+     * gestarteten Knoten erreichen die später gestarteten erst beim nächsten Durchlauf.
+     */
+    private static void awaitConnectedPeers(final ClusterNode node, final int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (node.getConnectedPeerCount() < expected) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "Knoten nicht verbunden");
+            node.discover();
+            Thread.sleep(20);
+        }
+    }
+
+    /**
+     * Leitet die Verbindung eines neuen Knotens an den Empfänger weiter und zeichnet die Frames bis
+     * einschließlich der gesendeten Nachricht auf.
+     */
+    private byte[] relayAndRecordUntilMessage(final int receiverPort, final String message) throws IOException, InterruptedException {
+        try (ServerSocket relay = new ServerSocket(0)) {
+            final ClusterNode sender = startNode(freePort(), List.of("localhost:" + relay.getLocalPort()), "geheim");
+            try (Socket fromSender = relay.accept(); Socket toReceiver = new Socket("localhost", receiverPort)) {
+                fromSender.setSoTimeout(5000);
+                toReceiver.setSoTimeout(5000);
+                final byte[] nonce = new byte[16];
+                new DataInputStream(toReceiver.getInputStream()).readFully(nonce);
+                fromSender.getOutputStream().write(nonce);
+                awaitConnectedPeers(sender, 1);
+                sender.broadcast(message.getBytes(StandardCharsets.UTF_8));
+                final DataInputStream in = new DataInputStream(fromSender.getInputStream());
+                final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+                while (true) {
+                    final int length = in.readInt();
+                    final byte[] frame = new byte[length];
+                    in.readFully(frame);
+                    new DataOutputStream(recorded).writeInt(length);
+                    recorded.write(frame);
+                    toReceiver.getOutputStream().write(recorded.toByteArray(), recorded.size() - Integer.BYTES - length, Integer.BYTES + length);
+                    if (frame[0] == 2) {
+                        toReceiver.getOutputStream().flush();
+                        return recorded.toByteArray();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Spielt die aufgezeichneten Frames über eine neue Verbindung ein. Die Zufallszahl des Empfängers
+     * wird gelesen, aber nicht berücksichtigt.
+     */
+    private static void replay(final int port, final byte[] recorded) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            new DataInputStream(socket.getInputStream()).readFully(new byte[16]);
+            socket.getOutputStream().write(recorded);
+            socket.getOutputStream().flush();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package de.muenchen.dave.lageplaene.adapter.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangeService;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanClusterSyncTest {
+
+    private static final Instant LAST_MODIFIED = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Mock
+    private ClusterNode clusterNode;
+
+    @Mock
+    private LageplanChangeService lageplanChangeService;
+
+    private LageplanClusterSync lageplanClusterSync;
+
+    @BeforeEach
+    public void beforeEach() {
+        lageplanClusterSync = new LageplanClusterSync(clusterNode, lageplanChangeService, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void testOnLageplanChanged_LocalChangeIsReceivedByOtherInstance() {
+        lageplanClusterSync.onLageplanChanged(new LageplanChangedEvent("4001", true, LAST_MODIFIED, false));
+
+        final ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(clusterNode).broadcast(payload.capture());
+        lageplanClusterSync.receive(payload.getValue());
+        Mockito.verify(lageplanChangeService).recordRemote("4001", true, LAST_MODIFIED);
+    }
+
+    @Test
+    void testOnLageplanChanged_RemoteChangeNotDistributedAgain() {
+        lageplanClusterSync.onLageplanChanged(new LageplanChangedEvent("4001", false, LAST_MODIFIED, true));
+
+        Mockito.verify(clusterNode, Mockito.never()).broadcast(any());
+    }
+
+    @Test
+    void testReceive_InvalidMessage() {
+        lageplanClusterSync.receive("kein-json".getBytes(StandardCharsets.UTF_8));
+        lageplanClusterSync.receive("{\"mstId\":\"4001\"}".getBytes(StandardCharsets.UTF_8));
+
+        Mockito.verify(lageplanChangeService, Mockito.never()).recordRemote(anyString(), anyBoolean(), any());
+    }
+}
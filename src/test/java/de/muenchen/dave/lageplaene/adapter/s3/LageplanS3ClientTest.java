@@ -0,0 +1,166 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.dave.resilience.CircuitBreaker;
+import de.muenchen.dave.resilience.Deadline;
+import de.muenchen.dave.resilience.DeadlineExceededException;
+import de.muenchen.refarch.integration.s3.adapter.out.s3.S3Adapter;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanS3ClientTest {
+
+    private static final String FOLDER = "DAVe/Messstellen/Lageplaene/4001/";
+
+    @Mock
+    private S3Adapter s3Adapter;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private CircuitBreaker circuitBreaker;
+
+    private LageplanS3Client lageplanS3Client;
+
+    @BeforeEach
+    public void beforeEach() {
+        circuitBreaker = new CircuitBreaker("s3", 1, Duration.ofSeconds(30), Duration.ofSeconds(5), Clock.systemUTC());
+        lageplanS3Client = new LageplanS3Client(s3Adapter, null, circuitBreaker, null, executor, 0, Clock.systemUTC());
+    }
+
+    @AfterEach
+    public void afterEach() {
+        Deadline.clear();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_WithinDeadline() throws FileSystemAccessException {
+        final var fileMetadata = new FileMetadata(FOLDER + "file1.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER)).thenReturn(List.of(fileMetadata));
+        Deadline.start(Duration.ofSeconds(5));
+
+        final var result = lageplanS3Client.getMetadataOfFilesFromFolder(FOLDER);
+
+        Assertions.assertEquals(List.of(fileMetadata), result);
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_AbortedAfterDeadline() throws FileSystemAccessException {
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER)).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return List.of();
+        });
+        Deadline.start(Duration.ofMillis(50));
+
+        Assertions.assertThrows(DeadlineExceededException.class, () -> lageplanS3Client.getMetadataOfFilesFromFolder(FOLDER));
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_NoS3CallAfterDeadline() throws FileSystemAccessException {
+        Deadline.start(Duration.ofMillis(-1));
+
+        Assertions.assertThrows(DeadlineExceededException.class, () -> lageplanS3Client.getMetadataOfFilesFromFolder(FOLDER));
+        Mockito.verify(s3Adapter, Mockito.never()).getMetadataOfFilesFromFolder(anyString());
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_OpenCircuitBreakerRejectsCalls() throws FileSystemAccessException {
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER)).thenThrow(new FileSystemAccessException("Fehler"));
+
+        Assertions.assertThrows(FileSystemAccessException.class, () -> lageplanS3Client.getMetadataOfFilesFromFolder(FOLDER));
+        Assertions.assertThrows(FileSystemAccessException.class, () -> lageplanS3Client.getMetadataOfFilesFromFolder(FOLDER));
+
+        Assertions.assertTrue(lageplanS3Client.isUnavailable());
+        Mockito.verify(s3Adapter, Mockito.times(1)).getMetadataOfFilesFromFolder(FOLDER);
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_ListsSubfoldersInParallel() throws FileSystemAccessException {
+        final S3BucketClient s3BucketClient = Mockito.mock(S3BucketClient.class);
+        final var parallelClient = new LageplanS3Client(s3Adapter, s3BucketClient, circuitBreaker, null, executor, 2, Clock.systemUTC());
+        final var file = new FileMetadata(FOLDER + "file.pdf", 1L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        final var fileA = new FileMetadata(FOLDER + "a/file.pdf", 1L, "etag", LocalDateTime.of(2025, 1, 1, 13, 0, 0));
+        final var fileB = new FileMetadata(FOLDER + "b/file.pdf", 1L, "etag", LocalDateTime.of(2025, 1, 1, 14, 0, 0));
+        Mockito.when(s3BucketClient.isConfigured()).thenReturn(true);
+        Mockito.when(s3BucketClient.listObjects(FOLDER, "/", null, 1000))
+                .thenReturn(new S3ObjectListing(List.of(file), List.of(FOLDER + "a/"), "token"));
+        Mockito.when(s3BucketClient.listObjects(FOLDER, "/", "token", 1000))
+                .thenReturn(new S3ObjectListing(List.of(), List.of(FOLDER + "b/"), null));
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER + "a/")).thenReturn(List.of(fileA));
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER + "b/")).thenReturn(List.of(fileB));
+        Deadline.start(Duration.ofSeconds(5));
+
+        final var result = parallelClient.getMetadataOfFilesFromFolder(FOLDER);
+
+        Assertions.assertEquals(List.of(file, fileA, fileB), result);
+        Mockito.verify(s3Adapter, Mockito.never()).getMetadataOfFilesFromFolder(FOLDER);
+    }
+
+    @Test
+    void testGetSubfolders() throws FileSystemAccessException {
+        final S3BucketClient s3BucketClient = Mockito.mock(S3BucketClient.class);
+        final var client = new LageplanS3Client(s3Adapter, s3BucketClient, circuitBreaker, null, executor, 0, Clock.systemUTC());
+        Mockito.when(s3BucketClient.listObjects(FOLDER, "/", null, 1000))
+                .thenReturn(new S3ObjectListing(List.of(), List.of(FOLDER + "a/"), "token"));
+        Mockito.when(s3BucketClient.listObjects(FOLDER, "/", "token", 1000))
+                .thenReturn(new S3ObjectListing(List.of(), List.of(FOLDER + "b/"), null));
+
+        Assertions.assertEquals(List.of(FOLDER + "a/", FOLDER + "b/"), client.getSubfolders(FOLDER));
+        Mockito.verify(s3Adapter, Mockito.never()).getMetadataOfFilesFromFolder(anyString());
+    }
+
+    @Test
+    void testContainsAnyFile_StopsAtFirstFile() throws FileSystemAccessException {
+        final S3BucketClient s3BucketClient = Mockito.mock(S3BucketClient.class);
+        final var client = new LageplanS3Client(s3Adapter, s3BucketClient, circuitBreaker, null, executor, 0, Clock.systemUTC());
+        final var marker = new FileMetadata(FOLDER, 0L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        final var file = new FileMetadata(FOLDER + "a/file.pdf", 1L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        Mockito.when(s3BucketClient.isConfigured()).thenReturn(true);
+        Mockito.when(s3BucketClient.listObjects(FOLDER, null, null, 2)).thenReturn(new S3ObjectListing(List.of(marker), List.of(), "token"));
+        Mockito.when(s3BucketClient.listObjects(FOLDER, null, "token", 2)).thenReturn(new S3ObjectListing(List.of(file), List.of(), "next"));
+
+        Assertions.assertTrue(client.containsAnyFile(FOLDER));
+        Mockito.verify(s3BucketClient, Mockito.never()).listObjects(FOLDER, null, "next", 2);
+        Mockito.verify(s3Adapter, Mockito.never()).getMetadataOfFilesFromFolder(anyString());
+    }
+
+    @Test
+    void testContainsAnyFile_EmptyFolder() throws FileSystemAccessException {
+        final S3BucketClient s3BucketClient = Mockito.mock(S3BucketClient.class);
+        final var client = new LageplanS3Client(s3Adapter, s3BucketClient, circuitBreaker, null, executor, 0, Clock.systemUTC());
+        Mockito.when(s3BucketClient.isConfigured()).thenReturn(true);
+        Mockito.when(s3BucketClient.listObjects(FOLDER, null, null, 2)).thenReturn(new S3ObjectListing(List.of(), List.of(), null));
+
+        Assertions.assertFalse(client.containsAnyFile(FOLDER));
+    }
+
+    @Test
+    void testGetMetadataOfFilesFromFolder_FailingSubfolder()throws FileSystemAccessException {
+        final S3BucketClient s3BucketClient = Mockito.mock(S3BucketClient.class);
+        final var parallelClient = new LageplanS3Client(s3Adapter, s3BucketClient, circuitBreaker, null, executor, 2, Clock.systemUTC());
+        Mockito.when(s3BucketClient.isConfigured()).thenReturn(true);
+        Mockito.when(s3BucketClient.listObjects(FOLDER, "/", null, 1000))
+                .thenReturn(new S3ObjectListing(List.of(), List.of(FOLDER + "a/"), null));
+        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(FOLDER + "a/")).thenThrow(new FileSystemAccessException("Fehler"));
+
+        Assertions.assertThrows(FileSystemAccessException.class, () -> parallelClient.getMetadataOfFilesFromFolder(FOLDER));
+    }
+}
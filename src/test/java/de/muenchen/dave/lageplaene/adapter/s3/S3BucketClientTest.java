@@ -0,0 +1,122 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.minio.ListObjectsV2Response;
+import io.minio.Result;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.DeleteError;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Prefix;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class S3BucketClientTest {
+
+    private static final String FOLDER = "Lageplaene/4001/";
+
+    @Mock
+    private S3BucketClient.BucketClient bucketClient;
+
+    private S3BucketClient s3BucketClient;
+
+    @BeforeEach
+    public void beforeEach() {
+        s3BucketClient = new S3BucketClient(bucketClient, "dave");
+    }
+
+    @Test
+    void testListObjects() throws Exception {
+        final Item item = Mockito.mock(Item.class);
+        Mockito.when(item.objectName()).thenReturn(FOLDER + "Lageplan.pdf");
+        Mockito.when(item.size()).thenReturn(999L);
+        Mockito.when(item.etag()).thenReturn("\"d41d8cd98f00b204e9800998ecf8427e\"");
+        Mockito.when(item.lastModified()).thenReturn(ZonedDateTime.of(2025, 1, 1, 13, 0, 0, 0, ZoneId.of("Europe/Berlin")));
+        final Item subfolder = Mockito.mock(Item.class);
+        Mockito.when(subfolder.objectName()).thenReturn(FOLDER + "2024/");
+        final Prefix prefix = Mockito.mock(Prefix.class);
+        Mockito.when(prefix.toItem()).thenReturn(subfolder);
+        final ListBucketResultV2 result = Mockito.mock(ListBucketResultV2.class);
+        Mockito.when(result.contents()).thenReturn(List.of(item));
+        Mockito.when(result.commonPrefixes()).thenReturn(List.of(prefix));
+        Mockito.when(result.isTruncated()).thenReturn(true);
+        Mockito.when(result.nextContinuationToken()).thenReturn("the-token");
+        final ListObjectsV2Response response = Mockito.mock(ListObjectsV2Response.class);
+        Mockito.when(response.result()).thenReturn(result);
+        Mockito.when(bucketClient.listObjectsV2("dave", FOLDER, "/", null, 1000)).thenReturn(CompletableFuture.completedFuture(response));
+
+        final S3ObjectListing listing = s3BucketClient.listObjects(FOLDER, "/", null, 1000);
+
+        Assertions.assertEquals(
+                List.of(new FileMetadata(FOLDER + "Lageplan.pdf", 999L, "d41d8cd98f00b204e9800998ecf8427e", LocalDateTime.of(2025, 1, 1, 12, 0, 0))),
+                listing.files());
+        Assertions.assertEquals(List.of(FOLDER + "2024/"), listing.subfolders());
+        Assertions.assertEquals("the-token", listing.nextContinuationToken());
+    }
+
+    @Test
+    void testListObjects_LastPage() {
+        final ListBucketResultV2 result = Mockito.mock(ListBucketResultV2.class);
+        Mockito.when(result.contents()).thenReturn(List.of());
+        Mockito.when(result.commonPrefixes()).thenReturn(List.of());
+
+        final S3ObjectListing listing = S3BucketClient.toListing(result);
+
+        Assertions.assertEquals(List.of(), listing.files());
+        Assertions.assertEquals(List.of(), listing.subfolders());
+        Assertions.assertNull(listing.nextContinuationToken());
+    }
+
+    @Test
+    void testGetObject_NotFound() throws Exception {
+        final ErrorResponse errorResponse = Mockito.mock(ErrorResponse.class);
+        Mockito.when(errorResponse.code()).thenReturn("NoSuchKey");
+        final ErrorResponseException exception = Mockito.mock(ErrorResponseException.class);
+        Mockito.when(exception.errorResponse()).thenReturn(errorResponse);
+        Mockito.when(bucketClient.getObject(any())).thenReturn(CompletableFuture.failedFuture(exception));
+
+        Assertions.assertTrue(s3BucketClient.getObject(FOLDER + "fehlt.json").isEmpty());
+    }
+
+    @Test
+    void testGetObject_Error() throws Exception {
+        Mockito.when(bucketClient.getObject(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("S3")));
+
+        Assertions.assertThrows(FileSystemAccessException.class, () -> s3BucketClient.getObject(FOLDER + "zeiger.json"));
+    }
+
+    @Test
+    void testDeleteObjects_ReturnsFailedObjects() throws Exception {
+        final DeleteError error = Mockito.mock(DeleteError.class);
+        Mockito.when(error.objectName()).thenReturn(FOLDER + "b.pdf");
+        Mockito.when(bucketClient.removeObjects(any())).thenReturn(List.of(new Result<>(error)));
+
+        final List<String> failed = s3BucketClient.deleteObjects(List.of(FOLDER + "a.pdf", FOLDER + "b.pdf"));
+
+        Assertions.assertEquals(List.of(FOLDER + "b.pdf"), failed);
+    }
+
+    @Test
+    void testNotConfigured() {
+        final S3BucketClient unconfigured = new S3BucketClient(null, "dave");
+
+        Assertions.assertFalse(unconfigured.isConfigured());
+        Assertions.assertThrows(FileSystemAccessException.class, () -> unconfigured.listObjects(FOLDER, "/", null, 1000));
+    }
+}
@@ -0,0 +1,67 @@
+package de.muenchen.dave.lageplaene.adapter.s3;
+
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class S3MultipartUploaderTest {
+
+    private static final String PATH = "DAVe/Messstellen/Lageplaene/4001/Lageplan.pdf";
+
+    private static final int PART_SIZE = S3MultipartUploader.MIN_PART_SIZE;
+
+    @Mock
+    private S3BucketClient s3BucketClient;
+
+    private S3MultipartUploader s3MultipartUploader;
+
+    @BeforeEach
+    public void beforeEach() throws FileSystemAccessException {
+        s3MultipartUploader = new S3MultipartUploader(s3BucketClient, PART_SIZE, 2);
+        Mockito.lenient().when(s3BucketClient.isConfigured()).thenReturn(true);
+        Mockito.lenient().when(s3BucketClient.createMultipartUpload(PATH, "application/pdf")).thenReturn("upload-id");
+    }
+
+    @Test
+    void testUpload() throws FileSystemAccessException, IOException {
+        Mockito.when(s3BucketClient.uploadPart(eq(PATH), eq("upload-id"), anyInt(), any()))
+                .thenAnswer(invocation -> "etag-" + invocation.getArgument(2));
+        Mockito.when(s3BucketClient.completeMultipartUpload(PATH, "upload-id", List.of("etag-1", "etag-2", "etag-3"))).thenReturn("the-etag");
+
+        final S3MultipartUploader.UploadResult result = s3MultipartUploader.upload(
+                PATH, "application/pdf", new ByteArrayInputStream(new byte[2 * PART_SIZE + 1]));
+
+        Assertions.assertEquals(new S3MultipartUploader.UploadResult(PATH, 2L * PART_SIZE + 1, "the-etag"), result);
+        Mockito.verify(s3BucketClient, Mockito.never()).abortMultipartUpload(any(), any());
+    }
+
+    @Test
+    void testUpload_AbortedIfPartFails() throws FileSystemAccessException {
+        Mockito.when(s3BucketClient.uploadPart(eq(PATH), eq("upload-id"), anyInt(), any())).thenThrow(new FileSystemAccessException("S3"));
+
+        Assertions.assertThrows(FileSystemAccessException.class,
+                () -> s3MultipartUploader.upload(PATH, "application/pdf", new ByteArrayInputStream(new byte[PART_SIZE + 1])));
+
+        Mockito.verify(s3BucketClient).abortMultipartUpload(PATH, "upload-id");
+        Mockito.verify(s3BucketClient, Mockito.never()).completeMultipartUpload(any(), any(), any());
+    }
+
+    @Test
+    void testPartSizeBelowMinimumRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new S3MultipartUploader(s3BucketClient, PART_SIZE - 1, 2));
+    }
+}
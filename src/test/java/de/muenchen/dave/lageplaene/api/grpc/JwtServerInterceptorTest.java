@@ -0,0 +1,124 @@
+package de.muenchen.dave.lageplaene.api.grpc;
+
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanLookupGrpc;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanRequest;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.resilience.BulkheadRegistry;
+import de.muenchen.dave.resilience.RateLimiterRegistry;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+class JwtServerInterceptorTest {
+
+    private static final String VALID_TOKEN = "gueltiges-token";
+
+    private static final JwtDecoder JWT_DECODER = token -> {
+        if (!VALID_TOKEN.equals(token)) {
+            throw new BadJwtException("Signatur ungültig");
+        }
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("dave-backend").build();
+    };
+
+    @Mock
+    private LageplanService lageplanService;
+
+    private Server server;
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        final var environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "de.muenchen.dave.document-storage.rate-limit.exists.capacity", 2,
+                "de.muenchen.dave.document-storage.rate-limit.exists.tokens-per-second", 0.001)));
+        final var lageplanGrpcService = new LageplanGrpcService(lageplanService, new BulkheadRegistry(environment, new SimpleMeterRegistry()),
+                new RateLimiterRegistry(environment, new SimpleMeterRegistry()), Duration.ofSeconds(10), Duration.ofSeconds(30));
+        final String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(lageplanGrpcService, new JwtServerInterceptor(JWT_DECODER)))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    public void afterEach() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void testValidToken() throws FileSystemAccessException {
+        Mockito.when(lageplanService.lageplanForGivenMessstelleIdExists("4001")).thenReturn(true);
+
+        Assertions.assertTrue(stub("Bearer " + VALID_TOKEN).exists(LageplanRequest.newBuilder().setMstId("4001").build()).getExists());
+    }
+
+    @Test
+    void testRateLimitPerUser() throws FileSystemAccessException {
+        Mockito.when(lageplanService.lageplanForGivenMessstelleIdExists("4001")).thenReturn(true);
+        final LageplanRequest request = LageplanRequest.newBuilder().setMstId("4001").build();
+        stub("Bearer " + VALID_TOKEN).exists(request);
+        stub("Bearer " + VALID_TOKEN).exists(request);
+
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> stub("Bearer " + VALID_TOKEN).exists(request));
+
+        Assertions.assertEquals(Status.Code.RESOURCE_EXHAUSTED, exception.getStatus().getCode());
+        Assertions.assertTrue(exception.getStatus().getDescription().contains("erneuter Versuch in"));
+        Mockito.verify(lageplanService, Mockito.times(2)).lageplanForGivenMessstelleIdExists("4001");
+    }
+
+    @Test
+    void testInvalidToken() {
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> stub("Bearer anderes-token").exists(LageplanRequest.newBuilder().setMstId("4001").build()));
+
+        Assertions.assertEquals(Status.Code.UNAUTHENTICATED, exception.getStatus().getCode());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    @Test
+    void testMissingToken() {
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> LageplanLookupGrpc.newBlockingStub(channel).exists(LageplanRequest.newBuilder().setMstId("4001").build()));
+
+        Assertions.assertEquals(Status.Code.UNAUTHENTICATED, exception.getStatus().getCode());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    private LageplanLookupGrpc.LageplanLookupBlockingStub stub(final String authorization) {
+        final Metadata headers = new Metadata();
+        headers.put(JwtServerInterceptor.AUTHORIZATION, authorization);
+        return LageplanLookupGrpc.newBlockingStub(channel).withInterceptors(MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+}
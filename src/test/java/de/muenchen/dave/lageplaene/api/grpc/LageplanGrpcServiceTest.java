@@ -0,0 +1,200 @@
+package de.muenchen.dave.lageplaene.api.grpc;
+
+import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.dave.lageplaene.api.grpc.proto.Lageplan;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanLookupGrpc;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanRequest;
+import de.muenchen.dave.lageplaene.api.grpc.proto.LageplanResult;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.resilience.BulkheadRegistry;
+import de.muenchen.dave.resilience.RateLimiterRegistry;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanGrpcServiceTest {
+
+    private static final DocumentDto DOCUMENT = new DocumentDto("https://s3/DAVe/Messstellen/Lageplaene/4001/Lageplan.pdf?signature", "Lageplan.pdf",
+            "application/pdf", 1024L, Instant.parse("2025-01-01T12:00:00Z"), Instant.parse("2025-01-01T12:30:00.5Z"));
+
+    @Mock
+    private LageplanService lageplanService;
+
+    private final StandardEnvironment environment = new StandardEnvironment();
+
+    private LageplanGrpcService lageplanGrpcService;
+
+    private Server server;
+
+    private ManagedChannel channel;
+
+    private LageplanLookupGrpc.LageplanLookupBlockingStub blockingStub;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        final var bulkheadRegistry = new BulkheadRegistry(environment, new SimpleMeterRegistry());
+        final var rateLimiterRegistry = new RateLimiterRegistry(environment, new SimpleMeterRegistry());
+        lageplanGrpcService = new LageplanGrpcService(lageplanService, bulkheadRegistry, rateLimiterRegistry, Duration.ofSeconds(10), Duration.ofSeconds(30));
+        final String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(lageplanGrpcService).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        blockingStub = LageplanLookupGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void testGetNewest() throws FileSystemAccessException, ResourceNotFoundException {
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenReturn(DOCUMENT);
+
+        final Lageplan lageplan = blockingStub.getNewest(LageplanRequest.newBuilder().setMstId("4001").build());
+
+        Assertions.assertEquals(DOCUMENT.getUrl(), lageplan.getUrl());
+        Assertions.assertEquals("Lageplan.pdf", lageplan.getFileName());
+        Assertions.assertEquals("application/pdf", lageplan.getContentType());
+        Assertions.assertEquals(1024L, lageplan.getSize());
+        Assertions.assertEquals(DOCUMENT.getLastModified().getEpochSecond(), lageplan.getLastModified().getSeconds());
+        Assertions.assertEquals(500_000_000, lageplan.getExpiresAt().getNanos());
+    }
+
+    @Test
+    void testGetNewest_NotFound() throws FileSystemAccessException, ResourceNotFoundException {
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenThrow(new ResourceNotFoundException("Kein Lageplan"));
+
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getNewest(LageplanRequest.newBuilder().setMstId("4001").build()));
+
+        Assertions.assertEquals(Status.Code.NOT_FOUND, exception.getStatus().getCode());
+    }
+
+    @Test
+    void testGetNewest_S3NotAvailable() throws FileSystemAccessException, ResourceNotFoundException {
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenThrow(new FileSystemAccessException("S3 nicht erreichbar"));
+
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getNewest(LageplanRequest.newBuilder().setMstId("4001").build()));
+
+        Assertions.assertEquals(Status.Code.UNAVAILABLE, exception.getStatus().getCode());
+    }
+
+    @Test
+    void testGetNewest_MissingMstId() {
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getNewest(LageplanRequest.getDefaultInstance()));
+
+        Assertions.assertEquals(Status.Code.INVALID_ARGUMENT, exception.getStatus().getCode());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    @Test
+    void testGetNewest_BulkheadFull() {
+        environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+                "de.muenchen.dave.document-storage.bulkhead.lageplan.max-concurrent-calls", 0,
+                "de.muenchen.dave.document-storage.bulkhead.lageplan.max-queue-size", 0)));
+
+        final StatusRuntimeException exception = Assertions.assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getNewest(LageplanRequest.newBuilder().setMstId("4001").build()));
+
+        Assertions.assertEquals(Status.Code.RESOURCE_EXHAUSTED, exception.getStatus().getCode());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    @Test
+    void testGetNewest_DeadlineAlreadyExpired() throws Exception {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        @SuppressWarnings("unchecked")
+        final StreamObserver<Lageplan> responseObserver = Mockito.mock(StreamObserver.class);
+        try {
+            Context.current().withDeadline(Deadline.after(-1, TimeUnit.SECONDS), scheduler).call(() -> {
+                lageplanGrpcService.getNewest(LageplanRequest.newBuilder().setMstId("4001").build(), responseObserver);
+                return null;
+            });
+        } finally {
+            scheduler.shutdownNow();
+        }
+
+        final ArgumentCaptor<Throwable> error = ArgumentCaptor.forClass(Throwable.class);
+        Mockito.verify(responseObserver).onError(error.capture());
+        Assertions.assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getValue()).getCode());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    @Test
+    void testExists() throws FileSystemAccessException {
+        Mockito.when(lageplanService.lageplanForGivenMessstelleIdExists("4001")).thenReturn(true);
+
+        Assertions.assertTrue(blockingStub.exists(LageplanRequest.newBuilder().setMstId("4001").build()).getExists());
+    }
+
+    @Test
+    void testBatchGetNewest() throws FileSystemAccessException, ResourceNotFoundException, InterruptedException {
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenReturn(DOCUMENT);
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4002")).thenThrow(new ResourceNotFoundException("Kein Lageplan"));
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4003")).thenThrow(new FileSystemAccessException("S3 nicht erreichbar"));
+        final List<LageplanResult> results = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        final StreamObserver<LageplanRequest> requests = LageplanLookupGrpc.newStub(channel).batchGetNewest(new StreamObserver<>() {
+            @Override
+            public void onNext(final LageplanResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onError(final Throwable throwable) {
+                Assertions.fail(throwable);
+            }
+
+            @Override
+            public void onCompleted() {
+                completed.countDown();
+            }
+        });
+        for (final String mstId : List.of("4001", "4002", "4003")) {
+            requests.onNext(LageplanRequest.newBuilder().setMstId(mstId).build());
+        }
+        requests.onCompleted();
+
+        Assertions.assertTrue(completed.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(List.of("4001", "4002", "4003"), results.stream().map(LageplanResult::getMstId).toList());
+        Assertions.assertEquals("Lageplan.pdf", results.get(0).getLageplan().getFileName());
+        Assertions.assertTrue(results.get(1).getNotFound());
+        Assertions.assertEquals("S3 nicht erreichbar", results.get(2).getError());
+    }
+}
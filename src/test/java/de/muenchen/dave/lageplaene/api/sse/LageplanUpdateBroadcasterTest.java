@@ -0,0 +1,132 @@
+package de.muenchen.dave.lageplaene.api.sse;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.dave.lageplaene.domain.service.LageplanChangedEvent;
+import de.muenchen.dave.lageplaene.domain.service.LageplanService;
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanUpdateBroadcasterTest {
+
+    @Mock
+    private LageplanService lageplanService;
+
+    private LageplanUpdateBroadcaster broadcaster;
+
+    @BeforeEach
+    public void beforeEach() {
+        broadcaster = new LageplanUpdateBroadcaster(lageplanService, new SimpleMeterRegistry(), Duration.ofMinutes(30), 2, 2);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void testSubscribe_Limits() throws BadRequestException {
+        Assertions.assertThrows(BadRequestException.class, () -> broadcaster.subscribe(Set.of()));
+        Assertions.assertThrows(BadRequestException.class, () -> broadcaster.subscribe(Set.of("4001", "4002", "4003")));
+
+        broadcaster.subscribe(Set.of("4001"));
+        broadcaster.subscribe(Set.of("4001", "4002"));
+
+        Assertions.assertEquals(2, broadcaster.getSubscriberCount());
+        Assertions.assertThrows(BulkheadFullException.class, () -> broadcaster.subscribe(Set.of("4001")));
+    }
+
+    @Test
+    void testSubscribe_ConcurrentSubscriptionsRespectLimit() throws InterruptedException {
+        final int attempts = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger rejected = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(attempts)) {
+            for (int i = 0; i < attempts; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        broadcaster.subscribe(Set.of("4001"));
+                    } catch (BulkheadFullException exception) {
+                        rejected.incrementAndGet();
+                    } catch (BadRequestException | InterruptedException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                });
+            }
+            start.countDown();
+        }
+
+        Assertions.assertEquals(2, broadcaster.getSubscriberCount());
+        Assertions.assertEquals(attempts - 2, rejected.get());
+    }
+
+    @Test
+    void testFanOut_EventIsBuiltOncePerChange() throws BadRequestException, FileSystemAccessException, ResourceNotFoundException {
+        broadcaster.subscribe(Set.of("4001"));
+        broadcaster.subscribe(Set.of("4001", "4002"));
+        Mockito.when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenReturn(
+                new DocumentDto("https://the-presigned-url", "Lageplan.pdf", "application/pdf", 1L, Instant.now(), Instant.now()));
+
+        broadcaster.fanOut(new LageplanChangedEvent("4001", false, Instant.EPOCH, false));
+
+        Mockito.verify(lageplanService, Mockito.times(1)).getNewestLageplanForGivenMessstelleId("4001");
+    }
+
+    @Test
+    void testBuildEvent_UsesLageplanOfChange() throws FileSystemAccessException, ResourceNotFoundException {
+        final FileMetadata newer = new FileMetadata("lageplaene/4001/b.pdf", 2L, "etag-b", LocalDateTime.of(2024, 6, 1, 0, 0));
+        final DocumentDto newerDto = new DocumentDto("https://the-presigned-url/b", "b.pdf", "application/pdf", 2L,
+                newer.lastModified().toInstant(ZoneOffset.UTC), Instant.now());
+        Mockito.lenient().when(lageplanService.getNewestLageplanForGivenMessstelleId("4001")).thenReturn(
+                new DocumentDto("https://the-presigned-url/a", "a.pdf", "application/pdf", 1L, Instant.parse("2024-01-01T00:00:00Z"), Instant.now()));
+        Mockito.when(lageplanService.toDocumentDto(newer)).thenReturn(newerDto);
+
+        final Set<ResponseBodyEmitter.DataWithMediaType> event = broadcaster
+                .buildEvent(new LageplanChangedEvent("4001", false, newer.lastModified().toInstant(ZoneOffset.UTC), false, newer));
+
+        Assertions.assertTrue(event.stream().anyMatch(data -> data.getData() == newerDto));
+        Mockito.verify(lageplanService, Mockito.never()).getNewestLageplanForGivenMessstelleId(anyString());
+    }
+
+    @Test
+    void testFanOut_RemovedLageplanNeedsNoLookup() throws BadRequestException, FileSystemAccessException, ResourceNotFoundException {
+        broadcaster.subscribe(Set.of("4001"));
+
+        broadcaster.fanOut(new LageplanChangedEvent("4001", true, Instant.EPOCH, false));
+
+        Mockito.verify(lageplanService, Mockito.never()).getNewestLageplanForGivenMessstelleId(anyString());
+    }
+
+    @Test
+    void testOnLageplanChanged_WithoutSubscriber() throws FileSystemAccessException, ResourceNotFoundException {
+        broadcaster.onLageplanChanged(new LageplanChangedEvent("4001", false, Instant.EPOCH, false));
+
+        Mockito.verify(lageplanService, Mockito.never()).getNewestLageplanForGivenMessstelleId(anyString());
+    }
+}
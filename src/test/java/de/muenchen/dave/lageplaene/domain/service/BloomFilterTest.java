@@ -0,0 +1,44 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put(String.valueOf(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(bloomFilter.mightContain(String.valueOf(i)));
+        }
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRate() {
+        final BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put(String.valueOf(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain("unbekannt-" + i)) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 2_000, "Falsch-Positive: " + falsePositives);
+    }
+
+    @Test
+    void testGetSizeInBytes() {
+        // Bei 1 % Falsch-Positiv-Rate werden knapp 9,6 Bits je Eintrag benötigt.
+        final BloomFilter bloomFilter = new BloomFilter(100_000, 0.01);
+
+        Assertions.assertTrue(bloomFilter.getSizeInBytes() >= 119_000 && bloomFilter.getSizeInBytes() <= 121_000);
+        Assertions.assertEquals(7, bloomFilter.getHashCount());
+    }
+}
@@ -0,0 +1,148 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Vergleicht Speicherbedarf je Eintrag und Latenz der Abfrage des {@link CompactLageplanIndex} mit
+ * einer {@link ConcurrentHashMap} aus {@link FileMetadata}-Objekten bei 10.000, 100.000 und
+ * 1.000.000 Einträgen.
+ * <p>
+ * Wird nicht mit den Tests ausgeführt, sondern über die main-Methode gestartet, z.B. mit
+ * {@code -Xmx6g -XX:+UseSerialGC}, damit die Messung des Heaps nach {@link System#gc()} stabil ist.
+ */
+public final class CompactLageplanIndexBenchmark {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+
+    private static final int LOOKUPS = 2_000_000;
+
+    /**
+     * Bei weniger Einträgen werden mehrere Instanzen gemessen, damit die Schwankungen der Belegung des
+     * Heaps nicht ins Gewicht fallen.
+     */
+    private static final int MIN_MEASURED_ENTRIES = 1_000_000;
+
+    private static final Instant FETCHED_AT = Instant.parse("2025-01-01T12:00:00Z");
+
+    private CompactLageplanIndexBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        // Ein erster Durchlauf ohne Ausgabe, damit Laden der Klassen und JIT-Compiler die Messung nicht verfälschen.
+        benchmarkIndex(10_000);
+        benchmarkMap(10_000);
+        System.out.printf("%10s %-22s %14s %14s %12s%n", "Einträge", "Struktur", "Heap B/Eintrag", "Off-Heap B/E.", "ns/Abfrage");
+        for (final int entries : new int[] { 10_000, 100_000, 1_000_000 }) {
+            System.out.println(benchmarkIndex(entries));
+            System.out.println(benchmarkMap(entries));
+        }
+    }
+
+    private static String benchmarkIndex(final int entries) {
+        final int copies = copies(entries);
+        final long heapBefore = usedHeap();
+        final long directBefore = usedDirectMemory();
+        final CompactLageplanIndex[] indexes = new CompactLageplanIndex[copies];
+        for (int copy = 0; copy < copies; copy++) {
+            indexes[copy] = new CompactLageplanIndex();
+            for (int i = 0; i < entries; i++) {
+                indexes[copy].put(folder(i), newest(i), FETCHED_AT, Integer.MAX_VALUE);
+            }
+        }
+        final long heap = (usedHeap() - heapBefore) / copies;
+        final long direct = (usedDirectMemory() - directBefore) / copies;
+        final CompactLageplanIndex index = indexes[0];
+        final double latency = measureLookups(entries, folder -> Optional.ofNullable(index.get(folder)));
+        if (index.size() != entries) {
+            throw new IllegalStateException("Unerwartete Anzahl an Einträgen: " + index.size());
+        }
+        return format(entries, "CompactLageplanIndex", heap, direct, latency);
+    }
+
+    private static String benchmarkMap(final int entries) {
+        final int copies = copies(entries);
+        final long heapBefore = usedHeap();
+        final List<Map<String, NewestLageplanCache.Entry>> maps = new ArrayList<>(copies);
+        for (int copy = 0; copy < copies; copy++) {
+            final Map<String, NewestLageplanCache.Entry> map = new ConcurrentHashMap<>();
+            for (int i = 0; i < entries; i++) {
+                map.put(folder(i), new NewestLageplanCache.Entry(newest(i), FETCHED_AT, false));
+            }
+            maps.add(map);
+        }
+        final long heap = (usedHeap() - heapBefore) / copies;
+        final Map<String, NewestLageplanCache.Entry> map = maps.getFirst();
+        final double latency = measureLookups(entries, folder -> Optional.ofNullable(map.get(folder)));
+        if (map.size() != entries) {
+            throw new IllegalStateException("Unerwartete Anzahl an Einträgen: " + map.size());
+        }
+        return format(entries, "ConcurrentHashMap", heap, 0, latency);
+    }
+
+    private static double measureLookups(final int entries, final Function<String, Optional<NewestLageplanCache.Entry>> lookup) {
+        final String[] folders = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            folders[i] = folder(ThreadLocalRandom.current().nextInt(entries));
+        }
+        long checksum = 0;
+        // Aufwärmen für den JIT-Compiler.
+        for (int i = 0; i < LOOKUPS; i++) {
+            checksum += lookup.apply(folders[i]).orElseThrow().newest().fileSize();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            checksum += lookup.apply(folders[i]).orElseThrow().newest().fileSize();
+        }
+        final long duration = System.nanoTime() - start;
+        if (checksum == 0) {
+            throw new IllegalStateException();
+        }
+        return (double) duration / LOOKUPS;
+    }
+
+    private static int copies(final int entries) {
+        return Math.max(MIN_MEASURED_ENTRIES / entries, 1);
+    }
+
+    private static String folder(final int mstId) {
+        return BASE_PATH + mstId + "/";
+    }
+
+    private static FileMetadata newest(final int mstId) {
+        return new FileMetadata(
+                folder(mstId) + "Lageplan_" + mstId + "_2024-06-01.pdf",
+                100_000L + mstId,
+                String.format("%032x", (long) mstId * 0x9E3779B97F4A7C15L),
+                LocalDateTime.of(2024, 6, 1, 12, 0).plusSeconds(mstId));
+    }
+
+    private static String format(final int entries, final String structure, final long heap, final long direct, final double latency) {
+        return String.format("%10d %-22s %14.1f %14.1f %12.1f", entries, structure, (double) heap / entries, (double) direct / entries, latency);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirectMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,155 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class CompactLageplanIndexTest {
+
+    private static final String FOLDER = "DAVe/Messstellen/Lageplaene/4001/";
+
+    private static final Instant FETCHED_AT = Instant.parse("2025-01-01T12:00:00.123456789Z");
+
+    private final CompactLageplanIndex index = new CompactLageplanIndex();
+
+    @Test
+    void testPutAndGet() {
+        final var newest = new FileMetadata(FOLDER + "Lageplan_ä.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0, 1));
+
+        Assertions.assertTrue(index.put(FOLDER, newest, FETCHED_AT, 10));
+
+        Assertions.assertEquals(new NewestLageplanCache.Entry(newest, FETCHED_AT, false), index.get(FOLDER));
+        Assertions.assertNull(index.get("DAVe/Messstellen/Lageplaene/4002/"));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    void testPutAndGet_WithoutLageplan() {
+        index.put(FOLDER, null, FETCHED_AT, 10);
+
+        Assertions.assertEquals(new NewestLageplanCache.Entry(null, FETCHED_AT, false), index.get(FOLDER));
+    }
+
+    @Test
+    void testPutAndGet_PathOutsideFolderWithoutOptionalValues() {
+        final var newest = new FileMetadata("anderer/Lageplan.pdf", 0L, null, null);
+
+        index.put(FOLDER, newest, FETCHED_AT, 10);
+
+        Assertions.assertEquals(newest, index.get(FOLDER).newest());
+    }
+
+    @Test
+    void testPut_OverwritesEntryAndResetsStale() {
+        final var newer = new FileMetadata(FOLDER + "neu.pdf", 2L, "etag2", LocalDateTime.of(2025, 2, 1, 12, 0, 0));
+        index.put(FOLDER, new FileMetadata(FOLDER + "alt.pdf", 1L, "etag1", LocalDateTime.of(2025, 1, 1, 12, 0, 0)), FETCHED_AT, 10);
+        index.getAndMarkStale(FOLDER);
+
+        index.put(FOLDER, newer, FETCHED_AT, 10);
+
+        Assertions.assertEquals(new NewestLageplanCache.Entry(newer, FETCHED_AT, false), index.get(FOLDER));
+        Assertions.assertEquals(1, index.size());
+        Assertions.assertEquals(List.of(), index.getStaleFolders());
+    }
+
+    @Test
+    void testPut_OnlyIfNotOlder() {
+        final var older = new FileMetadata(FOLDER + "alt.pdf", 1L, "etag1", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        final var newer = new FileMetadata(FOLDER + "neu.pdf", 2L, "etag2", LocalDateTime.of(2025, 2, 1, 12, 0, 0));
+        index.put(FOLDER, newer, FETCHED_AT, 10);
+
+        Assertions.assertTrue(index.put(FOLDER, older, FETCHED_AT, 10, true));
+        Assertions.assertEquals(newer, index.get(FOLDER).newest());
+
+        // Der Folder wurde nach der Änderung des Lageplans als leer abgefragt.
+        index.put(FOLDER, null, Instant.parse("2025-03-01T12:00:00Z"), 10);
+        Assertions.assertTrue(index.put(FOLDER, newer, FETCHED_AT, 10, true));
+        Assertions.assertNull(index.get(FOLDER).newest());
+
+        final var newest = new FileMetadata(FOLDER + "neuester.pdf", 3L, "etag3", LocalDateTime.of(2025, 4, 1, 12, 0, 0));
+        Assertions.assertTrue(index.put(FOLDER, newest, FETCHED_AT, 10, true));
+        Assertions.assertEquals(newest, index.get(FOLDER).newest());
+    }
+
+    @Test
+    void testPut_MaxEntriesReached() {
+        Assertions.assertTrue(index.put(FOLDER, null, FETCHED_AT, 1));
+
+        Assertions.assertFalse(index.put("DAVe/Messstellen/Lageplaene/4002/", null, FETCHED_AT, 1));
+        Assertions.assertTrue(index.put(FOLDER, null, FETCHED_AT, 1));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    void testPut_TooLongString() {
+        final var newest = new FileMetadata(FOLDER + "a".repeat(70_000), 1L, "etag", null);
+
+        Assertions.assertFalse(index.put(FOLDER, newest, FETCHED_AT, 10));
+        Assertions.assertNull(index.get(FOLDER));
+    }
+
+    @Test
+    void testRemove() {
+        index.put(FOLDER, null, FETCHED_AT, 10);
+        index.getAndMarkStale(FOLDER);
+
+        index.remove(FOLDER);
+        index.remove(FOLDER);
+
+        Assertions.assertNull(index.get(FOLDER));
+        Assertions.assertEquals(0, index.size());
+        Assertions.assertEquals(List.of(), index.getStaleFolders());
+    }
+
+    @Test
+    void testGetAndMarkStale() {
+        index.put(FOLDER, null, FETCHED_AT, 10);
+        index.put("DAVe/Messstellen/Lageplaene/4002/", null, FETCHED_AT, 10);
+
+        Assertions.assertTrue(index.getAndMarkStale(FOLDER).stale());
+        Assertions.assertNull(index.getAndMarkStale("DAVe/Messstellen/Lageplaene/4003/"));
+
+        Assertions.assertTrue(index.get(FOLDER).stale());
+        Assertions.assertEquals(List.of(FOLDER), index.getStaleFolders());
+    }
+
+    @Test
+    void testManyEntriesWithOverwritesAndRemovals() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                index.put(folder(i), newest(i, round), FETCHED_AT, Integer.MAX_VALUE);
+            }
+            for (int i = 0; i < 10_000; i += 2) {
+                index.remove(folder(i));
+            }
+        }
+
+        Assertions.assertEquals(5_000, index.size());
+        for (int i = 0; i < 10_000; i++) {
+            final var entry = index.get(folder(i));
+            if (i % 2 == 0) {
+                Assertions.assertNull(entry);
+            } else {
+                Assertions.assertEquals(newest(i, 2), entry.newest());
+            }
+        }
+        Assertions.assertTrue(index.getOffHeapBytes() > 0);
+        Assertions.assertTrue(index.getHeapBytes() >= 5_000L * CompactLageplanIndex.HEAP_BYTES_PER_ENTRY);
+    }
+
+    private static String folder(final int mstId) {
+        return "DAVe/Messstellen/Lageplaene/" + mstId + "/";
+    }
+
+    private static FileMetadata newest(final int mstId, final int round) {
+        return new FileMetadata(
+                folder(mstId) + "Lageplan_" + round + ".pdf",
+                mstId,
+                "etag" + round,
+                LocalDateTime.of(2025, 1, 1, 12, 0).plusDays(round));
+    }
+}
@@ -0,0 +1,180 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.api.dto.LageplanChangesDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanChangeServiceTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    @Mock
+    private LatestLageplanPointer latestLageplanPointer;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private NewestLageplanCache newestLageplanCache;
+
+    private LageplanChangeService lageplanChangeService;
+
+    @BeforeEach
+    public void beforeEach() {
+        newestLageplanCache = new NewestLageplanCache(100);
+        lageplanChangeService = new LageplanChangeService(
+                lageplanS3Client, newestLageplanCache, latestLageplanPointer, applicationEventPublisher, BASE_PATH, true, Duration.ofMinutes(1), 2, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static FileMetadata file(final String relativePath, final LocalDateTime lastModified) {
+        return new FileMetadata(BASE_PATH + relativePath, 1L, "etag", lastModified);
+    }
+
+    @Test
+    void testGetChanges_SinceAndContinuation() throws FileSystemAccessException, BadRequestException {
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(List.of(
+                file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                file("4001/b.pdf", LocalDateTime.of(2024, 6, 1, 0, 0)),
+                file("4002/a.pdf", LocalDateTime.of(2023, 1, 1, 0, 0)),
+                file("4003/a.pdf", LocalDateTime.of(2024, 7, 1, 0, 0)),
+                file("4004/a.pdf", LocalDateTime.of(2024, 8, 1, 0, 0)),
+                file("4001.latest.json", LocalDateTime.of(2024, 9, 1, 0, 0))));
+        lageplanChangeService.scan();
+
+        final LageplanChangesDto firstPage = lageplanChangeService.getChanges(Instant.parse("2024-03-01T00:00:00Z"), null, 2);
+        Assertions.assertEquals(2, firstPage.getMstIds().size());
+        Assertions.assertTrue(firstPage.isHasMore());
+
+        final LageplanChangesDto secondPage = lageplanChangeService.getChanges(null, firstPage.getContinuationToken(), 2);
+        Assertions.assertFalse(secondPage.isHasMore());
+        final List<String> all = new ArrayList<>(firstPage.getMstIds());
+        all.addAll(secondPage.getMstIds());
+        Assertions.assertEquals(List.of("4001", "4003", "4004"), all.stream().sorted().toList());
+
+        final LageplanChangesDto noChanges = lageplanChangeService.getChanges(null, secondPage.getContinuationToken(), 2);
+        Assertions.assertEquals(List.of(), noChanges.getMstIds());
+
+        lageplanChangeService.record("4002", NOW);
+        final LageplanChangesDto newChange = lageplanChangeService.getChanges(null, noChanges.getContinuationToken(), 2);
+        Assertions.assertEquals(List.of("4002"), newChange.getMstIds());
+        Assertions.assertTrue(newestLageplanCache.getAndMarkStale(BASE_PATH + "4003/").isPresent());
+    }
+
+    @Test
+    void testGetChanges_RemovedLageplan() throws BadRequestException {
+        final FileMetadata scanned = file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0));
+        lageplanChangeService.applyScan(Map.of("4001", scanned), Map.of(), NOW);
+        final String token = lageplanChangeService.getChanges(Instant.EPOCH, null, 2).getContinuationToken();
+
+        lageplanChangeService.applyScan(Map.of(), Map.of(), NOW.plusSeconds(60));
+
+        Assertions.assertEquals(List.of("4001"), lageplanChangeService.getChanges(null, token, 2).getMstIds());
+        Mockito.verify(applicationEventPublisher).publishEvent(new LageplanChangedEvent("4001", false, Instant.parse("2024-01-01T00:00:00Z"), false, scanned));
+        Mockito.verify(applicationEventPublisher).publishEvent(new LageplanChangedEvent("4001", true, NOW.plusSeconds(60), false));
+    }
+
+    @Test
+    void testApplyScan_ChangeRecordedDuringScan() throws BadRequestException {
+        final Instant scanStartedAt = NOW.minusSeconds(30);
+        lageplanChangeService.applyScan(Map.of("4001", file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0))), Map.of(), scanStartedAt.minusSeconds(300));
+        final FileMetadata uploaded = file("4001/b.pdf", LocalDateTime.ofInstant(NOW, ZoneOffset.UTC));
+        newestLageplanCache.put(BASE_PATH + "4001/", Optional.of(uploaded));
+        lageplanChangeService.record("4001", NOW);
+        lageplanChangeService.record("4002", NOW);
+
+        // Die Auflistung wurde vor dem Upload in 4001 und 4002 begonnen.
+        lageplanChangeService.applyScan(Map.of("4001", file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0))), Map.of(), scanStartedAt);
+
+        Assertions.assertEquals(List.of("4001", "4002"), lageplanChangeService.getChanges(Instant.EPOCH, null, 2).getMstIds().stream().sorted().toList());
+        Assertions.assertEquals(Optional.of(uploaded), newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").orElseThrow().getNewest());
+        Mockito.verify(applicationEventPublisher, Mockito.never()).publishEvent(new LageplanChangedEvent("4002", true, scanStartedAt, false));
+    }
+
+    @Test
+    void testScan_RewritesOutdatedPointerBeforeRecordingChange() throws FileSystemAccessException {
+        final FileMetadata uploadedToS3 = file("4001/b.pdf", LocalDateTime.of(2024, 6, 1, 0, 0));
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(List.of(
+                file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                uploadedToS3,
+                file("4001.latest.json", LocalDateTime.of(2024, 1, 1, 0, 1)),
+                file("4002/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                file("4002.latest.json", LocalDateTime.of(2024, 1, 1, 0, 1)),
+                file("4003.latest.json", LocalDateTime.of(2024, 1, 1, 0, 1))));
+
+        lageplanChangeService.scan();
+
+        final InOrder inOrder = Mockito.inOrder(latestLageplanPointer, applicationEventPublisher);
+        inOrder.verify(latestLageplanPointer).write(BASE_PATH + "4001/", uploadedToS3);
+        inOrder.verify(applicationEventPublisher)
+                .publishEvent(new LageplanChangedEvent("4001", false, Instant.parse("2024-06-01T00:00:00Z"), false, uploadedToS3));
+        Mockito.verify(latestLageplanPointer, Mockito.never()).write(Mockito.eq(BASE_PATH + "4002/"), Mockito.any());
+        Mockito.verify(latestLageplanPointer).delete(BASE_PATH + "4003/");
+    }
+
+    @Test
+    void testGetChanges_TokenOfOtherInstance() throws BadRequestException {
+        final var otherInstance = new LageplanChangeService(
+                lageplanS3Client, newestLageplanCache, latestLageplanPointer, applicationEventPublisher, BASE_PATH, true, Duration.ofMinutes(1), 2, Clock.fixed(NOW, ZoneOffset.UTC));
+        final String token = otherInstance.getChanges(Instant.parse("2024-03-01T00:00:00Z"), null, 2).getContinuationToken();
+        lageplanChangeService.record("4001", Instant.parse("2024-01-01T00:00:00Z"));
+        lageplanChangeService.record("4002", Instant.parse("2024-06-01T00:00:00Z"));
+
+        Assertions.assertEquals(List.of("4002"), lageplanChangeService.getChanges(null, token, 2).getMstIds());
+    }
+
+    @Test
+    void testRecordRemote() throws BadRequestException {
+        final Instant lastModified = Instant.parse("2024-06-01T00:00:00Z");
+        newestLageplanCache.put(BASE_PATH + "4001/", Optional.of(file("4001/a.pdf", LocalDateTime.of(2024, 1, 1, 0, 0))));
+
+        lageplanChangeService.recordRemote("4001", false, lastModified);
+        lageplanChangeService.recordRemote("4001", false, lastModified);
+
+        Assertions.assertEquals(List.of("4001"), lageplanChangeService.getChanges(Instant.EPOCH, null, 2).getMstIds());
+        Assertions.assertTrue(newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").isEmpty());
+        Mockito.verify(applicationEventPublisher, Mockito.times(1)).publishEvent(new LageplanChangedEvent("4001", false, lastModified, true));
+    }
+
+    @Test
+    void testRecordRemote_Removal() {
+        lageplanChangeService.record("4001", Instant.parse("2024-06-01T00:00:00Z"));
+
+        lageplanChangeService.recordRemote("4001", true, Instant.parse("2024-01-01T00:00:00Z"));
+        lageplanChangeService.recordRemote("4001", true, NOW);
+
+        Mockito.verify(applicationEventPublisher, Mockito.never())
+                .publishEvent(new LageplanChangedEvent("4001", true, Instant.parse("2024-01-01T00:00:00Z"), true));
+        Mockito.verify(applicationEventPublisher).publishEvent(new LageplanChangedEvent("4001", true, NOW, true));
+    }
+
+    @Test
+    void testGetChanges_InvalidRequest() {
+        Assertions.assertThrows(BadRequestException.class, () -> lageplanChangeService.getChanges(null, null, 2));
+        Assertions.assertThrows(BadRequestException.class, () -> lageplanChangeService.getChanges(null, "kein-token", 2));
+    }
+}
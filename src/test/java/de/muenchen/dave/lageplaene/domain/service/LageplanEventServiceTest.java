@@ -0,0 +1,196 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.api.dto.S3EventNotificationDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanEventServiceTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Mock
+    private LatestLageplanPointer latestLageplanPointer;
+
+    @Mock
+    private LageplanChangeService lageplanChangeService;
+
+    @Mock
+    private LageplanService lageplanService;
+
+    private NewestLageplanCache newestLageplanCache;
+
+    private LageplanEventService lageplanEventService;
+
+    @BeforeEach
+    public void beforeEach() {
+        newestLageplanCache = new NewestLageplanCache(100);
+        lageplanEventService = new LageplanEventService(latestLageplanPointer, newestLageplanCache, lageplanChangeService, lageplanService, BASE_PATH, 10,
+                500, Duration.ofHours(1));
+        Mockito.lenient().when(lageplanChangeService.isNewerThanKnown(anyString(), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        lageplanEventService.shutdown();
+    }
+
+    @Test
+    void testAccept_AwsPut() throws IOException, BadRequestException {
+        Assertions.assertEquals(1, lageplanEventService.accept(load("aws-put.json")));
+        lageplanEventService.flush();
+
+        final var expected = new FileMetadata(BASE_PATH + "4001/Lageplan.pdf", 1024, "d41d8cd98f00b204e9800998ecf8427e",
+                LocalDateTime.of(2026, 10, 19, 8, 15, 30, 123_000_000));
+        Mockito.verify(latestLageplanPointer).write(BASE_PATH + "4001/", expected);
+        Mockito.verify(lageplanChangeService).record("4001", Instant.parse("2026-10-19T08:15:30.123Z"));
+        Assertions.assertEquals(Optional.of(expected), newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").orElseThrow().getNewest());
+        Mockito.verifyNoInteractions(lageplanService);
+    }
+
+    @Test
+    void testAccept_MinioPutWithEncodedKey() throws IOException, BadRequestException {
+        Assertions.assertEquals(1, lageplanEventService.accept(load("minio-put.json")));
+        lageplanEventService.flush();
+
+        final var expected = new FileMetadata(BASE_PATH + "4002/Lageplan Nord.pdf", 2048, "0f343b0931126a20f133d67c2b018a3b",
+                LocalDateTime.of(2026, 10, 19, 8, 16));
+        Mockito.verify(latestLageplanPointer).write(BASE_PATH + "4002/", expected);
+        Mockito.verify(lageplanChangeService).record("4002", Instant.parse("2026-10-19T08:16:00Z"));
+    }
+
+    @Test
+    void testAccept_NotNewerThanKnown() throws IOException, BadRequestException {
+        Mockito.when(lageplanChangeService.isNewerThanKnown(anyString(), any())).thenReturn(false);
+
+        lageplanEventService.accept(load("aws-put.json"));
+        lageplanEventService.flush();
+
+        Mockito.verifyNoInteractions(latestLageplanPointer);
+        Mockito.verify(lageplanChangeService, Mockito.never()).record(anyString(), any(Instant.class));
+        Assertions.assertTrue(newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").isEmpty());
+    }
+
+    @Test
+    void testAccept_DeleteWithRemainingLageplan() throws IOException, BadRequestException, FileSystemAccessException {
+        final var remaining = new FileMetadata(BASE_PATH + "4001/Lageplan-alt.pdf", 10, "etag", LocalDateTime.of(2026, 1, 1, 0, 0));
+        Mockito.when(lageplanService.reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4001/")).thenReturn(Optional.of(remaining));
+
+        lageplanEventService.accept(load("aws-delete.json"));
+        lageplanEventService.flush();
+
+        Mockito.verify(lageplanChangeService).record("4001", Instant.parse("2026-01-01T00:00:00Z"));
+        Mockito.verify(latestLageplanPointer, Mockito.never()).delete(anyString());
+        Mockito.verify(lageplanChangeService, Mockito.never()).recordRemoval(anyString(), any());
+    }
+
+    @Test
+    void testAccept_DeleteOfLastLageplan() throws IOException, BadRequestException, FileSystemAccessException {
+        Mockito.when(lageplanService.reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4001/")).thenReturn(Optional.empty());
+
+        lageplanEventService.accept(load("aws-delete.json"));
+        lageplanEventService.flush();
+
+        Mockito.verify(latestLageplanPointer).delete(BASE_PATH + "4001/");
+        Mockito.verify(lageplanChangeService).recordRemoval("4001", Instant.parse("2026-10-19T09:00:00Z"));
+    }
+
+    @Test
+    void testAccept_DeleteFailsInvalidatesCache() throws IOException, BadRequestException, FileSystemAccessException {
+        newestLageplanCache.put(BASE_PATH + "4001/", Optional.empty());
+        Mockito.when(lageplanService.reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4001/")).thenThrow(new FileSystemAccessException("S3"));
+
+        lageplanEventService.accept(load("aws-delete.json"));
+        lageplanEventService.flush();
+
+        Assertions.assertTrue(newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").isEmpty());
+        Mockito.verifyNoInteractions(latestLageplanPointer);
+    }
+
+    @Test
+    void testAccept_BatchCoalescedPerMessstelle() throws IOException, BadRequestException, FileSystemAccessException {
+        Mockito.when(lageplanService.reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4003/")).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(3, lageplanEventService.accept(load("aws-batch.json")));
+        lageplanEventService.flush();
+
+        final var expected = new FileMetadata(BASE_PATH + "4001/2026/Lageplan-neu.pdf", 200, "etag-neu-2", LocalDateTime.of(2026, 10, 19, 10, 0, 5));
+        Mockito.verify(latestLageplanPointer).write(BASE_PATH + "4001/", expected);
+        Mockito.verify(lageplanChangeService).record("4001", Instant.parse("2026-10-19T10:00:05Z"));
+        Mockito.verify(lageplanChangeService).recordRemoval("4003", Instant.parse("2026-10-19T10:00:01Z"));
+        Mockito.verify(latestLageplanPointer).delete(BASE_PATH + "4003/");
+        Mockito.verify(lageplanService).reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4003/");
+        Mockito.verifyNoMoreInteractions(latestLageplanPointer, lageplanService);
+    }
+
+    @Test
+    void testAccept_EventsAcrossNotificationsCoalesced() throws IOException, BadRequestException, FileSystemAccessException {
+        lageplanEventService.accept(load("aws-batch.json"));
+        lageplanEventService.accept(load("aws-put.json"));
+        Mockito.lenient().when(lageplanService.reconcileNewestFileInFolderAndSubfolder(anyString())).thenReturn(Optional.empty());
+
+        lageplanEventService.flush();
+
+        // Das Event aus aws-put.json ist älter als das aus aws-batch.json.
+        Mockito.verify(lageplanChangeService).record("4001", Instant.parse("2026-10-19T10:00:05Z"));
+        Mockito.verify(lageplanChangeService, Mockito.never()).record("4001", Instant.parse("2026-10-19T08:15:30.123Z"));
+    }
+
+    @Test
+    void testAccept_TooManyRecords() {
+        final var eventRecord = new S3EventNotificationDto.EventRecord("ObjectCreated:Put", Instant.EPOCH,
+                new S3EventNotificationDto.S3Entity(new S3EventNotificationDto.S3Object(BASE_PATH + "4001/Lageplan.pdf", 1L, "etag", "01")));
+        final var notification = new S3EventNotificationDto(Collections.nCopies(11, eventRecord));
+
+        Assertions.assertThrows(BadRequestException.class, () -> lageplanEventService.accept(notification));
+    }
+
+    @Test
+    void testAccept_NoRecords() throws BadRequestException {
+        Assertions.assertEquals(0, lageplanEventService.accept(new S3EventNotificationDto()));
+    }
+
+    @Test
+    void testFlush_Scheduled() throws IOException, BadRequestException {
+        final LageplanEventService service = new LageplanEventService(latestLageplanPointer, newestLageplanCache, lageplanChangeService, lageplanService,
+                BASE_PATH, 10, 500, Duration.ofMillis(10));
+        try {
+            service.accept(load("aws-put.json"));
+
+            Mockito.verify(latestLageplanPointer, Mockito.timeout(5000)).write(Mockito.eq(BASE_PATH + "4001/"), any());
+            Mockito.verify(lageplanChangeService, Mockito.timeout(5000)).record("4001", Instant.parse("2026-10-19T08:15:30.123Z"));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private S3EventNotificationDto load(final String name) throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/s3-events/" + name)) {
+            return objectMapper.readValue(inputStream, S3EventNotificationDto.class);
+        }
+    }
+}
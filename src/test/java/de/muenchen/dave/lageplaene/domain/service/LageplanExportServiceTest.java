@@ -0,0 +1,165 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.resilience.BulkheadFullException;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanExportServiceTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+
+    @Mock
+    private LageplanService lageplanService;
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    @Mock
+    private MessstelleCatalog messstelleCatalog;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private LageplanExportService lageplanExportService;
+
+    @BeforeEach
+    public void beforeEach() {
+        lageplanExportService = new LageplanExportService(
+                lageplanService, lageplanS3Client, messstelleCatalog, BASE_PATH, 2, 3, 1, Duration.ofSeconds(30), executor);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        executor.shutdownNow();
+    }
+
+    private void givenLageplan(final String mstId, final String fileName, final String content) throws FileSystemAccessException {
+        final String pathToFile = BASE_PATH + mstId + "/" + fileName;
+        Mockito.when(lageplanService.getNewestFileInFolderAndSubfolder(BASE_PATH + mstId + "/"))
+                .thenReturn(Optional.of(new FileMetadata(pathToFile, (long) content.length(), "etag", LocalDateTime.of(2025, 1, 1, 12, 0))));
+        Mockito.when(lageplanS3Client.getObjectAsStream(pathToFile))
+                .thenReturn(Optional.of(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static Map<String, String> unzip(final byte[] archive) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void testExport_WritesNewestLageplaeneInOrder() throws Exception {
+        givenLageplan("4001", "neu.pdf", "Lageplan 4001");
+        givenLageplan("4002", "plan.png", "Lageplan 4002");
+        Mockito.when(lageplanService.getNewestFileInFolderAndSubfolder(BASE_PATH + "4003/")).thenReturn(Optional.empty());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        lageplanExportService.startExport(Set.of("4003", "4002", "4001"), null).writeTo(outputStream);
+
+        final Map<String, String> entries = unzip(outputStream.toByteArray());
+        Assertions.assertEquals(List.of("4001/neu.pdf", "4002/plan.png", LageplanExportService.MISSING_ENTRY), List.copyOf(entries.keySet()));
+        Assertions.assertEquals("Lageplan 4001", entries.get("4001/neu.pdf"));
+        Assertions.assertEquals("4003: kein Lageplan vorhanden", entries.get(LageplanExportService.MISSING_ENTRY));
+    }
+
+    @Test
+    void testExport_FailedFetchIsListedAsMissing() throws Exception {
+        givenLageplan("4001", "neu.pdf", "Lageplan 4001");
+        Mockito.when(lageplanService.getNewestFileInFolderAndSubfolder(BASE_PATH + "4002/")).thenThrow(new FileSystemAccessException("Fehler"));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        lageplanExportService.startExport(List.of("4001", "4002"), null).writeTo(outputStream);
+
+        final Map<String, String> entries = unzip(outputStream.toByteArray());
+        Assertions.assertEquals("Lageplan 4001", entries.get("4001/neu.pdf"));
+        Assertions.assertEquals("4002: Fehler beim Abruf", entries.get(LageplanExportService.MISSING_ENTRY));
+    }
+
+    @Test
+    void testExport_ByPrefix() throws Exception {
+        Mockito.when(messstelleCatalog.getMstIdsWithPrefix("40")).thenReturn(List.of("4001"));
+        givenLageplan("4001", "neu.pdf", "Lageplan 4001");
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        lageplanExportService.startExport(null, "40").writeTo(outputStream);
+
+        Assertions.assertEquals(Map.of("4001/neu.pdf", "Lageplan 4001"), unzip(outputStream.toByteArray()));
+    }
+
+    @Test
+    void testExport_ClosesStreamsWhenClientDisconnects() throws Exception {
+        final String pathToFile = BASE_PATH + "4001/neu.pdf";
+        Mockito.when(lageplanService.getNewestFileInFolderAndSubfolder(BASE_PATH + "4001/"))
+                .thenReturn(Optional.of(new FileMetadata(pathToFile, 1L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0))));
+        final InputStream content = Mockito.spy(new ByteArrayInputStream(new byte[] { 1 }));
+        Mockito.when(lageplanS3Client.getObjectAsStream(pathToFile)).thenReturn(Optional.of(content));
+        final OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Verbindung getrennt");
+            }
+        };
+
+        final LageplanExportService.LageplanExport export = lageplanExportService.startExport(List.of("4001"), null);
+
+        Assertions.assertThrows(IOException.class, () -> export.writeTo(disconnected));
+        Mockito.verify(content).close();
+    }
+
+    @Test
+    void testStartExport_Validation() {
+        Assertions.assertThrows(BadRequestException.class, () -> lageplanExportService.startExport(null, " "));
+        Assertions.assertThrows(BadRequestException.class, () -> lageplanExportService.startExport(List.of("1", "2", "3", "4"), null));
+    }
+
+    @Test
+    void testStartExport_RejectedWhileExportRunning() throws Exception {
+        lageplanExportService.startExport(List.of("4001"), null);
+
+        Assertions.assertThrows(BulkheadFullException.class, () -> lageplanExportService.startExport(List.of("4001"), null));
+    }
+
+    @Test
+    void testStartExport_ReleasedWithoutWriting() throws Exception {
+        final LageplanExportService.LageplanExport export = lageplanExportService.startExport(List.of("4001"), null);
+
+        export.release();
+        export.release();
+
+        lageplanExportService.startExport(List.of("4001"), null);
+        Assertions.assertThrows(BulkheadFullException.class, () -> lageplanExportService.startExport(List.of("4001"), null));
+    }
+}
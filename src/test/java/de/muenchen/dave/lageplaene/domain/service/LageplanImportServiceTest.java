@@ -0,0 +1,114 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.S3MultipartUploader;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanImportServiceTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+
+    @TempDir
+    private Path sourceDirectory;
+
+    @Mock
+    private S3MultipartUploader s3MultipartUploader;
+
+    @Mock
+    private LageplanService lageplanService;
+
+    private NewestLageplanCache newestLageplanCache;
+
+    private LageplanImportService lageplanImportService;
+
+    @BeforeEach
+    public void beforeEach() throws FileSystemAccessException, IOException {
+        newestLageplanCache = new NewestLageplanCache(100);
+        lageplanImportService = new LageplanImportService(s3MultipartUploader, lageplanService, newestLageplanCache, BASE_PATH, 2, Clock.systemUTC());
+        Mockito.lenient().when(s3MultipartUploader.upload(anyString(), any(), any()))
+                .thenAnswer(invocation -> new S3MultipartUploader.UploadResult(invocation.getArgument(0), 3L, "the-etag"));
+    }
+
+    @Test
+    void testImportDirectory() throws IOException, FileSystemAccessException {
+        Files.createDirectories(sourceDirectory.resolve("4001/2024"));
+        Files.write(sourceDirectory.resolve("4001/2024/Lageplan.pdf"), new byte[] { 1, 2, 3 });
+        Files.write(sourceDirectory.resolve("4001/Lageplan.pdf"), new byte[] { 4, 5, 6 });
+        Files.write(sourceDirectory.resolve("ohne-messstelle.pdf"), new byte[] { 7 });
+
+        final LageplanImportService.ImportReport report = lageplanImportService.importDirectory(sourceDirectory);
+
+        Assertions.assertEquals(2, report.uploaded());
+        Assertions.assertEquals(0, report.skipped());
+        Assertions.assertEquals(0, report.failed());
+        Assertions.assertEquals(6, report.bytes());
+        Mockito.verify(s3MultipartUploader).upload(eq(BASE_PATH + "4001/2024/Lageplan.pdf"), any(), any());
+        Mockito.verify(s3MultipartUploader).upload(eq(BASE_PATH + "4001/Lageplan.pdf"), any(), any());
+        Mockito.verify(lageplanService).reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4001/");
+    }
+
+    @Test
+    void testImportDirectory_SkipsUnchangedFiles() throws IOException, FileSystemAccessException {
+        Files.createDirectories(sourceDirectory.resolve("4001"));
+        Files.createDirectories(sourceDirectory.resolve("4002"));
+        Files.write(sourceDirectory.resolve("4001/Lageplan.pdf"), new byte[] { 1, 2, 3 });
+        Files.write(sourceDirectory.resolve("4002/Lageplan.pdf"), new byte[] { 1, 2, 3 });
+        lageplanImportService.importDirectory(sourceDirectory);
+        Files.write(sourceDirectory.resolve("4002/Lageplan.pdf"), new byte[] { 4, 5, 6 });
+
+        final LageplanImportService.ImportReport report = lageplanImportService.importDirectory(sourceDirectory);
+
+        Assertions.assertEquals(1, report.uploaded());
+        Assertions.assertEquals(1, report.skipped());
+        Mockito.verify(s3MultipartUploader, Mockito.times(1)).upload(eq(BASE_PATH + "4001/Lageplan.pdf"), any(), any());
+        Mockito.verify(s3MultipartUploader, Mockito.times(2)).upload(eq(BASE_PATH + "4002/Lageplan.pdf"), any(), any());
+    }
+
+    @Test
+    void testImportDirectory_InvalidatesCacheIfReconcileFails() throws IOException, FileSystemAccessException {
+        Files.createDirectories(sourceDirectory.resolve("4001"));
+        Files.write(sourceDirectory.resolve("4001/Lageplan.pdf"), new byte[] { 1, 2, 3 });
+        newestLageplanCache.put(BASE_PATH + "4001/", Optional.of(new FileMetadata("alt.pdf", 1L, "etag", LocalDateTime.now())));
+        Mockito.when(lageplanService.reconcileNewestFileInFolderAndSubfolder(BASE_PATH + "4001/"))
+                .thenThrow(new FileSystemAccessException("S3 nicht verfügbar"));
+
+        lageplanImportService.importDirectory(sourceDirectory);
+
+        Assertions.assertTrue(newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").isEmpty());
+    }
+
+    @Test
+    void testImportDirectory_FailedFileIsRetried() throws IOException, FileSystemAccessException {
+        Files.createDirectories(sourceDirectory.resolve("4001"));
+        Files.write(sourceDirectory.resolve("4001/Lageplan.pdf"), new byte[] { 1, 2, 3 });
+        Mockito.when(s3MultipartUploader.upload(anyString(), any(), any()))
+                .thenThrow(new FileSystemAccessException("S3 nicht verfügbar"))
+                .thenAnswer(invocation -> new S3MultipartUploader.UploadResult(invocation.getArgument(0), 3L, "the-etag"));
+
+        final LageplanImportService.ImportReport failed = lageplanImportService.importDirectory(sourceDirectory);
+        final LageplanImportService.ImportReport resumed = lageplanImportService.importDirectory(sourceDirectory);
+
+        Assertions.assertEquals(1, failed.failed());
+        Assertions.assertEquals(1, resumed.uploaded());
+    }
+}
@@ -0,0 +1,118 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.adapter.s3.S3BucketClient;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanRetentionJobTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+    private static final String ARCHIVE_PATH = "DAVe/Messstellen/LageplaeneArchiv/";
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-07-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    @Mock
+    private S3BucketClient s3BucketClient;
+
+    private static final List<FileMetadata> FILES = List.of(
+            file("4001/2025.pdf", LocalDateTime.of(2025, 6, 1, 0, 0)),
+            file("4001/2024.pdf", LocalDateTime.of(2024, 9, 1, 0, 0)),
+            file("4001/alt/2023.pdf", LocalDateTime.of(2023, 6, 1, 0, 0)),
+            file("4001/alt/2022.pdf", LocalDateTime.of(2022, 6, 1, 0, 0)),
+            file("4002/2020.pdf", LocalDateTime.of(2020, 6, 1, 0, 0)),
+            file("4001.latest.json", LocalDateTime.of(2020, 6, 1, 0, 0)));
+
+    private static FileMetadata file(final String relativePath, final LocalDateTime lastModified) {
+        return new FileMetadata(BASE_PATH + relativePath, 100L, "etag", lastModified);
+    }
+
+    private LageplanRetentionJob retentionJob(final boolean dryRun, final String archivePath) {
+        return new LageplanRetentionJob(lageplanS3Client, s3BucketClient, meterRegistry, BASE_PATH, true, dryRun, 1, Period.ofMonths(12), archivePath,
+                2, CLOCK);
+    }
+
+    @Test
+    void testFindExpiredLageplaene() {
+        final List<FileMetadata> result = retentionJob(true, ARCHIVE_PATH).findExpiredLageplaene(FILES);
+
+        Assertions.assertEquals(
+                List.of(BASE_PATH + "4001/alt/2023.pdf", BASE_PATH + "4001/alt/2022.pdf"),
+                result.stream().map(FileMetadata::pathToFile).toList());
+    }
+
+    @Test
+    void testFindExpiredLageplaene_IgnoresFolderMarkers() {
+        final List<FileMetadata> files = List.of(
+                file("4001/", LocalDateTime.of(2026, 6, 1, 0, 0)),
+                file("4001/2025.pdf", LocalDateTime.of(2025, 6, 1, 0, 0)),
+                file("4001/alt/", LocalDateTime.of(2019, 6, 1, 0, 0)),
+                file("4002/", LocalDateTime.of(2026, 6, 1, 0, 0)),
+                file("4002/2020.pdf", LocalDateTime.of(2020, 6, 1, 0, 0)));
+
+        final List<FileMetadata> result = retentionJob(true, ARCHIVE_PATH).findExpiredLageplaene(files);
+
+        Assertions.assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void testApplyRetention_DryRun() throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(FILES);
+
+        retentionJob(true, ARCHIVE_PATH).applyRetention();
+
+        Mockito.verify(s3BucketClient, Mockito.never()).copyObject(anyString(), anyString());
+        Mockito.verify(s3BucketClient, Mockito.never()).deleteObjects(anyList());
+        Assertions.assertEquals(2, meterRegistry.get("dave.lageplaene.retention.objects").counter().count());
+        Assertions.assertEquals(200, meterRegistry.get("dave.lageplaene.retention.bytes").counter().count());
+    }
+
+    @Test
+    void testApplyRetention_Archive() throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(FILES);
+        Mockito.when(s3BucketClient.deleteObjects(anyList())).thenReturn(List.of());
+
+        retentionJob(false, ARCHIVE_PATH).applyRetention();
+
+        Mockito.verify(s3BucketClient).copyObject(BASE_PATH + "4001/alt/2023.pdf", ARCHIVE_PATH + "4001/alt/2023.pdf");
+        Mockito.verify(s3BucketClient).copyObject(BASE_PATH + "4001/alt/2022.pdf", ARCHIVE_PATH + "4001/alt/2022.pdf");
+        Mockito.verify(s3BucketClient).deleteObjects(List.of(BASE_PATH + "4001/alt/2023.pdf", BASE_PATH + "4001/alt/2022.pdf"));
+        Assertions.assertEquals(2, meterRegistry.get("dave.lageplaene.retention.objects").tag("mode", "archive").counter().count());
+    }
+
+    @Test
+    void testApplyRetention_DeleteWithFailedObject() throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(FILES);
+        Mockito.when(s3BucketClient.deleteObjects(anyList())).thenReturn(List.of(BASE_PATH + "4001/alt/2022.pdf"));
+
+        retentionJob(false, "").applyRetention();
+
+        Mockito.verify(s3BucketClient, Mockito.never()).copyObject(any(), any());
+        Assertions.assertEquals(1, meterRegistry.get("dave.lageplaene.retention.objects").tag("mode", "delete").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("dave.lageplaene.retention.failed").tag("mode", "delete").counter().count());
+    }
+}
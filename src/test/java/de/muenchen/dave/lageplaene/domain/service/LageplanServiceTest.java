@@ -1,11 +1,11 @@
 package de.muenchen.dave.lageplaene.domain.service;
 
 import de.muenchen.dave.errorhandling.ResourceNotFoundException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanPresigner;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
 import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
-import de.muenchen.refarch.integration.s3.adapter.out.s3.S3Adapter;
 import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
 import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
-import io.minio.http.Method;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,11 +16,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -32,17 +34,34 @@ class LageplanServiceTest {
     private static final Integer EXPIRATION = 30;
 
     @Mock
-    private S3Adapter s3Adapter;
+    private LageplanS3Client lageplanS3Client;
+
+    @Mock
+    private LageplanPresigner lageplanPresigner;
+
+    @Mock
+    private LatestLageplanPointer latestLageplanPointer;
+
+    @Mock
+    private MessstelleBloomFilter messstelleBloomFilter;
+
+    private NewestLageplanCache newestLageplanCache;
 
     private LageplanService lageplanService;
 
     @BeforeEach
     public void beforeEach() {
+        newestLageplanCache = new NewestLageplanCache(100);
         lageplanService = new LageplanService(
-                s3Adapter,
+                lageplanS3Client,
+                lageplanPresigner,
+                newestLageplanCache,
+                latestLageplanPointer,
+                messstelleBloomFilter,
                 BASE_PATH,
                 EXPIRATION);
-        Mockito.reset(s3Adapter);
+        Mockito.reset(lageplanS3Client, lageplanPresigner, latestLageplanPointer, messstelleBloomFilter);
+        Mockito.when(messstelleBloomFilter.mightHaveLageplan(anyString())).thenReturn(true);
     }
 
     @Test
@@ -58,21 +77,24 @@ class LageplanServiceTest {
                 "etag",
                 LocalDateTime.of(2025, 1, 1, 12, 0, 0));
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1));
-        Mockito.when(s3Adapter.getPresignedUrl(parentFolder + mstId + "1.pdf", Method.GET, EXPIRATION)).thenReturn(presignedUrl);
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1));
+        Mockito.when(lageplanPresigner.getPresignedUrlForDownload(parentFolder + mstId + "1.pdf", EXPIRATION)).thenReturn(presignedUrl);
 
         DocumentDto result = lageplanService.getNewestLageplanForGivenMessstelleId(mstId);
-        DocumentDto expected = new DocumentDto(presignedUrl);
-        Assertions.assertEquals(expected, result);
+        Assertions.assertEquals(presignedUrl, result.getUrl());
+        Assertions.assertEquals(mstId + "1.pdf", result.getFileName());
+        Assertions.assertEquals("application/pdf", result.getContentType());
+        Assertions.assertEquals(999L, result.getSize());
+        Assertions.assertEquals(Instant.parse("2025-01-01T12:00:00Z"), result.getLastModified());
+        Assertions.assertTrue(result.getExpiresAt().isAfter(Instant.now().plus(Duration.ofMinutes(EXPIRATION - 1))));
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
-                .getPresignedUrl(
+                .verify(lageplanPresigner, Mockito.times(1))
+                .getPresignedUrlForDownload(
                         eq(parentFolder + mstId + "1.pdf"),
-                        eq(Method.GET),
                         eq(EXPIRATION));
     }
 
@@ -99,21 +121,21 @@ class LageplanServiceTest {
                 "etag",
                 LocalDateTime.of(2025, 1, 1, 11, 0, 0));
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1, fileMetadata2, fileMetadata3));
-        Mockito.when(s3Adapter.getPresignedUrl(parentFolder + mstId + "2.pdf", Method.GET, EXPIRATION)).thenReturn(presignedUrl);
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1, fileMetadata2, fileMetadata3));
+        Mockito.when(lageplanPresigner.getPresignedUrlForDownload(parentFolder + mstId + "2.pdf", EXPIRATION)).thenReturn(presignedUrl);
 
         DocumentDto result = lageplanService.getNewestLageplanForGivenMessstelleId(mstId);
-        DocumentDto expected = new DocumentDto(presignedUrl);
-        Assertions.assertEquals(expected, result);
+        Assertions.assertEquals(presignedUrl, result.getUrl());
+        Assertions.assertEquals(mstId + "2.pdf", result.getFileName());
+        Assertions.assertEquals(Instant.parse("2025-01-01T13:00:00Z"), result.getLastModified());
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
-                .getPresignedUrl(
+                .verify(lageplanPresigner, Mockito.times(1))
+                .getPresignedUrlForDownload(
                         eq(parentFolder + mstId + "2.pdf"),
-                        eq(Method.GET),
                         eq(EXPIRATION));
     }
 
@@ -123,21 +145,20 @@ class LageplanServiceTest {
         final String mstId = "4001";
         final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of());
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of());
 
         Assertions.assertThrows(
                 ResourceNotFoundException.class,
                 () -> lageplanService.getNewestLageplanForGivenMessstelleId(mstId),
                 "Kein Dokument gefunden: " + parentFolder);
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
         Mockito
-                .verify(s3Adapter, Mockito.never())
-                .getPresignedUrl(
+                .verify(lageplanPresigner, Mockito.never())
+                .getPresignedUrlForDownload(
                         anyString(),
-                        any(Method.class),
-                        any(Integer.class));
+                        anyInt());
     }
 
     @Test
@@ -145,21 +166,15 @@ class LageplanServiceTest {
         final String mstId = "4002";
         final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
 
-        final var fileMetadata1 = new FileMetadata(
-                parentFolder + "file1.pdf",
-                999L,
-                "etag",
-                LocalDateTime.of(2025, 1, 1, 12, 0, 0));
-
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1));
+        Mockito.when(lageplanS3Client.containsAnyFile(parentFolder)).thenReturn(true);
 
         final var result = lageplanService.lageplanForGivenMessstelleIdExists(mstId);
 
         Assertions.assertTrue(result);
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
-                .getMetadataOfFilesFromFolder(parentFolder);
+                .verify(lageplanS3Client, Mockito.never())
+                .getMetadataOfFilesFromFolder(anyString());
     }
 
     @Test
@@ -167,15 +182,15 @@ class LageplanServiceTest {
         final String mstId = "4002";
         final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of());
+        Mockito.when(lageplanS3Client.containsAnyFile(parentFolder)).thenReturn(false);
 
         final var result = lageplanService.lageplanForGivenMessstelleIdExists(mstId);
 
         Assertions.assertFalse(result);
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
-                .getMetadataOfFilesFromFolder(parentFolder);
+                .verify(lageplanS3Client, Mockito.times(1))
+                .containsAnyFile(parentFolder);
     }
 
     @Test
@@ -189,14 +204,14 @@ class LageplanServiceTest {
                 "etag",
                 LocalDateTime.of(2025, 1, 1, 12, 0, 0));
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1));
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1));
 
         final var result = lageplanService.getFilePathOfNewestFileInFolderAndSubfolder(parentFolder);
 
         Assertions.assertEquals(Optional.of(parentFolder + "file1.pdf"), result);
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
     }
 
@@ -221,14 +236,14 @@ class LageplanServiceTest {
                 "etag",
                 LocalDateTime.of(2025, 1, 1, 11, 0, 0));
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1, fileMetadata2, fileMetadata3));
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1, fileMetadata2, fileMetadata3));
 
         final var result = lageplanService.getFilePathOfNewestFileInFolderAndSubfolder(parentFolder);
 
         Assertions.assertEquals(Optional.of(parentFolder + "file2.pdf"), result);
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
     }
 
@@ -237,14 +252,108 @@ class LageplanServiceTest {
         final String mstId = "4002";
         final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
 
-        Mockito.when(s3Adapter.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of());
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of());
 
         final var result = lageplanService.getFilePathOfNewestFileInFolderAndSubfolder(parentFolder);
 
         Assertions.assertEquals(Optional.empty(), result);
 
         Mockito
-                .verify(s3Adapter, Mockito.times(1))
+                .verify(lageplanS3Client, Mockito.times(1))
                 .getMetadataOfFilesFromFolder(parentFolder);
     }
+
+    @Test
+    void testGetNewestLageplanForGivenMessstelleId_WithUnavailableS3UsesLastKnownFile() throws FileSystemAccessException, ResourceNotFoundException {
+        final String mstId = "4003";
+        final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
+        final String presignedUrl = "https://the-presigned-url-to-file.pdf";
+
+        final var fileMetadata1 = new FileMetadata(
+                parentFolder + "file1.pdf",
+                999L,
+                "etag",
+                LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder))
+                .thenReturn(List.of(fileMetadata1))
+                .thenThrow(new FileSystemAccessException("S3 nicht verfügbar"));
+        Mockito.when(lageplanPresigner.getPresignedUrlForDownload(parentFolder + "file1.pdf", EXPIRATION)).thenReturn(presignedUrl);
+
+        lageplanService.getNewestLageplanForGivenMessstelleId(mstId);
+        final DocumentDto result = lageplanService.getNewestLageplanForGivenMessstelleId(mstId);
+
+        Assertions.assertEquals(presignedUrl, result.getUrl());
+        Assertions.assertEquals(Instant.parse("2025-01-01T12:00:00Z"), result.getLastModified());
+        Assertions.assertEquals(List.of(parentFolder), newestLageplanCache.getStaleFolders());
+        Mockito
+                .verify(lageplanPresigner, Mockito.times(2))
+                .getPresignedUrlForDownload(
+                        eq(parentFolder + "file1.pdf"),
+                        eq(EXPIRATION));
+    }
+
+    @Test
+    void testLageplanForGivenMessstelleIdExists_WithUnavailableS3AndWithoutLastKnownFile() throws FileSystemAccessException {
+        final String mstId = "4004";
+        final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
+
+        Mockito.when(lageplanS3Client.containsAnyFile(parentFolder)).thenThrow(new FileSystemAccessException("S3 nicht verfügbar"));
+
+        Assertions.assertThrows(
+                FileSystemAccessException.class,
+                () -> lageplanService.lageplanForGivenMessstelleIdExists(mstId));
+        Assertions.assertTrue(newestLageplanCache.getStaleFolders().isEmpty());
+    }
+
+    @Test
+    void testLageplanForGivenMessstelleIdExists_WithUnavailableS3AndLastKnownFile() throws FileSystemAccessException {
+        final String mstId = "4004";
+        final String parentFolder = BASE_PATH + mstId + LageplanService.SEPARATOR;
+        newestLageplanCache.put(parentFolder, Optional.of(new FileMetadata(parentFolder + "file1.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0))));
+
+        Mockito.when(lageplanS3Client.containsAnyFile(parentFolder)).thenThrow(new FileSystemAccessException("S3 nicht verfügbar"));
+
+        Assertions.assertTrue(lageplanService.lageplanForGivenMessstelleIdExists(mstId));
+        Assertions.assertEquals(List.of(parentFolder), newestLageplanCache.getStaleFolders());
+    }
+
+    @Test
+    void testLageplanForGivenMessstelleIdExists_DefiniteNegativeFromBloomFilter() throws FileSystemAccessException {
+        Mockito.when(messstelleBloomFilter.mightHaveLageplan("4005")).thenReturn(false);
+
+        Assertions.assertFalse(lageplanService.lageplanForGivenMessstelleIdExists("4005"));
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> lageplanService.getNewestLageplanForGivenMessstelleId("4005"));
+        Mockito.verifyNoInteractions(lageplanS3Client, latestLageplanPointer);
+    }
+
+    @Test
+    void testGetFilePathOfNewestFileInFolderAndSubfolder_WithPointer() throws FileSystemAccessException {
+
+        final String parentFolder = BASE_PATH + "4001" + LageplanService.SEPARATOR;
+        final var fileMetadata = new FileMetadata(parentFolder + "40011.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+
+        Mockito.when(latestLageplanPointer.read(parentFolder)).thenReturn(Optional.of(fileMetadata));
+
+        final Optional<String> result = lageplanService.getFilePathOfNewestFileInFolderAndSubfolder(parentFolder);
+        Assertions.assertEquals(Optional.of(parentFolder + "40011.pdf"), result);
+
+        Mockito.verify(lageplanS3Client, Mockito.never()).getMetadataOfFilesFromFolder(anyString());
+    }
+
+    @Test
+    void testGetFilePathOfNewestFileInFolderAndSubfolder_WithoutPointerWritesPointer() throws FileSystemAccessException {
+
+        final String parentFolder = BASE_PATH + "4001" + LageplanService.SEPARATOR;
+        final var fileMetadata1 = new FileMetadata(parentFolder + "40011.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 12, 0, 0));
+        final var fileMetadata2 = new FileMetadata(parentFolder + "40012.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 13, 0, 0));
+
+        Mockito.when(latestLageplanPointer.read(parentFolder)).thenReturn(Optional.empty());
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(parentFolder)).thenReturn(List.of(fileMetadata1, fileMetadata2));
+
+        final Optional<String> result = lageplanService.getFilePathOfNewestFileInFolderAndSubfolder(parentFolder);
+        Assertions.assertEquals(Optional.of(parentFolder + "40012.pdf"), result);
+
+        Mockito.verify(latestLageplanPointer, Mockito.times(1)).write(parentFolder, fileMetadata2);
+    }
 }
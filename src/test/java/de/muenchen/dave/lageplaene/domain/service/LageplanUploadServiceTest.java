@@ -0,0 +1,89 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanPresigner;
+import de.muenchen.dave.lageplaene.adapter.s3.S3MultipartUploader;
+import de.muenchen.dave.lageplaene.api.dto.DocumentDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class LageplanUploadServiceTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+    private static final Integer EXPIRATION = 30;
+
+    @Mock
+    private S3MultipartUploader s3MultipartUploader;
+
+    @Mock
+    private LageplanPresigner lageplanPresigner;
+
+    @Mock
+    private LatestLageplanPointer latestLageplanPointer;
+
+    @Mock
+    private LageplanChangeService lageplanChangeService;
+
+    private NewestLageplanCache newestLageplanCache;
+
+    private LageplanUploadService lageplanUploadService;
+
+    @BeforeEach
+    public void beforeEach() {
+        newestLageplanCache = new NewestLageplanCache(100);
+        lageplanUploadService = new LageplanUploadService(
+                s3MultipartUploader, lageplanPresigner, newestLageplanCache, latestLageplanPointer, lageplanChangeService, BASE_PATH, EXPIRATION);
+    }
+
+    @Test
+    void testUploadLageplan() throws FileSystemAccessException, IOException, BadRequestException {
+        final InputStream inputStream = new ByteArrayInputStream(new byte[] { 1, 2, 3 });
+        final String pathToFile = BASE_PATH + "4001/Lageplan.pdf";
+        Mockito.when(s3MultipartUploader.upload(pathToFile, "application/pdf", inputStream))
+                .thenReturn(new S3MultipartUploader.UploadResult(pathToFile, 3L, "the-etag"));
+        Mockito.when(lageplanPresigner.getPresignedUrlForDownload(pathToFile, EXPIRATION)).thenReturn("https://the-presigned-url");
+
+        final DocumentDto result = lageplanUploadService.uploadLageplan("4001", "C:\\Temp\\Lageplan.pdf", "application/pdf", inputStream);
+
+        Assertions.assertEquals("https://the-presigned-url", result.getUrl());
+        Assertions.assertEquals("Lageplan.pdf", result.getFileName());
+        Assertions.assertEquals(3L, result.getSize());
+        Mockito.verify(latestLageplanPointer).write(eq(BASE_PATH + "4001/"), any());
+        Mockito.verify(lageplanChangeService).record(eq("4001"), any(FileMetadata.class));
+        Assertions.assertEquals(pathToFile, newestLageplanCache.getAndMarkStale(BASE_PATH + "4001/").orElseThrow().getNewest().orElseThrow().pathToFile());
+    }
+
+    @Test
+    void testUploadLageplan_InvalidMstId() throws FileSystemAccessException, IOException {
+        final InputStream inputStream = new ByteArrayInputStream(new byte[] { 1 });
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> lageplanUploadService.uploadLageplan("../4001", "Lageplan.pdf", "application/pdf", inputStream));
+        Mockito.verify(s3MultipartUploader, Mockito.never()).upload(anyString(), anyString(), any());
+    }
+
+    @Test
+    void testUploadLageplan_EmptyFile() throws FileSystemAccessException, IOException {
+        final InputStream inputStream = new ByteArrayInputStream(new byte[0]);
+        Mockito.when(s3MultipartUploader.upload(anyString(), anyString(), any())).thenThrow(new IllegalArgumentException("Leere Datei"));
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> lageplanUploadService.uploadLageplan("4001", "Lageplan.pdf", "application/pdf", inputStream));
+    }
+}
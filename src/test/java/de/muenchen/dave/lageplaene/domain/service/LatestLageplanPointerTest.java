@@ -0,0 +1,91 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class LatestLageplanPointerTest {
+
+    private static final String FOLDER = "DAVe/Messstellen/Lageplaene/4001/";
+    private static final String POINTER = "DAVe/Messstellen/Lageplaene/4001.latest.json";
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    @Test
+    void testWriteAndRead() throws FileSystemAccessException {
+        final var pointer = new LatestLageplanPointer(lageplanS3Client, objectMapper, true, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        final var fileMetadata = new FileMetadata(FOLDER + "40011.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 11, 0, 0));
+
+        pointer.write(FOLDER, fileMetadata);
+
+        final ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(lageplanS3Client).putObject(eq(POINTER), eq("application/json"), content.capture());
+        Mockito.when(lageplanS3Client.getObject(POINTER)).thenReturn(Optional.of(new String(content.getValue(), StandardCharsets.UTF_8)));
+        Assertions.assertEquals(Optional.of(fileMetadata), pointer.read(FOLDER));
+    }
+
+    @Test
+    void testWrite_FailureDeletesPointer() throws FileSystemAccessException {
+        final var pointer = new LatestLageplanPointer(lageplanS3Client, objectMapper, true, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        Mockito.doThrow(new FileSystemAccessException("S3 nicht erreichbar")).when(lageplanS3Client).putObject(eq(POINTER), anyString(), any());
+
+        pointer.write(FOLDER, new FileMetadata(FOLDER + "40011.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 11, 0, 0)));
+
+        Mockito.verify(lageplanS3Client).deleteObject(POINTER);
+    }
+
+    @Test
+    void testRead_StalePointer() throws FileSystemAccessException {
+        final var pointer = new LatestLageplanPointer(
+                lageplanS3Client, objectMapper, true, Duration.ofHours(1), Clock.fixed(NOW.plus(Duration.ofHours(2)), ZoneOffset.UTC));
+        Mockito.when(lageplanS3Client.getObject(POINTER)).thenReturn(Optional.of(
+                "{\"pathToFile\":\"" + FOLDER + "40011.pdf\",\"fileSize\":999,\"etag\":\"etag\",\"lastModified\":\"2025-01-01T11:00:00\","
+                        + "\"updatedAt\":\"2025-01-01T12:00:00Z\"}"));
+
+        Assertions.assertEquals(Optional.empty(), pointer.read(FOLDER));
+    }
+
+    @Test
+    void testRead_MissingPointer() throws FileSystemAccessException {
+        final var pointer = new LatestLageplanPointer(lageplanS3Client, objectMapper, true, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+        Mockito.when(lageplanS3Client.getObject(POINTER)).thenReturn(Optional.empty());
+
+        Assertions.assertEquals(Optional.empty(), pointer.read(FOLDER));
+    }
+
+    @Test
+    void testDisabled() throws FileSystemAccessException {
+        final var pointer = new LatestLageplanPointer(lageplanS3Client, objectMapper, false, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        Assertions.assertEquals(Optional.empty(), pointer.read(FOLDER));
+        pointer.write(FOLDER, new FileMetadata(FOLDER + "40011.pdf", 999L, "etag", LocalDateTime.of(2025, 1, 1, 11, 0, 0)));
+
+        Mockito.verify(lageplanS3Client, Mockito.never()).getObject(anyString());
+        Mockito.verify(lageplanS3Client, Mockito.never()).putObject(anyString(), anyString(), any());
+    }
+}
@@ -0,0 +1,85 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class MessstelleBloomFilterTest {
+
+    @Mock
+    private MessstelleCatalog messstelleCatalog;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MessstelleBloomFilter messstelleBloomFilter;
+
+    @BeforeEach
+    public void beforeEach() {
+        meterRegistry = new SimpleMeterRegistry();
+        messstelleBloomFilter = new MessstelleBloomFilter(messstelleCatalog, meterRegistry, true, 0.01, 0.2);
+    }
+
+    @Test
+    void testMightHaveLageplan_BeforeFirstRebuild() {
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("4001"));
+        Assertions.assertEquals(0, meterRegistry.get("dave.lageplaene.bloomfilter.size").gauge().value());
+    }
+
+    @Test
+    void testMightHaveLageplan_AfterRebuild() throws FileSystemAccessException {
+        Mockito.when(messstelleCatalog.getMstIdsWithPrefix("")).thenReturn(List.of("4001", "4002"));
+
+        messstelleBloomFilter.rebuild();
+
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("4001"));
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("4002"));
+        Assertions.assertFalse(messstelleBloomFilter.mightHaveLageplan("9999"));
+        Assertions.assertEquals(1, meterRegistry.get("dave.lageplaene.bloomfilter.negatives").counter().count());
+        Assertions.assertTrue(meterRegistry.get("dave.lageplaene.bloomfilter.size").gauge().value() > 0);
+    }
+
+    @Test
+    void testOnLageplanChanged_AddsNewMessstelle() throws FileSystemAccessException {
+        Mockito.when(messstelleCatalog.getMstIdsWithPrefix("")).thenReturn(List.of("4001"));
+        messstelleBloomFilter.rebuild();
+
+        messstelleBloomFilter.onLageplanChanged(new LageplanChangedEvent("9999", false, Instant.EPOCH, false));
+
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("9999"));
+    }
+
+    @Test
+    void testOnLageplanChanged_DuringRebuild() throws FileSystemAccessException {
+        Mockito.when(messstelleCatalog.getMstIdsWithPrefix("")).thenAnswer(invocation -> {
+            messstelleBloomFilter.onLageplanChanged(new LageplanChangedEvent("9999", false, Instant.EPOCH, false));
+            return List.of("4001");
+        });
+
+        messstelleBloomFilter.rebuild();
+
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("9999"));
+    }
+
+    @Test
+    void testRebuild_FailureKeepsPreviousFilter() throws FileSystemAccessException {
+        Mockito.when(messstelleCatalog.getMstIdsWithPrefix(""))
+                .thenReturn(List.of("4001"))
+                .thenThrow(new FileSystemAccessException("Fehler"));
+        messstelleBloomFilter.rebuild();
+
+        messstelleBloomFilter.rebuild();
+
+        Assertions.assertTrue(messstelleBloomFilter.mightHaveLageplan("4001"));
+        Assertions.assertFalse(messstelleBloomFilter.mightHaveLageplan("9999"));
+    }
+}
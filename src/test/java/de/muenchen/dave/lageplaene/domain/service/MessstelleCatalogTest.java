@@ -0,0 +1,109 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.errorhandling.BadRequestException;
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.dave.lageplaene.api.dto.MessstellenDto;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class MessstelleCatalogTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    private MessstelleCatalog messstelleCatalog;
+
+    @BeforeEach
+    public void beforeEach() {
+        messstelleCatalog = new MessstelleCatalog(lageplanS3Client, BASE_PATH, Duration.ofMinutes(5), 2, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private void givenSubfolders(final String... mstIds) throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.isDelimiterListingSupported()).thenReturn(true);
+        Mockito.when(lageplanS3Client.getSubfolders(BASE_PATH)).thenReturn(
+                List.of(mstIds).stream().map(mstId -> BASE_PATH + mstId + "/").toList());
+    }
+
+    @Test
+    void testGetMessstellen_Pagination() throws FileSystemAccessException, BadRequestException {
+        givenSubfolders("4003", "4001", "4002");
+
+        final MessstellenDto firstPage = messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, null, 2);
+        Assertions.assertEquals(List.of("4001", "4002"), firstPage.getMstIds());
+        Assertions.assertNotNull(firstPage.getContinuationToken());
+
+        final MessstellenDto secondPage = messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, firstPage.getContinuationToken(), 2);
+        Assertions.assertEquals(List.of("4003"), secondPage.getMstIds());
+        Assertions.assertNull(secondPage.getContinuationToken());
+        Mockito.verify(lageplanS3Client, Mockito.times(1)).getSubfolders(BASE_PATH);
+    }
+
+    @Test
+    void testGetMessstellen_PrefixAndDescendingOrder() throws FileSystemAccessException, BadRequestException {
+        givenSubfolders("4001", "4002", "5001", "40");
+
+        final MessstellenDto firstPage = messstelleCatalog.getMessstellen("40", MessstelleCatalog.Order.DESC, null, 2);
+        Assertions.assertEquals(List.of("4002", "4001"), firstPage.getMstIds());
+
+        final MessstellenDto secondPage = messstelleCatalog.getMessstellen("40", MessstelleCatalog.Order.DESC, firstPage.getContinuationToken(), 2);
+        Assertions.assertEquals(List.of("40"), secondPage.getMstIds());
+        Assertions.assertNull(secondPage.getContinuationToken());
+    }
+
+    @Test
+    void testGetMessstellen_UpdatedByEvents() throws FileSystemAccessException, BadRequestException {
+        givenSubfolders("4001", "4002");
+        messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, null, 2);
+
+        messstelleCatalog.onLageplanChanged(new LageplanChangedEvent("4001", true, Instant.EPOCH, false));
+        messstelleCatalog.onLageplanChanged(new LageplanChangedEvent("4000", false, Instant.EPOCH, false));
+
+        Assertions.assertEquals(List.of("4000", "4002"), messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, null, 2).getMstIds());
+    }
+
+    @Test
+    void testGetMessstellen_WithoutDelimiterListing() throws FileSystemAccessException, BadRequestException {
+        Mockito.when(lageplanS3Client.isDelimiterListingSupported()).thenReturn(false);
+        Mockito.when(lageplanS3Client.getMetadataOfFilesFromFolder(BASE_PATH)).thenReturn(List.of(
+                new FileMetadata(BASE_PATH + "4001/a.pdf", 1L, "etag", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                new FileMetadata(BASE_PATH + "4001/b.pdf", 1L, "etag", LocalDateTime.of(2024, 1, 1, 0, 0)),
+                new FileMetadata(BASE_PATH + "4001.latest.json", 1L, "etag", LocalDateTime.of(2024, 1, 1, 0, 0))));
+
+        Assertions.assertEquals(List.of("4001"), messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, null, 2).getMstIds());
+    }
+
+    @Test
+    void testGetMessstellen_InvalidToken() throws FileSystemAccessException {
+        givenSubfolders("4001");
+
+        Assertions.assertThrows(BadRequestException.class,
+                () -> messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, "%%%", 2));
+    }
+
+    @Test
+    void testGetMessstellen_NeverLoaded() throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.isDelimiterListingSupported()).thenReturn(true);
+        Mockito.when(lageplanS3Client.getSubfolders(BASE_PATH)).thenThrow(new FileSystemAccessException("Fehler"));
+
+        Assertions.assertThrows(FileSystemAccessException.class,
+                () -> messstelleCatalog.getMessstellen(null, MessstelleCatalog.Order.ASC, null, 2));
+    }
+}
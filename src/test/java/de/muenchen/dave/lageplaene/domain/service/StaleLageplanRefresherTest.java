@@ -0,0 +1,69 @@
+package de.muenchen.dave.lageplaene.domain.service;
+
+import de.muenchen.dave.lageplaene.adapter.s3.LageplanS3Client;
+import de.muenchen.refarch.integration.s3.domain.exception.FileSystemAccessException;
+import de.muenchen.refarch.integration.s3.domain.model.FileMetadata;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(MockitoExtension.class)
+class StaleLageplanRefresherTest {
+
+    private static final String BASE_PATH = "DAVe/Messstellen/Lageplaene/";
+
+    @Mock
+    private LageplanService lageplanService;
+
+    @Mock
+    private LageplanS3Client lageplanS3Client;
+
+    private NewestLageplanCache newestLageplanCache;
+
+    private StaleLageplanRefresher staleLageplanRefresher;
+
+    @BeforeEach
+    public void beforeEach() {
+        newestLageplanCache = new NewestLageplanCache(100);
+        staleLageplanRefresher = new StaleLageplanRefresher(lageplanService, newestLageplanCache, lageplanS3Client);
+        for (final String mstId : new String[] { "4001", "4002", "4003" }) {
+            final String folder = BASE_PATH + mstId + "/";
+            newestLageplanCache.put(folder, Optional.of(new FileMetadata(folder + "Lageplan.pdf", 1L, "etag", LocalDateTime.of(2024, 1, 1, 0, 0))));
+            newestLageplanCache.getAndMarkStale(folder);
+        }
+    }
+
+    @Test
+    void testRefreshStaleEntries() throws FileSystemAccessException {
+        staleLageplanRefresher.refreshStaleEntries();
+
+        Mockito.verify(lageplanService, Mockito.times(3)).loadNewestFileInFolderAndSubfolder(anyString());
+    }
+
+    @Test
+    void testRefreshStaleEntries_AbortsIfS3KeepsFailing() throws FileSystemAccessException {
+        Mockito.when(lageplanService.loadNewestFileInFolderAndSubfolder(anyString())).thenThrow(new FileSystemAccessException("S3"));
+
+        staleLageplanRefresher.refreshStaleEntries();
+
+        Mockito.verify(lageplanService, Mockito.times(1)).loadNewestFileInFolderAndSubfolder(anyString());
+        Mockito.verify(lageplanService, Mockito.never()).getNewestFileInFolderAndSubfolder(anyString());
+    }
+
+    @Test
+    void testRefreshStaleEntries_SkippedWhileS3IsUnavailable() throws FileSystemAccessException {
+        Mockito.when(lageplanS3Client.isUnavailable()).thenReturn(true);
+
+        staleLageplanRefresher.refreshStaleEntries();
+
+        Mockito.verify(lageplanService, Mockito.never()).loadNewestFileInFolderAndSubfolder(anyString());
+    }
+}
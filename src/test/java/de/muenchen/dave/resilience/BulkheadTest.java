@@ -0,0 +1,32 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class BulkheadTest {
+
+    @Test
+    void testRejectsIfQueueIsFull() {
+        final Bulkhead bulkhead = new Bulkhead("test", 1, 0, Duration.ofSeconds(1));
+
+        Assertions.assertTrue(bulkhead.tryAcquire());
+        Assertions.assertFalse(bulkhead.tryAcquire());
+        Assertions.assertEquals(1, bulkhead.getActiveCalls());
+        Assertions.assertEquals(1, bulkhead.getRejectedCalls());
+
+        bulkhead.release();
+        Assertions.assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    void testRejectsAfterMaxWaitDuration() {
+        final Bulkhead bulkhead = new Bulkhead("test", 1, 1, Duration.ofMillis(10));
+
+        Assertions.assertTrue(bulkhead.tryAcquire());
+        Assertions.assertFalse(bulkhead.tryAcquire());
+        Assertions.assertEquals(0, bulkhead.getQueueDepth());
+        Assertions.assertEquals(1, bulkhead.getRejectedCalls());
+    }
+}
@@ -0,0 +1,85 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class CircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, Duration.ofSeconds(30), Duration.ofSeconds(5), clock);
+
+    @Test
+    void testOpensAfterConsecutiveFailuresAndClosesAfterSuccessfulTrialCall() {
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError();
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError();
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+
+        clock.advance(Duration.ofSeconds(31));
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(Duration.ofMillis(10));
+
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testFailedTrialCallReopens() {
+        circuitBreaker.onError();
+        circuitBreaker.onError();
+        clock.advance(Duration.ofSeconds(31));
+
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onError();
+
+        Assertions.assertTrue(circuitBreaker.isOpen());
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void testSlowCallsCountAsFailures() {
+        circuitBreaker.onSuccess(Duration.ofSeconds(6));
+        circuitBreaker.onSuccess(Duration.ofSeconds(6));
+
+        Assertions.assertTrue(circuitBreaker.isOpen());
+    }
+
+    static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
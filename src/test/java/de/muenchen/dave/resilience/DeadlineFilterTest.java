@@ -0,0 +1,40 @@
+package de.muenchen.dave.resilience;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+class DeadlineFilterTest {
+
+    private final DeadlineFilter deadlineFilter = new DeadlineFilter("X-Request-Timeout", Duration.ofSeconds(10), Duration.ofSeconds(30));
+
+    @Test
+    void testFiltersLageplanRequests() {
+        Assertions.assertFalse(deadlineFilter.shouldNotFilter(request("", "/lageplan")));
+        Assertions.assertFalse(deadlineFilter.shouldNotFilter(request("", "/lageplan/exists")));
+        Assertions.assertTrue(deadlineFilter.shouldNotFilter(request("", "/actuator/health")));
+    }
+
+    @Test
+    void testSkipsLongRunningRequests() {
+        Assertions.assertTrue(deadlineFilter.shouldNotFilter(request("", "/lageplan/upload")));
+        Assertions.assertTrue(deadlineFilter.shouldNotFilter(request("", "/lageplan/export")));
+        Assertions.assertTrue(deadlineFilter.shouldNotFilter(request("", "/lageplan/subscribe")));
+    }
+
+    @Test
+    void testConsidersContextPath() {
+        Assertions.assertTrue(deadlineFilter.shouldNotFilter(request("/dave", "/dave/lageplan/upload")));
+        Assertions.assertFalse(deadlineFilter.shouldNotFilter(request("/dave", "/dave/lageplan/exists")));
+    }
+
+    private static HttpServletRequest request(final String contextPath, final String uri) {
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getContextPath()).thenReturn(contextPath);
+        Mockito.when(request.getRequestURI()).thenReturn(uri);
+        return request;
+    }
+}
@@ -0,0 +1,77 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HedgingExecutorTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void afterEach() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testHedgeWinsIfFirstCallIsSlow() throws ExecutionException, InterruptedException {
+        final HedgingExecutor hedgingExecutor = new HedgingExecutor(
+                executor, new LatencyTracker(100, 0.95, Duration.ofMillis(20)), Duration.ofMillis(20), 1.0);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = hedgingExecutor.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(10_000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        Assertions.assertEquals("fast", result);
+        Assertions.assertEquals(1, hedgingExecutor.getHedgesFired());
+        // Der Zähler wird erst nach dem Vervollständigen des Ergebnisses erhöht.
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedgingExecutor.getHedgesWon() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(1, hedgingExecutor.getHedgesWon());
+    }
+
+    @Test
+    void testNoHedgeWithoutBudget() throws ExecutionException, InterruptedException {
+        final HedgingExecutor hedgingExecutor = new HedgingExecutor(
+                executor, new LatencyTracker(100, 0.95, Duration.ofMillis(5)), Duration.ofMillis(5), 0.0);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final String result = hedgingExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            Thread.sleep(50);
+            return "slow";
+        });
+
+        Assertions.assertEquals("slow", result);
+        Assertions.assertEquals(1, attempts.get());
+        Assertions.assertEquals(0, hedgingExecutor.getHedgesFired());
+    }
+
+    @Test
+    void testFailureOfAllAttemptsIsPropagated() {
+        final HedgingExecutor hedgingExecutor = new HedgingExecutor(
+                executor, new LatencyTracker(100, 0.95, Duration.ofMillis(5)), Duration.ofMillis(5), 1.0);
+
+        final ExecutionException exception = Assertions.assertThrows(
+                ExecutionException.class,
+                () -> hedgingExecutor.execute(() -> {
+                    throw new IllegalStateException("S3 nicht verfügbar");
+                }));
+
+        Assertions.assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+}
@@ -0,0 +1,50 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.Map;
+
+class RateLimitAspectTest {
+
+    @AfterEach
+    public void afterEach() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetClient_Username() {
+        authenticate(Map.of("username", "max.mustermann", "sub", "1234", "azp", "dave"));
+
+        Assertions.assertEquals("username:max.mustermann", RateLimitAspect.getClient());
+    }
+
+    @Test
+    void testGetClient_ServiceAccountWithoutUsername() {
+        authenticate(Map.of("sub", "1234", "azp", "dave"));
+        Assertions.assertEquals("sub:1234", RateLimitAspect.getClient());
+
+        authenticate(Map.of("azp", "dave"));
+        Assertions.assertEquals("azp:dave", RateLimitAspect.getClient());
+    }
+
+    @Test
+    void testGetClient_Anonymous() {
+        Assertions.assertNull(RateLimitAspect.getClient());
+
+        authenticate(Map.of("scope", "lhm-extended"));
+        Assertions.assertNull(RateLimitAspect.getClient());
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("events", null));
+        Assertions.assertNull(RateLimitAspect.getClient());
+    }
+
+    private static void authenticate(final Map<String, Object> claims) {
+        final Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").claims(existing -> existing.putAll(claims)).build();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(jwt, null));
+    }
+}
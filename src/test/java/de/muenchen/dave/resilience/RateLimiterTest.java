@@ -0,0 +1,82 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class RateLimiterTest {
+
+    private final MutableClock clock = new MutableClock();
+
+    @Test
+    void testLimitsEachClientSeparately() {
+        final RateLimiter rateLimiter = new RateLimiter("test", 2, 1, 10, clock);
+
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("a"));
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("a"));
+        Assertions.assertEquals(Duration.ofSeconds(1), rateLimiter.tryAcquire("a"));
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("b"));
+        Assertions.assertEquals(1, rateLimiter.getThrottledCalls());
+        Assertions.assertEquals(2, rateLimiter.getClients());
+
+        clock.advance(Duration.ofSeconds(1));
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("a"));
+    }
+
+    @Test
+    void testEvictsFullBucketsFirst() {
+        final RateLimiter rateLimiter = new RateLimiter("test", 2, 1, 4, clock);
+        rateLimiter.tryAcquire("a");
+        rateLimiter.tryAcquire("b");
+        clock.advance(Duration.ofSeconds(2));
+        rateLimiter.tryAcquire("c");
+        rateLimiter.tryAcquire("c");
+        rateLimiter.tryAcquire("d");
+
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("e"));
+        Assertions.assertEquals(3, rateLimiter.getClients());
+        Assertions.assertEquals(2, rateLimiter.getEvictedClients());
+        Assertions.assertEquals(Duration.ofSeconds(1), rateLimiter.tryAcquire("c"));
+    }
+
+    @Test
+    void testEvictsActiveBucketsIfAllAreInUse() {
+        final RateLimiter rateLimiter = new RateLimiter("test", 2, 1, 4, clock);
+        for (final String client : new String[] { "a", "b", "c", "d" }) {
+            rateLimiter.tryAcquire(client);
+        }
+
+        Assertions.assertEquals(Duration.ZERO, rateLimiter.tryAcquire("e"));
+        Assertions.assertEquals(4, rateLimiter.getClients());
+        Assertions.assertEquals(1, rateLimiter.getEvictedClients());
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(final Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
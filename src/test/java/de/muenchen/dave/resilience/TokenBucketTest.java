@@ -0,0 +1,77 @@
+package de.muenchen.dave.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testAllowsBurstUpToCapacity() {
+        final TokenBucket bucket = new TokenBucket(3, 1);
+        final long now = 42 * SECOND;
+
+        Assertions.assertEquals(0, bucket.tryConsume(now));
+        Assertions.assertEquals(0, bucket.tryConsume(now));
+        Assertions.assertEquals(0, bucket.tryConsume(now));
+        Assertions.assertEquals(SECOND, bucket.tryConsume(now));
+        Assertions.assertFalse(bucket.isFull(now));
+    }
+
+    @Test
+    void testRefillsOverTime() {
+        final TokenBucket bucket = new TokenBucket(2, 4);
+        final long now = 42 * SECOND;
+        bucket.tryConsume(now);
+        bucket.tryConsume(now);
+
+        Assertions.assertEquals(SECOND / 4, bucket.tryConsume(now));
+        Assertions.assertEquals(0, bucket.tryConsume(now + SECOND / 4));
+        Assertions.assertTrue(bucket.tryConsume(now + SECOND / 4) > 0);
+        Assertions.assertTrue(bucket.isFull(now + SECOND));
+        Assertions.assertEquals(0, bucket.tryConsume(now + SECOND));
+        Assertions.assertEquals(0, bucket.tryConsume(now + SECOND));
+    }
+
+    @Test
+    void testRejectsInvalidConfiguration() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+
+    @Test
+    void testConcurrentConsumptionNeverExceedsCapacity() throws InterruptedException {
+        final TokenBucket bucket = new TokenBucket(100, 1);
+        final long now = 42 * SECOND;
+        final AtomicInteger consumed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int call = 0; call < 1000; call++) {
+                    if (bucket.tryConsume(now) == 0) {
+                        consumed.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(100, consumed.get());
+    }
+}
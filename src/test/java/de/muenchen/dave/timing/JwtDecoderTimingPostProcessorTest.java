@@ -0,0 +1,44 @@
+package de.muenchen.dave.timing;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+class JwtDecoderTimingPostProcessorTest {
+
+    private static final JwtDecoder JWT_DECODER = token -> {
+        if (!"gueltiges-token".equals(token)) {
+            throw new BadJwtException("Signatur ungültig");
+        }
+        return Jwt.withTokenValue(token).header("alg", "RS256").subject("dave-backend").build();
+    };
+
+    private final JwtDecoderTimingPostProcessor postProcessor = new JwtDecoderTimingPostProcessor();
+
+    @AfterEach
+    public void afterEach() {
+        RequestTiming.clear();
+    }
+
+    @Test
+    void testJwtDecoderIsTimed() {
+        final RequestTiming requestTiming = RequestTiming.start(ObservationRegistry.NOOP);
+        final JwtDecoder jwtDecoder = (JwtDecoder) postProcessor.postProcessAfterInitialization(JWT_DECODER, "jwtDecoder");
+
+        Assertions.assertEquals("dave-backend", jwtDecoder.decode("gueltiges-token").getSubject());
+        Assertions.assertThrows(BadJwtException.class, () -> jwtDecoder.decode("anderes-token"));
+
+        Assertions.assertTrue(requestTiming.getStages().containsKey(JwtDecoderTimingPostProcessor.JWT_STAGE));
+    }
+
+    @Test
+    void testOtherBeansAreUnchanged() {
+        final Object bean = new Object();
+
+        Assertions.assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "bean"));
+    }
+}
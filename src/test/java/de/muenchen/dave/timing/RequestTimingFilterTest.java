@@ -0,0 +1,93 @@
+package de.muenchen.dave.timing;
+
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RequestTimingFilterTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private ObjectProvider<ObservationRegistry> observationRegistry;
+
+    @BeforeEach
+    public void beforeEach() {
+        Mockito.when(observationRegistry.getIfAvailable(Mockito.any())).thenReturn(ObservationRegistry.NOOP);
+        Mockito.when(request.getRequestURI()).thenReturn("/lageplan");
+        Mockito.when(request.getContextPath()).thenReturn("");
+        Mockito.when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+    }
+
+    @Test
+    void testServerTimingHeaderBeforeResponseIsWritten() throws ServletException, IOException {
+        final AtomicReference<RequestTiming> duringRequest = new AtomicReference<>();
+        final FilterChain filterChain = (filteredRequest, filteredResponse) -> {
+            duringRequest.set(RequestTiming.current().orElseThrow());
+            try (RequestTiming.Stage ignored = RequestTiming.stage("s3-listing")) {
+                // S3-Auflistung
+            }
+            filteredResponse.getOutputStream();
+        };
+
+        new RequestTimingFilter(observationRegistry, true, Duration.ofSeconds(1)).doFilter(request, response, filterChain);
+
+        final ArgumentCaptor<String> serverTiming = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(response).setHeader(Mockito.eq(RequestTimingFilter.SERVER_TIMING_HEADER), serverTiming.capture());
+        Assertions.assertTrue(serverTiming.getValue().startsWith("s3-listing;dur="), serverTiming.getValue());
+        Assertions.assertFalse(serverTiming.getValue().contains(RequestTimingFilter.RESPONSE_STAGE));
+        Assertions.assertTrue(duringRequest.get().getStages().containsKey(RequestTimingFilter.RESPONSE_STAGE));
+        Assertions.assertTrue(RequestTiming.current().isEmpty());
+    }
+
+    @Test
+    void testServerTimingHeaderWithoutBody() throws ServletException, IOException {
+        new RequestTimingFilter(observationRegistry, true, Duration.ofSeconds(1)).doFilter(request, response, (filteredRequest, filteredResponse) -> {
+        });
+
+        Mockito.verify(response).setHeader(Mockito.eq(RequestTimingFilter.SERVER_TIMING_HEADER), Mockito.startsWith("total;dur="));
+    }
+
+    @Test
+    void testServerTimingHeaderDisabled() throws ServletException, IOException {
+        new RequestTimingFilter(observationRegistry, false, Duration.ZERO).doFilter(request, response,
+                (filteredRequest, filteredResponse) -> filteredResponse.getOutputStream());
+
+        Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(RequestTimingFilter.SERVER_TIMING_HEADER), Mockito.anyString());
+        Assertions.assertTrue(RequestTiming.current().isEmpty());
+    }
+
+    @Test
+    void testOtherPathsAreNotTimed() throws ServletException, IOException {
+        Mockito.when(request.getRequestURI()).thenReturn("/actuator/health");
+
+        new RequestTimingFilter(observationRegistry, true, Duration.ofSeconds(1)).doFilter(request, response,
+                (filteredRequest, filteredResponse) -> Assertions.assertTrue(RequestTiming.current().isEmpty()));
+
+        Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(RequestTimingFilter.SERVER_TIMING_HEADER), Mockito.anyString());
+    }
+}
@@ -0,0 +1,94 @@
+package de.muenchen.dave.timing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class RequestTimingTest {
+
+    @AfterEach
+    public void afterEach() {
+        RequestTiming.clear();
+    }
+
+    @Test
+    void testStagesAreSummedInOrderOfFirstStart() {
+        final RequestTiming requestTiming = RequestTiming.start(ObservationRegistry.NOOP);
+
+        try (RequestTiming.Stage ignored = RequestTiming.stage("jwt")) {
+            sleep(5);
+        }
+        try (RequestTiming.Stage ignored = RequestTiming.stage("s3-listing")) {
+            sleep(5);
+        }
+        try (RequestTiming.Stage ignored = RequestTiming.stage("jwt")) {
+            sleep(5);
+        }
+
+        Assertions.assertEquals(List.of("jwt", "s3-listing"), List.copyOf(requestTiming.getStages().keySet()));
+        Assertions.assertTrue(requestTiming.getStages().get("jwt").toMillis() >= 10);
+        Assertions.assertTrue(requestTiming.getElapsed().compareTo(requestTiming.getStages().get("jwt")) >= 0);
+    }
+
+    @Test
+    void testServerTiming() {
+        final RequestTiming requestTiming = RequestTiming.start(ObservationRegistry.NOOP);
+        try (RequestTiming.Stage ignored = RequestTiming.stage("presigning")) {
+            sleep(2);
+        }
+
+        final String serverTiming = requestTiming.toServerTiming();
+
+        Assertions.assertTrue(serverTiming.matches("presigning;dur=\\d+\\.\\d, total;dur=\\d+\\.\\d"), serverTiming);
+    }
+
+    @Test
+    void testStageWithoutRequestIsIgnored() {
+        try (RequestTiming.Stage ignored = RequestTiming.stage("s3-listing")) {
+            Assertions.assertTrue(RequestTiming.current().isEmpty());
+        }
+        Assertions.assertTrue(RequestTiming.current().isEmpty());
+    }
+
+    @Test
+    void testStagesAreObserved() {
+        final List<Observation.Context> observed = new CopyOnWriteArrayList<>();
+        final ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(final Observation.Context context) {
+                observed.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(final Observation.Context context) {
+                return true;
+            }
+        });
+        RequestTiming.start(observationRegistry);
+
+        try (RequestTiming.Stage ignored = RequestTiming.stage("s3-get")) {
+            Assertions.assertNotNull(observationRegistry.getCurrentObservation());
+        }
+
+        Assertions.assertEquals(1, observed.size());
+        Assertions.assertEquals(RequestTiming.OBSERVATION_NAME, observed.getFirst().getName());
+        Assertions.assertEquals("s3-get", observed.getFirst().getContextualName());
+        Assertions.assertEquals("s3-get", observed.getFirst().getLowCardinalityKeyValue("stage").getValue());
+        Assertions.assertNull(observationRegistry.getCurrentObservation());
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}